@@ -0,0 +1,43 @@
+#!/bin/sh
+# Prepara y arranca AutoFixPro según el MODO_ARRANQUE con que se construyó la imagen:
+#   jar - java -jar app.jar
+#   cds - jar extraído + archivo AppCDS de una ejecución de entrenamiento
+#   aot - como cds, usando además el código generado por Spring AOT (compilado con -Paot)
+#
+#   arranque.sh preparar   extrae el jar y genera el archivo CDS (al construir la imagen)
+#   arranque.sh            arranca la aplicación
+set -e
+
+DIRECTORIO=/app/extraido
+ARCHIVO_CDS=$DIRECTORIO/app.jsa
+
+# El entrenamiento corre al construir la imagen, con SPRING_PROFILES_ACTIVE=prod. Las propiedades de
+# sistema prevalecen sobre cualquier perfil: sin actualización de esquema y con una URL que no lleva
+# a ninguna base, para que nunca se conecte con la base configurada en prod.
+ENTRENAMIENTO="-Dspring.profiles.include=entrenamiento -Dspring.jpa.hibernate.ddl-auto=none \
+  -Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false -Dspring.sql.init.mode=never \
+  -Dspring.datasource.url=jdbc:mysql://127.0.0.1:1/entrenamiento \
+  -Dspring.datasource.username=entrenamiento -Dspring.datasource.password=entrenamiento \
+  -Ddatasource.replicas.urls="
+
+case "$MODO_ARRANQUE" in
+  jar) OPCIONES="" ;;
+  cds) OPCIONES="" ;;
+  aot) OPCIONES="-Dspring.aot.enabled=true" ;;
+  *) echo "MODO_ARRANQUE no válido: $MODO_ARRANQUE (valores permitidos: jar, cds, aot)" >&2; exit 1 ;;
+esac
+
+if [ "$1" = "preparar" ]; then
+  [ "$MODO_ARRANQUE" = "jar" ] && exit 0
+  java -Djarmode=tools -jar /app/app.jar extract --destination "$DIRECTORIO"
+  # Entrenamiento: el contexto arranca sin base de datos y la JVM termina al refrescarlo
+  JPA_DDL_AUTO=none java -XX:ArchiveClassesAtExit="$ARCHIVO_CDS" -Dspring.context.exit=onRefresh \
+       $ENTRENAMIENTO $OPCIONES -jar "$DIRECTORIO/app.jar"
+  rm /app/app.jar
+  exit 0
+fi
+
+if [ "$MODO_ARRANQUE" = "jar" ]; then
+  exec java $JAVA_OPTS -jar /app/app.jar "$@"
+fi
+exec java -XX:SharedArchiveFile="$ARCHIVO_CDS" $OPCIONES $JAVA_OPTS -jar "$DIRECTORIO/app.jar" "$@"
@@ -3,6 +3,7 @@ package com.example.autofixpro;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 /**
  * Aplicación principal de AutofixPro
@@ -20,6 +21,8 @@ public class AutofixproApplication {
 
         // Configuración adicional de la aplicación
         app.setLogStartupInfo(true);
+        // Tiempos de cada fase del arranque (beans, migraciones), consultables en /actuator/startup
+        app.setApplicationStartup(new BufferingApplicationStartup(4096));
 
         System.out.println("===========================================");
         System.out.println("🚀 INICIANDO AUTOFIXPRO");
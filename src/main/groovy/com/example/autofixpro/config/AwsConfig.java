@@ -1,12 +1,20 @@
 package com.example.autofixpro.config;
 
+import com.example.autofixpro.service.DespachadorSms;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
 import software.amazon.awssdk.services.sns.SnsClient;
 
+/**
+ * Clientes de AWS SNS. Se crean en el primer uso y no durante el arranque: construir un cliente
+ * carga buena parte del SDK, resuelve credenciales y levanta su cliente HTTP.
+ */
 @Configuration
 public class AwsConfig {
 
@@ -14,10 +22,46 @@ public class AwsConfig {
     private String awsRegion;
 
     @Bean
+    @Lazy
     public SnsClient snsClient() {
         return SnsClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(DefaultCredentialsProvider.create())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Cliente SNS no bloqueante usado por el despachador de SMS.
+     * Con aws.sns.sms.async=false el despachador usa el SnsClient síncrono.
+     */
+    @Bean
+    @Lazy
+    @ConditionalOnProperty(name = "aws.sns.sms.async", havingValue = "true", matchIfMissing = true)
+    public SnsAsyncClient snsAsyncClient() {
+        return SnsAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .build();
+    }
+
+    /**
+     * Recibe los clientes como proxies @Lazy: el cliente real se construye con el primer SMS.
+     */
+    @Bean(initMethod = "iniciar", destroyMethod = "detener")
+    public DespachadorSms despachadorSms(@Lazy SnsClient snsClient,
+                                         @Lazy SnsAsyncClient snsAsyncClient,
+                                         @Value("${aws.sns.sms.async:true}") boolean asincrono,
+                                         @Value("${aws.sns.sms.capacidad-cola:1000}") int capacidadCola,
+                                         @Value("${aws.sns.sms.tps:10}") double tps,
+                                         @Value("${aws.sns.sms.rafaga:10}") int rafaga,
+                                         @Value("${aws.sns.sms.ventana-coalescencia-ms:3000}") long ventanaCoalescenciaMs,
+                                         @Value("${aws.sns.sms.ventana-deduplicacion-ms:60000}") long ventanaDeduplicacionMs,
+                                         @Value("${aws.sns.sms.max-en-vuelo:10}") int maxEnVuelo) {
+        if (asincrono) {
+            return DespachadorSms.conClienteAsincrono(snsAsyncClient, capacidadCola, tps, rafaga,
+                    ventanaCoalescenciaMs, ventanaDeduplicacionMs, maxEnVuelo);
+        }
+        return DespachadorSms.conClienteSincrono(snsClient, capacidadCola, tps, rafaga,
+                ventanaCoalescenciaMs, ventanaDeduplicacionMs, maxEnVuelo);
+    }
+}
@@ -2,13 +2,31 @@ package com.example.autofixpro.config;
 
 import com.example.autofixpro.dao.UsuarioDAO;
 import com.example.autofixpro.entity.Usuario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Migración V2: crea los usuarios iniciales si la base no tiene ninguno.
+ */
 @Component
-public class DataLoader implements CommandLineRunner {
+public class DataLoader implements Migracion {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataLoader.class);
+
+    private record UsuarioInicial(String username, String nombre, String email, String telefono, Usuario.Role role) {}
+
+    private static final List<UsuarioInicial> USUARIOS_INICIALES = List.of(
+            new UsuarioInicial("admin", "Administrador del Sistema", "admin@autofixpro.com", "+51999999999", Usuario.Role.ADMIN),
+            new UsuarioInicial("tecnico1nec", "José Luis Ramírez", "jose_luis@outlook.com", "+51965409978", Usuario.Role.TECNICO),
+            new UsuarioInicial("recepcion", "María Recepción", "recepcion@autofixpro.com", "+51988888888", Usuario.Role.RECEPCIONISTA),
+            new UsuarioInicial("cliente1", "Juan Pérez García", "juan.perez@email.com", "+51987654321", Usuario.Role.USER));
 
     @Autowired
     private UsuarioDAO usuarioDAO;
@@ -17,82 +35,45 @@ public class DataLoader implements CommandLineRunner {
     private PasswordEncoder passwordEncoder;
 
     @Override
-    public void run(String... args) throws Exception {
-        System.out.println("========================================");
-        System.out.println("🔐 VERIFICANDO USUARIOS INICIALES...");
-        System.out.println("========================================");
-
-        long totalUsuarios = usuarioDAO.count();
-        System.out.println("📊 Usuarios existentes en la base de datos: " + totalUsuarios);
-
-        // Solo crear usuarios si no existe ninguno
-        if (totalUsuarios == 0) {
-            System.out.println("========================================");
-            System.out.println("🆕 Creando usuarios iniciales...");
-            System.out.println("========================================");
+    public int getVersion() {
+        return 2;
+    }
 
-            // Crear usuario ADMIN
-            if (usuarioDAO.findByUsername("admin").isEmpty()) {
-                Usuario admin = new Usuario();
-                admin.setUsername("admin");
-                admin.setPassword(passwordEncoder.encode("admin123"));
-                admin.setNombre("Administrador del Sistema");
-                admin.setEmail("admin@autofixpro.com");
-                admin.setTelefono("+51999999999");
-                admin.setRole(Usuario.Role.ADMIN);
-                admin.setActivo(true);
-                usuarioDAO.save(admin);
-                System.out.println("✅ Usuario ADMIN creado: admin / admin123");
-            }
+    @Override
+    public String getDescripcion() {
+        return "Usuarios iniciales";
+    }
 
-            // Crear usuario TECNICO
-            if (usuarioDAO.findByUsername("tecnico1nec").isEmpty()) {
-                Usuario tecnico = new Usuario();
-                tecnico.setUsername("tecnico1nec");
-                tecnico.setPassword(passwordEncoder.encode("admin123"));
-                tecnico.setNombre("José Luis Ramírez");
-                tecnico.setEmail("jose_luis@outlook.com");
-                tecnico.setTelefono("+51965409978");
-                tecnico.setRole(Usuario.Role.TECNICO);
-                tecnico.setActivo(true);
-                usuarioDAO.save(tecnico);
-                System.out.println("✅ Usuario TECNICO creado: tecnico1nec / admin123");
-            }
+    @Override
+    public String getContenido() {
+        return USUARIOS_INICIALES.stream()
+                .map(UsuarioInicial::toString)
+                .collect(Collectors.joining("\n"));
+    }
 
-            // Crear usuario RECEPCIONISTA
-            if (usuarioDAO.findByUsername("recepcion").isEmpty()) {
-                Usuario recepcion = new Usuario();
-                recepcion.setUsername("recepcion");
-                recepcion.setPassword(passwordEncoder.encode("admin123"));
-                recepcion.setNombre("María Recepción");
-                recepcion.setEmail("recepcion@autofixpro.com");
-                recepcion.setTelefono("+51988888888");
-                recepcion.setRole(Usuario.Role.RECEPCIONISTA);
-                recepcion.setActivo(true);
-                usuarioDAO.save(recepcion);
-                System.out.println("✅ Usuario RECEPCIONISTA creado: recepcion / admin123");
-            }
+    @Override
+    public void aplicar(JdbcTemplate jdbcTemplate) {
+        // Solo crear usuarios si no existe ninguno
+        long totalUsuarios = usuarioDAO.count();
+        if (totalUsuarios > 0) {
+            logger.info("ℹ️  Ya existen {} usuarios. No se crearán los usuarios iniciales.", totalUsuarios);
+            return;
+        }
 
-            // Crear usuario USER
-            if (usuarioDAO.findByUsername("cliente1").isEmpty()) {
-                Usuario cliente = new Usuario();
-                cliente.setUsername("cliente1");
-                cliente.setPassword(passwordEncoder.encode("admin123"));
-                cliente.setNombre("Juan Pérez García");
-                cliente.setEmail("juan.perez@email.com");
-                cliente.setTelefono("+51987654321");
-                cliente.setRole(Usuario.Role.USER);
-                cliente.setActivo(true);
-                usuarioDAO.save(cliente);
-                System.out.println("✅ Usuario USER creado: cliente1 / admin123");
+        for (UsuarioInicial inicial : USUARIOS_INICIALES) {
+            if (usuarioDAO.findByUsername(inicial.username()).isPresent()) {
+                continue;
             }
-
-            System.out.println("========================================");
-            System.out.println("✅ Total usuarios en la base de datos: " + usuarioDAO.count());
-            System.out.println("========================================");
-        } else {
-            System.out.println("ℹ️  Los usuarios ya existen. No se crearán duplicados.");
-            System.out.println("========================================");
+            Usuario usuario = new Usuario();
+            usuario.setUsername(inicial.username());
+            usuario.setPassword(passwordEncoder.encode("admin123"));
+            usuario.setNombre(inicial.nombre());
+            usuario.setEmail(inicial.email());
+            usuario.setTelefono(inicial.telefono());
+            usuario.setRole(inicial.role());
+            usuario.setActivo(true);
+            usuarioDAO.save(usuario);
+            logger.info("✅ Usuario {} creado: {} / admin123", inicial.role(), inicial.username());
         }
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,52 @@
 package com.example.autofixpro.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
 
 import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * DataSource principal con el motor de pool elegido por datasource.pool.motor:
+ * - dbcp2: Apache Commons DBCP2 (por defecto).
+ * - hikari: HikariCP.
+ *
+ * Ambos validan las conexiones con Connection.isValid (JDBC4), que en MySQL es un ping del protocolo
+ * y no ejecuta SQL. Con MySQL se activan además la caché de sentencias preparadas del driver y la
+ * reescritura de batches en INSERT/UPDATE multi-fila.
+ * Las mediciones de cada configuración se obtienen con la tarea de Gradle pruebaCargaPool.
+ *
+ * Con datasource.replicas.urls configurado, las transacciones @Transactional(readOnly = true) leen de
+ * las réplicas (ver DataSourceReplicas) y el resto va al primario. Las lecturas que deben ver el último
+ * commit no usan readOnly: las reconstrucciones de índices y contadores en memoria y la carga del
+ * usuario autenticado.
+ */
 @Configuration
 public class DataSourceConfig {
 
+    public static final String MOTOR_DBCP2 = "dbcp2";
+    public static final String MOTOR_HIKARI = "hikari";
+
     @Value("${spring.datasource.url}")
     private String url;
 
@@ -23,30 +59,278 @@ public class DataSourceConfig {
     @Value("${spring.datasource.driverClassName}")
     private String driverClassName;
 
+    @Value("${datasource.pool.motor:dbcp2}")
+    private String motor;
+
+    @Value("${datasource.pool.maximo:20}")
+    private int maximo;
+
+    @Value("${datasource.pool.maximo-inactivas:10}")
+    private int maximoInactivas;
+
+    @Value("${datasource.pool.minimo-inactivas:5}")
+    private int minimoInactivas;
+
+    @Value("${datasource.pool.espera-maxima-ms:30000}")
+    private long esperaMaximaMs;
+
+    @Value("${datasource.pool.validacion-timeout-s:5}")
+    private int validacionTimeoutS;
+
+    @Value("${datasource.replicas.urls:}")
+    private String replicasUrls;
+
+    @Value("${datasource.replicas.usuario:${spring.datasource.username}}")
+    private String replicasUsuario;
+
+    @Value("${datasource.replicas.clave:${spring.datasource.password}}")
+    private String replicasClave;
+
+    @Value("${datasource.replicas.retraso-maximo-s:5}")
+    private long replicasRetrasoMaximoS;
+
+    @Value("${datasource.replicas.verificacion-ms:5000}")
+    private long replicasVerificacionMs;
+
+    /**
+     * Parámetros del pool comunes a los dos motores.
+     * @param validarAlPrestar Solo DBCP2: valida cada conexión al prestarla (Hikari solo valida
+     *                         las que estuvieron inactivas más de 500 ms).
+     */
+    public record OpcionesPool(int maximo, int maximoInactivas, int minimoInactivas, long esperaMaximaMs,
+                               int validacionTimeoutS, boolean validarAlPrestar) {}
+
     @Bean
     @Primary
     public DataSource dataSource() {
-        BasicDataSource dataSource = new BasicDataSource();
+        OpcionesPool opciones = new OpcionesPool(maximo, maximoInactivas, minimoInactivas, esperaMaximaMs,
+                validacionTimeoutS, true);
+        DataSource primario = crearPool(motor, url, username, password, driverClassName, opciones);
+
+        List<String> urls = urlsReplicas();
+        if (urls.isEmpty()) {
+            return primario;
+        }
+
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            // Una réplica caída al arrancar no impide el arranque: queda fuera del reparto hasta que responda
+            pools.put("replica-" + (i + 1),
+                    crearPool(motor, urls.get(i), replicasUsuario, replicasClave, driverClassName, opciones, true));
+        }
+        DataSourceReplicas replicas = new DataSourceReplicas(primario, pools,
+                replicasRetrasoMaximoS, replicasVerificacionMs);
+        replicas.iniciar();
+        return new DataSourceEnrutado(primario, replicas);
+    }
+
+    /**
+     * Con réplicas, Hibernate libera la conexión al terminar cada transacción. Spring Boot la retiene
+     * toda la sesión, y con open-in-view una escritura posterior a una lectura readOnly en la misma
+     * petición reutilizaría la conexión a la réplica.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer conexionPorTransaccion() {
+        return propiedades -> {
+            if (!urlsReplicas().isEmpty()) {
+                propiedades.put(AvailableSettings.CONNECTION_HANDLING,
+                        PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+            }
+        };
+    }
+
+    private List<String> urlsReplicas() {
+        return Arrays.stream(StringUtils.commaDelimitedListToStringArray(replicasUrls))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .toList();
+    }
+
+    /**
+     * Crea el pool del motor indicado. Se usa también desde la prueba de carga de pools.
+     */
+    public static DataSource crearPool(String motor, String url, String usuario, String clave, String driver,
+                                       OpcionesPool opciones) {
+        return crearPool(motor, url, usuario, clave, driver, opciones, false);
+    }
+
+    /**
+     * @param tolerarBaseCaida Crea el pool aunque la base no responda (DBCP2 ya conecta en el primer préstamo;
+     *                         Hikari, por defecto, falla al crearse si no puede abrir una conexión).
+     */
+    private static DataSource crearPool(String motor, String url, String usuario, String clave, String driver,
+                                        OpcionesPool opciones, boolean tolerarBaseCaida) {
+        if (MOTOR_DBCP2.equalsIgnoreCase(motor)) {
+            return crearDbcp2(url, usuario, clave, driver, opciones);
+        } else if (MOTOR_HIKARI.equalsIgnoreCase(motor)) {
+            return crearHikari(url, usuario, clave, driver, opciones, tolerarBaseCaida);
+        }
+        throw new IllegalStateException("Motor de pool de conexiones no válido: " + motor
+                + " (valores permitidos: " + MOTOR_DBCP2 + ", " + MOTOR_HIKARI + ")");
+    }
+
+    private static DataSource crearDbcp2(String url, String usuario, String clave, String driver, OpcionesPool opciones) {
+        BasicDataSource dataSource = new BasicDataSourceMedido();
 
         // Configuración básica
         dataSource.setUrl(url);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
-        dataSource.setDriverClassName(driverClassName);
+        dataSource.setUsername(usuario);
+        dataSource.setPassword(clave);
+        dataSource.setDriverClassName(driver);
+        propiedadesDriver(url).forEach(dataSource::addConnectionProperty);
 
         // Configuración del pool de conexiones
-        dataSource.setInitialSize(5);
-        dataSource.setMaxTotal(20);
-        dataSource.setMaxIdle(10);
-        dataSource.setMinIdle(5);
-        dataSource.setMaxWaitMillis(30000);
-
-        // Validación de conexiones
-        dataSource.setValidationQuery("SELECT 1");
-        dataSource.setTestOnBorrow(true);
+        dataSource.setInitialSize(opciones.minimoInactivas());
+        dataSource.setMaxTotal(opciones.maximo());
+        dataSource.setMaxIdle(opciones.maximoInactivas());
+        dataSource.setMinIdle(opciones.minimoInactivas());
+        dataSource.setMaxWaitMillis(opciones.esperaMaximaMs());
+
+        // Validación de conexiones: sin validationQuery, DBCP2 usa Connection.isValid
+        dataSource.setValidationQueryTimeout(opciones.validacionTimeoutS());
+        dataSource.setTestOnBorrow(opciones.validarAlPrestar());
         dataSource.setTestWhileIdle(true);
         dataSource.setTimeBetweenEvictionRunsMillis(60000);
 
         return dataSource;
     }
+
+    private static DataSource crearHikari(String url, String usuario, String clave, String driver, OpcionesPool opciones,
+                                          boolean tolerarBaseCaida) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("autofixpro-hikari");
+        config.setJdbcUrl(url);
+        config.setUsername(usuario);
+        config.setPassword(clave);
+        config.setDriverClassName(driver);
+        propiedadesDriver(url).forEach(config::addDataSourceProperty);
+
+        config.setMaximumPoolSize(opciones.maximo());
+        config.setMinimumIdle(opciones.minimoInactivas());
+        config.setConnectionTimeout(opciones.esperaMaximaMs());
+        // Sin connectionTestQuery, Hikari valida con Connection.isValid
+        config.setValidationTimeout(TimeUnit.SECONDS.toMillis(opciones.validacionTimeoutS()));
+        if (tolerarBaseCaida) {
+            config.setInitializationFailTimeout(-1);
+        }
+
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Propiedades de rendimiento de MySQL Connector/J. Otros drivers (H2 en pruebas) no las reconocen.
+     */
+    static Map<String, String> propiedadesDriver(String url) {
+        Map<String, String> propiedades = new LinkedHashMap<>();
+        if (url == null || !url.startsWith("jdbc:mysql:")) {
+            return propiedades;
+        }
+        // Caché de sentencias preparadas en el driver y preparación en el servidor
+        propiedades.put("cachePrepStmts", "true");
+        propiedades.put("prepStmtCacheSize", "250");
+        propiedades.put("prepStmtCacheSqlLimit", "2048");
+        propiedades.put("useServerPrepStmts", "true");
+        // Un batch JDBC viaja como un único INSERT/UPDATE multi-fila
+        propiedades.put("rewriteBatchedStatements", "true");
+        // Evita consultar variables del servidor y SET autocommit redundantes en cada conexión
+        propiedades.put("cacheServerConfiguration", "true");
+        propiedades.put("elideSetAutoCommits", "true");
+        return propiedades;
+    }
+
+    /**
+     * Gauges de los pools DBCP2 (primario y réplicas): conexiones activas e inactivas, hilos esperando
+     * una conexión y tiempos de espera al pedir una conexión. HikariCP publica las suyas
+     * (hikaricp.connections.*) mediante la autoconfiguración de Actuator.
+     */
+    @Bean
+    public MeterBinder metricasPoolConexiones(DataSource dataSource) {
+        return registry -> {
+            Map<String, DataSource> pools = new LinkedHashMap<>();
+            if (dataSource instanceof DataSourceEnrutado enrutado) {
+                pools.put("primario", enrutado.getTargetDataSource());
+                pools.putAll(enrutado.getReplicas().obtenerPools());
+            } else {
+                pools.put("primario", dataSource);
+            }
+
+            pools.forEach((nombre, dataSourcePool) -> {
+                if (!(dataSourcePool instanceof BasicDataSourceMedido pool)) {
+                    return;
+                }
+                Tags tags = Tags.of("pool", nombre, "motor", MOTOR_DBCP2);
+                Gauge.builder("autofixpro.db.pool.activas", pool, BasicDataSource::getNumActive)
+                        .description("Conexiones prestadas en este momento")
+                        .tags(tags).register(registry);
+                Gauge.builder("autofixpro.db.pool.inactivas", pool, BasicDataSource::getNumIdle)
+                        .description("Conexiones libres en el pool")
+                        .tags(tags).register(registry);
+                Gauge.builder("autofixpro.db.pool.maximo", pool, BasicDataSource::getMaxTotal)
+                        .description("Tamaño máximo del pool")
+                        .tags(tags).register(registry);
+                Gauge.builder("autofixpro.db.pool.esperando", pool, BasicDataSourceMedido::getHilosEsperando)
+                        .description("Hilos bloqueados esperando una conexión")
+                        .tags(tags).register(registry);
+                TimeGauge.builder("autofixpro.db.pool.espera.media", pool, TimeUnit.MILLISECONDS,
+                                BasicDataSourceMedido::getEsperaMediaMs)
+                        .description("Espera media para obtener una conexión (últimos préstamos)")
+                        .tags(tags).register(registry);
+                TimeGauge.builder("autofixpro.db.pool.espera.maxima", pool, TimeUnit.MILLISECONDS,
+                                BasicDataSourceMedido::getEsperaMaximaMs)
+                        .description("Espera máxima para obtener una conexión desde el inicio")
+                        .tags(tags).register(registry);
+            });
+        };
+    }
+
+    /**
+     * Proxy del primario que obtiene la conexión física en la primera sentencia, cuando ya se sabe
+     * si la transacción es readOnly; en ese caso la pide a las réplicas.
+     */
+    public static class DataSourceEnrutado extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final DataSourceReplicas replicas;
+
+        DataSourceEnrutado(DataSource primario, DataSourceReplicas replicas) {
+            super(primario);
+            setReadOnlyDataSource(replicas);
+            this.replicas = replicas;
+        }
+
+        public DataSourceReplicas getReplicas() {
+            return replicas;
+        }
+
+        /**
+         * Cierra los pools de las réplicas y del primario al detener el contexto.
+         */
+        @Override
+        public void close() throws Exception {
+            replicas.close();
+            if (getTargetDataSource() instanceof AutoCloseable primario) {
+                primario.close();
+            }
+        }
+    }
+
+    /**
+     * BasicDataSource que expone las estadísticas del pool interno, que DBCP2 no publica.
+     */
+    static class BasicDataSourceMedido extends BasicDataSource {
+
+        int getHilosEsperando() {
+            GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+            return pool != null ? pool.getNumWaiters() : 0;
+        }
+
+        double getEsperaMediaMs() {
+            GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+            return pool != null ? pool.getMeanBorrowWaitTimeMillis() : 0;
+        }
+
+        double getEsperaMaximaMs() {
+            GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+            return pool != null ? pool.getMaxBorrowWaitTimeMillis() : 0;
+        }
+    }
 }
\ No newline at end of file
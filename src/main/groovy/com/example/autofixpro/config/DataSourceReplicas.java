@@ -0,0 +1,226 @@
+package com.example.autofixpro.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataSource de lectura que reparte las conexiones entre las réplicas de MySQL (round-robin).
+ *
+ * Una tarea periódica mide el retraso de replicación de cada réplica con SHOW REPLICA STATUS;
+ * las que superan el retraso máximo, tienen la replicación detenida o no responden quedan fuera
+ * del reparto hasta la siguiente verificación. Si ninguna réplica está disponible, o todas fallan
+ * al abrir la conexión, la lectura va al primario.
+ */
+public class DataSourceReplicas extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceReplicas.class);
+
+    /**
+     * Réplica con su pool y el resultado de la última verificación.
+     */
+    private static class Replica {
+        final String nombre;
+        final DataSource dataSource;
+        volatile boolean disponible;
+        volatile Long retrasoSegundos;
+        volatile String error;
+        // Si ya pasó por una verificación: la primera siempre se registra, aunque falle
+        volatile boolean verificada;
+
+        Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final DataSource primario;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long retrasoMaximoSegundos;
+    private final long intervaloVerificacionMs;
+    private final AtomicInteger siguiente = new AtomicInteger();
+
+    private ScheduledExecutorService programador;
+
+    // Métricas
+    private final AtomicLong lecturasReplica = new AtomicLong();
+    private final AtomicLong lecturasPrimario = new AtomicLong();
+
+    /**
+     * @param primario El pool del primario, para las lecturas sin réplica disponible.
+     * @param replicas Los pools de las réplicas, por nombre.
+     * @param retrasoMaximoSegundos Retraso de replicación a partir del cual una réplica deja de usarse.
+     * @param intervaloVerificacionMs Cada cuánto se mide el retraso de las réplicas.
+     */
+    public DataSourceReplicas(DataSource primario, Map<String, DataSource> replicas,
+                              long retrasoMaximoSegundos, long intervaloVerificacionMs) {
+        this.primario = primario;
+        replicas.forEach((nombre, dataSource) -> this.replicas.add(new Replica(nombre, dataSource)));
+        this.retrasoMaximoSegundos = retrasoMaximoSegundos;
+        this.intervaloVerificacionMs = intervaloVerificacionMs;
+    }
+
+    /**
+     * Inicia la verificación periódica. Hasta la primera verificación las lecturas van al primario.
+     */
+    public void iniciar() {
+        programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "verificacion-replicas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleWithFixedDelay(this::verificarReplicas, 0, intervaloVerificacionMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int total = replicas.size();
+        int inicio = Math.floorMod(siguiente.getAndIncrement(), total);
+        for (int i = 0; i < total; i++) {
+            Replica replica = replicas.get((inicio + i) % total);
+            if (!replica.disponible) {
+                continue;
+            }
+            try {
+                Connection conexion = replica.dataSource.getConnection();
+                lecturasReplica.incrementAndGet();
+                return conexion;
+            } catch (SQLException e) {
+                // Queda fuera del reparto hasta que la verificación la vuelva a aceptar
+                replica.disponible = false;
+                replica.error = e.getMessage();
+                logger.warn("Réplica {} no disponible, se prueba la siguiente: {}", replica.nombre, e.getMessage());
+            }
+        }
+        lecturasPrimario.incrementAndGet();
+        return primario.getConnection();
+    }
+
+    /**
+     * Con credenciales explícitas la lectura va al primario: los pools de las réplicas tienen las suyas.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        lecturasPrimario.incrementAndGet();
+        return primario.getConnection(username, password);
+    }
+
+    /**
+     * Mide el retraso de cada réplica y actualiza su disponibilidad.
+     */
+    void verificarReplicas() {
+        for (Replica replica : replicas) {
+            try {
+                Long retraso = medirRetraso(replica.dataSource);
+                boolean disponible = retraso != null && retraso <= retrasoMaximoSegundos;
+                if (disponible != replica.disponible || !replica.verificada) {
+                    logger.info("Réplica {} {} (retraso: {} s)", replica.nombre,
+                            disponible ? "disponible" : "fuera del reparto", retraso);
+                }
+                replica.retrasoSegundos = retraso;
+                replica.error = retraso == null ? "Replicación detenida" : null;
+                replica.disponible = disponible;
+            } catch (Exception e) {
+                // Sin el registro de la primera falla, una réplica sin el privilegio REPLICATION CLIENT
+                // quedaría sin usarse y sin aviso
+                if (replica.disponible || !replica.verificada) {
+                    logger.warn("Réplica {} fuera del reparto: {}", replica.nombre, e.getMessage());
+                }
+                replica.retrasoSegundos = null;
+                replica.error = e.getMessage();
+                replica.disponible = false;
+            }
+            replica.verificada = true;
+        }
+    }
+
+    /**
+     * Retraso de replicación en segundos; 0 si la base no es una réplica (por ejemplo, en desarrollo)
+     * y null si la replicación está detenida.
+     */
+    private Long medirRetraso(DataSource dataSource) throws SQLException {
+        try (Connection conexion = dataSource.getConnection();
+             Statement sentencia = conexion.createStatement()) {
+            try (ResultSet estado = sentencia.executeQuery("SHOW REPLICA STATUS")) {
+                return leerRetraso(estado, "Seconds_Behind_Source");
+            } catch (SQLSyntaxErrorException e) {
+                // MySQL anterior a 8.0.22
+                try (ResultSet estado = sentencia.executeQuery("SHOW SLAVE STATUS")) {
+                    return leerRetraso(estado, "Seconds_Behind_Master");
+                }
+            }
+        }
+    }
+
+    private Long leerRetraso(ResultSet estado, String columna) throws SQLException {
+        if (!estado.next()) {
+            return 0L;
+        }
+        long segundos = estado.getLong(columna);
+        return estado.wasNull() ? null : segundos;
+    }
+
+    /**
+     * Estado de cada réplica y reparto de lecturas, para el health check.
+     */
+    public Map<String, Object> obtenerEstado() {
+        Map<String, Object> porReplica = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("disponible", replica.disponible);
+            datos.put("retrasoSegundos", replica.retrasoSegundos);
+            datos.put("error", replica.error);
+            porReplica.put(replica.nombre, datos);
+        }
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("retrasoMaximoSegundos", retrasoMaximoSegundos);
+        estado.put("replicas", porReplica);
+        estado.put("lecturasReplica", lecturasReplica.get());
+        estado.put("lecturasPrimario", lecturasPrimario.get());
+        return estado;
+    }
+
+    /**
+     * Los pools de las réplicas, por nombre (para las métricas del pool).
+     */
+    public Map<String, DataSource> obtenerPools() {
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        replicas.forEach(replica -> pools.put(replica.nombre, replica.dataSource));
+        return pools;
+    }
+
+    /**
+     * Detiene la verificación y cierra los pools de las réplicas (el primario lo cierra su dueño).
+     */
+    @Override
+    public void close() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable cerrable) {
+                try {
+                    cerrable.close();
+                } catch (Exception e) {
+                    logger.warn("Error cerrando el pool de la réplica {}: {}", replica.nombre, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -3,55 +3,62 @@ package com.example.autofixpro.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Verificaciones informativas de la base de datos (tablas, versión de MySQL, clientes registrados).
+ *
+ * No son necesarias para atender peticiones: corren en paralelo una vez que la aplicación está lista,
+ * sin retrasar el arranque. Las migraciones, que sí lo son, las aplica EjecutorMigraciones antes.
+ */
 @Component
-public class DatabaseInitializer implements CommandLineRunner {
+public class DatabaseInitializer {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseInitializer.class);
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    @Override
-    public void run(String... args) throws Exception {
-        try {
-            logger.info("🗄️  Verificando estructura de base de datos MySQL...");
-
-            // Verificar si la base de datos tiene tablas
-            String checkTablesQuery = "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = 'autofixpro'";
-            Integer tableCount = jdbcTemplate.queryForObject(checkTablesQuery, Integer.class);
-
-            logger.info("📊 Encontradas {} tablas en la base de datos", tableCount);
-
-            if (tableCount == 0) {
-                logger.info("🔧 Base de datos vacía. Hibernate creará las tablas automáticamente...");
-            } else {
-                logger.info("✅ Base de datos MySQL inicializada correctamente con {} tablas", tableCount);
-            }
-
-            // Verificar conectividad básica
-            String version = jdbcTemplate.queryForObject("SELECT VERSION()", String.class);
-            logger.info("🐬 Conectado a MySQL versión: {}", version);
-
-            // Verificar si hay datos de ejemplo
-            try {
-                String countClientesQuery = "SELECT COUNT(*) FROM clientes";
-                Integer clienteCount = jdbcTemplate.queryForObject(countClientesQuery, Integer.class);
-                logger.info("👥 Clientes registrados: {}", clienteCount);
-
-                if (clienteCount == 0) {
-                    logger.info("📝 Datos de prueba serán cargados automáticamente por data.sql");
-                }
-            } catch (Exception e) {
-                logger.debug("🔄 Las tablas serán creadas por Hibernate en el primer inicio");
-            }
-
-        } catch (Exception e) {
-            logger.error("❌ Error inicializando base de datos MySQL: {}", e.getMessage());
-            logger.error("🔍 Verificar credenciales y conectividad a: prueba.cd8ugs4ict9h.us-east-2.rds.amazonaws.com");
-        }
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificar(ApplicationReadyEvent evento) {
+        logger.info("🚀 Aplicación lista en {} ms", evento.getTimeTaken() != null ? evento.getTimeTaken().toMillis() : null);
+
+        Map<String, Supplier<Object>> verificaciones = new LinkedHashMap<>();
+        verificaciones.put("tablas", () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE()", Integer.class));
+        verificaciones.put("mysql", () -> jdbcTemplate.queryForObject("SELECT VERSION()", String.class));
+        verificaciones.put("clientes", () -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM clientes", Integer.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(verificaciones.size(), tarea -> {
+            Thread hilo = new Thread(tarea, "verificacion-bd");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long inicio = System.nanoTime();
+
+        Map<String, CompletableFuture<Object>> resultados = new LinkedHashMap<>();
+        verificaciones.forEach((nombre, verificacion) -> resultados.put(nombre,
+                CompletableFuture.supplyAsync(verificacion, executor)
+                        .exceptionally(e -> "error: " + (e.getCause() != null ? e.getCause() : e).getMessage())));
+
+        CompletableFuture.allOf(resultados.values().toArray(CompletableFuture[]::new))
+                .whenComplete((ignorado, error) -> {
+                    executor.shutdown();
+                    Map<String, Object> resumen = new LinkedHashMap<>();
+                    resultados.forEach((nombre, resultado) -> resumen.put(nombre, resultado.join()));
+                    logger.info("🗄️  Verificación de base de datos en {} ms: {}",
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), resumen);
+                });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package com.example.autofixpro.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica al arrancar las migraciones (beans Migracion) que aún no figuran en el registro
+ * migraciones_esquema, en orden de versión.
+ *
+ * Con la base al día el costo es una sola consulta al registro. Si hay pasos pendientes se toman con
+ * un bloqueo de MySQL (GET_LOCK), para que varias instancias que arrancan a la vez no apliquen el
+ * mismo paso dos veces. Un paso ya aplicado cuyo contenido cambió no se vuelve a ejecutar: se avisa
+ * en el log, porque el cambio debe ir en un paso nuevo. Si un paso falla, los siguientes no se aplican
+ * (pueden depender de él) y se reintentan en el próximo arranque.
+ */
+@Component
+public class EjecutorMigraciones implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(EjecutorMigraciones.class);
+
+    private static final String TABLA_REGISTRO = "migraciones_esquema";
+    private static final String NOMBRE_BLOQUEO = "autofixpro_migraciones";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private List<Migracion> migraciones;
+
+    @Autowired
+    private ApplicationStartup applicationStartup;
+
+    @Value("${migraciones.bloqueo-espera-s:60}")
+    private int bloqueoEsperaS;
+
+    @Override
+    public void run(String... args) {
+        StartupStep fase = applicationStartup.start("autofixpro.migraciones");
+        long inicio = System.nanoTime();
+        try {
+            List<Migracion> ordenadas = new ArrayList<>(migraciones);
+            ordenadas.sort(Comparator.comparingInt(Migracion::getVersion));
+
+            List<Migracion> pendientes = pendientes(ordenadas, leerRegistro());
+            if (pendientes.isEmpty()) {
+                logger.info("Migraciones al día ({} registradas), verificado en {} ms",
+                        ordenadas.size(), transcurridoMs(inicio));
+                return;
+            }
+
+            Map<Integer, Long> duraciones = jdbcTemplate.execute((ConnectionCallback<Map<Integer, Long>>) conexion -> {
+                bloquear(conexion);
+                try {
+                    // Otra instancia pudo aplicar pasos mientras se esperaba el bloqueo
+                    return aplicar(pendientes(ordenadas, leerRegistro()));
+                } finally {
+                    liberar(conexion);
+                }
+            });
+
+            fase.tag("aplicadas", String.valueOf(duraciones.size()));
+            logger.info("Migraciones aplicadas en {} ms: {}", transcurridoMs(inicio), duraciones.entrySet().stream()
+                    .map(paso -> "V" + paso.getKey() + " " + paso.getValue() + " ms")
+                    .toList());
+        } finally {
+            fase.end();
+        }
+    }
+
+    /**
+     * Lee el registro de migraciones (versión y checksum) en una sola consulta; lo crea si no existe.
+     */
+    private Map<Integer, String> leerRegistro() {
+        Map<Integer, String> registro = new HashMap<>();
+        try {
+            jdbcTemplate.query("SELECT version, checksum FROM " + TABLA_REGISTRO,
+                    fila -> { registro.put(fila.getInt("version"), fila.getString("checksum")); });
+        } catch (BadSqlGrammarException e) {
+            logger.info("Creando el registro de migraciones {}", TABLA_REGISTRO);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLA_REGISTRO + " (" +
+                    "version INT PRIMARY KEY, " +
+                    "descripcion VARCHAR(200) NOT NULL, " +
+                    "checksum CHAR(64) NOT NULL, " +
+                    "duracion_ms BIGINT NOT NULL, " +
+                    "aplicada_en TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+        return registro;
+    }
+
+    /**
+     * Los pasos sin registrar. Los registrados con otro checksum solo se informan.
+     */
+    private List<Migracion> pendientes(List<Migracion> ordenadas, Map<Integer, String> registro) {
+        List<Migracion> pendientes = new ArrayList<>();
+        for (Migracion migracion : ordenadas) {
+            String registrado = registro.get(migracion.getVersion());
+            if (registrado == null) {
+                pendientes.add(migracion);
+            } else if (!registrado.equals(checksum(migracion))) {
+                logger.warn("La migración V{} ({}) cambió después de aplicarse y no se vuelve a ejecutar; " +
+                        "el cambio debe ir en una versión nueva", migracion.getVersion(), migracion.getDescripcion());
+            }
+        }
+        return pendientes;
+    }
+
+    /**
+     * Aplica los pasos en orden y registra cada uno. Se detiene en el primero que falla.
+     * @return Duración en ms de cada paso aplicado, por versión.
+     */
+    private Map<Integer, Long> aplicar(List<Migracion> pendientes) {
+        Map<Integer, Long> duraciones = new LinkedHashMap<>();
+        for (Migracion migracion : pendientes) {
+            StartupStep paso = applicationStartup.start("autofixpro.migraciones.paso")
+                    .tag("version", String.valueOf(migracion.getVersion()))
+                    .tag("descripcion", migracion.getDescripcion());
+            long inicio = System.nanoTime();
+            try {
+                logger.info("Aplicando migración V{}: {}", migracion.getVersion(), migracion.getDescripcion());
+                migracion.aplicar(jdbcTemplate);
+                long duracionMs = transcurridoMs(inicio);
+                jdbcTemplate.update("INSERT INTO " + TABLA_REGISTRO +
+                                " (version, descripcion, checksum, duracion_ms) VALUES (?, ?, ?, ?)",
+                        migracion.getVersion(), migracion.getDescripcion(), checksum(migracion), duracionMs);
+                duraciones.put(migracion.getVersion(), duracionMs);
+            } catch (Exception e) {
+                logger.error("❌ Error en la migración V{} ({}); las siguientes quedan pendientes: {}",
+                        migracion.getVersion(), migracion.getDescripcion(), e.getMessage(), e);
+                break;
+            } finally {
+                paso.end();
+            }
+        }
+        return duraciones;
+    }
+
+    private void bloquear(Connection conexion) throws SQLException {
+        try (PreparedStatement sentencia = conexion.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            sentencia.setString(1, NOMBRE_BLOQUEO);
+            sentencia.setInt(2, bloqueoEsperaS);
+            try (ResultSet resultado = sentencia.executeQuery()) {
+                if (!resultado.next() || resultado.getInt(1) != 1) {
+                    throw new IllegalStateException("No se obtuvo el bloqueo de migraciones en " + bloqueoEsperaS + " s");
+                }
+            }
+        }
+    }
+
+    private void liberar(Connection conexion) {
+        try (PreparedStatement sentencia = conexion.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            sentencia.setString(1, NOMBRE_BLOQUEO);
+            sentencia.executeQuery().close();
+        } catch (SQLException e) {
+            logger.warn("No se pudo liberar el bloqueo de migraciones: {}", e.getMessage());
+        }
+    }
+
+    static String checksum(Migracion migracion) {
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-256")
+                    .digest(migracion.getContenido().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(resumen);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static long transcurridoMs(long inicioNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioNanos);
+    }
+}
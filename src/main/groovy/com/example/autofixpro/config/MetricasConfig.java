@@ -0,0 +1,20 @@
+package com.example.autofixpro.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas Micrometer de la aplicación, exportadas en /actuator/prometheus.
+ * Habilita @Timed en los métodos públicos de los servicios (órdenes, notificaciones, SNS);
+ * en métodos que devuelven CompletableFuture el tiempo se mide hasta que el futuro termina.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.autofixpro.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Paso versionado de migración de la base de datos. Las implementaciones son beans de Spring
+ * y EjecutorMigraciones aplica cada una una sola vez, en orden de versión.
+ */
+public interface Migracion {
+
+    /**
+     * Versión del paso: única y creciente. Un paso nuevo lleva una versión mayor que los existentes.
+     */
+    int getVersion();
+
+    /**
+     * Descripción breve que queda en el registro de migraciones.
+     */
+    String getDescripcion();
+
+    /**
+     * Contenido que define el paso (normalmente su SQL). Su SHA-256 se guarda en el registro
+     * para detectar pasos ya aplicados que se modificaron después.
+     */
+    String getContenido();
+
+    /**
+     * Aplica el paso. Debe tolerar una base que ya tenga el cambio (por ejemplo, la primera
+     * vez que se registra un paso que antes se ejecutaba en cada arranque).
+     */
+    void aplicar(JdbcTemplate jdbcTemplate) throws Exception;
+}
@@ -0,0 +1,13 @@
+package com.example.autofixpro.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas (@Scheduled) de la aplicación,
+ * como la reconciliación periódica de métricas del dashboard.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -60,6 +60,9 @@ public class SecurityConfig {
                 .requestMatchers("/ws-notifications/**", "/app/**", "/topic/**", "/queue/**").permitAll()
                 // Permitir acceso a la API REST sin autenticación (considerar restringir en producción)
                 .requestMatchers("/api/**").permitAll()
+                // Actuator: health y prometheus para el balanceador y el scraper (restringir por red); el resto solo ADMIN
+                .requestMatchers("/actuator/health/**", "/actuator/info", "/actuator/prometheus").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 // H2 Console solo para desarrollo
                 .requestMatchers("/h2-console/**").permitAll()
                 // Rutas administrativas - solo ADMIN
@@ -1,20 +1,94 @@
 package com.example.autofixpro.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * Configuración de WebSocket para notificaciones en tiempo real.
  * Permite a los clientes recibir actualizaciones del estado de sus vehículos
  * sin necesidad de refrescar la página.
+ *
+ * El broker se elige con websocket.broker.modo:
+ * - simple: broker en memoria; las suscripciones viven en esta instancia (un solo nodo).
+ * - relay: las suscripciones y los mensajes pasan por un broker STOMP externo (RabbitMQ, ActiveMQ),
+ *   de modo que un mensaje publicado en un nodo llega a los usuarios conectados a cualquier otro.
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    public static final String MODO_SIMPLE = "simple";
+    public static final String MODO_RELAY = "relay";
+
+    // Destinos internos del relay para resolver destinos /user entre nodos
+    private static final String DESTINO_USUARIOS_NO_RESUELTOS = "/topic/unresolved-user-destination";
+    private static final String DESTINO_REGISTRO_USUARIOS = "/topic/simp-user-registry";
+
+    @Value("${websocket.broker.modo:simple}")
+    private String modoBroker;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.puerto:61613}")
+    private int relayPuerto;
+
+    @Value("${websocket.broker.relay.usuario:guest}")
+    private String relayUsuario;
+
+    @Value("${websocket.broker.relay.clave:guest}")
+    private String relayClave;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${websocket.heartbeat.servidor-ms:10000}")
+    private long heartbeatServidorMs;
+
+    @Value("${websocket.heartbeat.cliente-ms:10000}")
+    private long heartbeatClienteMs;
+
+    @Value("${websocket.canal-entrada.hilos:8}")
+    private int hilosEntrada;
+
+    @Value("${websocket.canal-entrada.capacidad-cola:10000}")
+    private int colaEntrada;
+
+    @Value("${websocket.canal-salida.hilos:8}")
+    private int hilosSalida;
+
+    @Value("${websocket.canal-salida.capacidad-cola:10000}")
+    private int colaSalida;
+
+    @Value("${websocket.transporte.limite-tiempo-envio-ms:10000}")
+    private int limiteTiempoEnvioMs;
+
+    @Value("${websocket.transporte.limite-buffer-envio-bytes:524288}")
+    private int limiteBufferEnvioBytes;
+
+    @Value("${websocket.transporte.limite-mensaje-bytes:65536}")
+    private int limiteMensajeBytes;
+
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
     /**
      * Configurar el broker de mensajes STOMP.
      * - /topic: para mensajes broadcast (un mensaje a muchos usuarios)
@@ -23,8 +97,33 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Habilitar un broker simple en memoria
-        registry.enableSimpleBroker("/topic", "/queue");
+        if (MODO_RELAY.equalsIgnoreCase(modoBroker)) {
+            // Broker STOMP externo compartido por todos los nodos
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPuerto)
+                    .setClientLogin(relayUsuario)
+                    .setClientPasscode(relayClave)
+                    .setSystemLogin(relayUsuario)
+                    .setSystemPasscode(relayClave)
+                    .setSystemHeartbeatSendInterval(heartbeatServidorMs)
+                    .setSystemHeartbeatReceiveInterval(heartbeatClienteMs)
+                    // convertAndSendToUser hacia usuarios conectados a otro nodo
+                    .setUserDestinationBroadcast(DESTINO_USUARIOS_NO_RESUELTOS)
+                    .setUserRegistryBroadcast(DESTINO_REGISTRO_USUARIOS);
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+            logger.info("Broker WebSocket en modo relay: {}:{}", relayHost, relayPuerto);
+        } else if (MODO_SIMPLE.equalsIgnoreCase(modoBroker)) {
+            // Broker simple en memoria, con heartbeats para detectar conexiones caídas
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] {heartbeatServidorMs, heartbeatClienteMs})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        } else {
+            throw new IllegalStateException("Modo de broker WebSocket no válido: " + modoBroker
+                    + " (valores permitidos: " + MODO_SIMPLE + ", " + MODO_RELAY + ")");
+        }
 
         // Prefijo para destinos de aplicación
         registry.setApplicationDestinationPrefixes("/app");
@@ -33,6 +132,39 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setUserDestinationPrefix("/user");
     }
 
+    /**
+     * Pool de hilos que procesa los mensajes recibidos de los clientes.
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(hilosEntrada)
+                .maxPoolSize(hilosEntrada)
+                .queueCapacity(colaEntrada);
+    }
+
+    /**
+     * Pool de hilos que entrega los mensajes a las sesiones de los clientes.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(hilosSalida)
+                .maxPoolSize(hilosSalida)
+                .queueCapacity(colaSalida);
+    }
+
+    /**
+     * Límites por sesión: si un cliente lento no recibe a tiempo o acumula demasiados bytes
+     * pendientes, se cierra su sesión en lugar de bloquear el canal de salida.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(limiteTiempoEnvioMs)
+                .setSendBufferSizeLimit(limiteBufferEnvioBytes)
+                .setMessageSizeLimit(limiteMensajeBytes);
+    }
+
     /**
      * Registrar endpoints STOMP.
      * Los clientes se conectarán a /ws-notifications para establecer la conexión WebSocket.
@@ -1,5 +1,6 @@
 package com.example.autofixpro.config;
 
+import com.example.autofixpro.enumeration.CanalStaff;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.security.config.annotation.web.messaging.MessageSecurityMetadataSourceRegistry;
@@ -20,6 +21,13 @@ public class WebSocketSecurityConfig extends AbstractSecurityWebSocketMessageBro
                              SimpMessageType.UNSUBSCRIBE, SimpMessageType.DISCONNECT).permitAll()
             // Permitir envío de mensajes (validación en el controlador si es necesario)
             .simpDestMatchers("/app/**").permitAll()
+            // Solo el servidor publica en los canales del personal
+            .simpMessageDestMatchers("/topic/staff/**").denyAll()
+            // Canales del personal: cada uno restringido a sus roles
+            .simpSubscribeDestMatchers(CanalStaff.ADMIN.getDestino()).hasAnyRole(CanalStaff.ADMIN.getRoles())
+            .simpSubscribeDestMatchers(CanalStaff.RECEPCION.getDestino()).hasAnyRole(CanalStaff.RECEPCION.getRoles())
+            .simpSubscribeDestMatchers(CanalStaff.TECNICO.getDestino()).hasAnyRole(CanalStaff.TECNICO.getRoles())
+            .simpSubscribeDestMatchers("/topic/staff/**").denyAll()
             // Permitir suscripción a notificaciones personales
             .simpSubscribeDestMatchers("/user/queue/**", "/user/**").permitAll()
             // Permitir suscripción a topics públicos
@@ -1,9 +1,12 @@
 package com.example.autofixpro.controller;
 
+import com.example.autofixpro.dao.ClienteDAO;
+import com.example.autofixpro.dto.UsuarioPrincipal;
 import com.example.autofixpro.entity.*;
+import com.example.autofixpro.enumeration.CanalStaff;
 import com.example.autofixpro.enumeration.Prioridad;
+import com.example.autofixpro.service.NotificacionWebSocketService;
 import com.example.autofixpro.service.OrdenServicioService;
-import com.example.autofixpro.service.TecnicoService;
 import com.example.autofixpro.service.UsuarioService;
 import com.example.autofixpro.service.VehiculoService;
 import org.slf4j.Logger;
@@ -18,10 +21,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -33,14 +34,16 @@ public class ClienteApiController {
     private final UsuarioService usuarioService;
     private final OrdenServicioService ordenServicioService;
     private final VehiculoService vehiculoService;
-    private final TecnicoService tecnicoService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final ClienteDAO clienteDAO;
+    private final NotificacionWebSocketService webSocketService;
 
-    public ClienteApiController(UsuarioService usuarioService, OrdenServicioService ordenServicioService, VehiculoService vehiculoService, TecnicoService tecnicoService, SimpMessagingTemplate messagingTemplate) {
+    public ClienteApiController(UsuarioService usuarioService, OrdenServicioService ordenServicioService, VehiculoService vehiculoService, SimpMessagingTemplate messagingTemplate, ClienteDAO clienteDAO, NotificacionWebSocketService webSocketService) {
         this.usuarioService = usuarioService;
+        this.webSocketService = webSocketService;
+        this.clienteDAO = clienteDAO;
         this.ordenServicioService = ordenServicioService;
         this.vehiculoService = vehiculoService;
-        this.tecnicoService = tecnicoService;
         this.messagingTemplate = messagingTemplate;
     }
 
@@ -63,22 +66,20 @@ public class ClienteApiController {
             Vehiculo vehiculo = vehiculoService.findById(vehiculoId)
                 .orElseThrow(() -> new RuntimeException("Vehículo no encontrado"));
 
-            Usuario usuario = usuarioService.buscarPorUsername(username)
+            UsuarioPrincipal usuario = usuarioService.obtenerPrincipal(username)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-            if (vehiculo.getCliente() == null || vehiculo.getCliente().getUsuario() == null || !vehiculo.getCliente().getUsuario().getUsername().equals(username)) {
+            if (vehiculo.getCliente() == null || usuario.getClienteId() == null || !usuario.getClienteId().equals(vehiculo.getCliente().getClienteId())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("success", false, "message", "No tienes permiso"));
             }
 
             OrdenServicio nuevaOrden = ordenServicioService.crearOrdenServicio(vehiculo, descripcionProblema);
             nuevaOrden.setPrioridad(Prioridad.valueOf(prioridadStr));
 
-            Tecnico tecnicoAsignado = asignarTecnicoAutomaticamente();
-            if (tecnicoAsignado != null) {
-                nuevaOrden.setTecnico(tecnicoAsignado);
-            }
-
             OrdenServicio ordenGuardada = ordenServicioService.save(nuevaOrden);
+
+            // Técnico activo menos cargado según el índice en memoria, con el cupo reservado al elegirlo
+            ordenGuardada = ordenServicioService.asignarTecnicoAutomaticamente(ordenGuardada);
             log.info("Orden de servicio creada: #{}", ordenGuardada.getOrdenId());
 
             enviarNotificacionCliente(username, ordenGuardada);
@@ -104,13 +105,13 @@ public class ClienteApiController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
 
-            Usuario usuario = usuarioService.buscarPorUsername(username)
+            UsuarioPrincipal usuario = usuarioService.obtenerPrincipal(username)
                     .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-            Cliente cliente = usuario.getCliente();
-            if (cliente == null) {
+            if (usuario.getClienteId() == null) {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "No se encontró cliente asociado"));
             }
+            Cliente cliente = clienteDAO.getReferenceById(usuario.getClienteId());
 
             String placa = (String) datosVehiculo.get("placa");
             if (vehiculoService.findByPlaca(placa.toUpperCase()).isPresent()) {
@@ -140,19 +141,6 @@ public class ClienteApiController {
         }
     }
 
-    private Tecnico asignarTecnicoAutomaticamente() {
-        List<Tecnico> tecnicosDisponibles = tecnicoService.findTecnicosDisponibles();
-        if (tecnicosDisponibles.isEmpty()) {
-            return null;
-        }
-        return tecnicosDisponibles.stream()
-            .min(Comparator.comparingLong(tecnico -> tecnico.getOrdenesAsignadas() != null ? tecnico.getOrdenesAsignadas().stream()
-                .filter(o -> o.getEstadoOrden() != com.example.autofixpro.enumeration.EstadoOrden.COMPLETADO &&
-                             o.getEstadoOrden() != com.example.autofixpro.enumeration.EstadoOrden.ENTREGADO)
-                .count() : 0L))
-            .orElse(null);
-    }
-
     private void enviarNotificacionCliente(String username, OrdenServicio orden) {
         Map<String, Object> notificacion = new HashMap<>();
         notificacion.put("tipo", "SOLICITUD_CREADA");
@@ -164,17 +152,13 @@ public class ClienteApiController {
     }
 
     private void enviarNotificacionAdministrador(OrdenServicio orden, Cliente cliente) {
-        List<Usuario> administradores = usuarioService.listarTodos().stream()
-            .filter(u -> u.getRole() != null && u.getRole().name().contains("ADMIN"))
-            .toList();
-
-        for (Usuario admin : administradores) {
-            Map<String, Object> notificacion = new HashMap<>();
-            notificacion.put("tipo", "NUEVA_SOLICITUD");
-            notificacion.put("titulo", "Nueva Solicitud de Reparación");
-            notificacion.put("mensaje", "Nueva solicitud #" + orden.getOrdenId() + " de " + cliente.getNombres());
-            notificacion.put("ordenId", orden.getOrdenId());
-            messagingTemplate.convertAndSendToUser(admin.getUsername(), "/queue/notificaciones", notificacion);
-        }
+        // Una sola publicación en el canal de administradores, sin recorrer la tabla de usuarios
+        Map<String, Object> notificacion = new HashMap<>();
+        notificacion.put("tipo", "NUEVA_SOLICITUD");
+        notificacion.put("titulo", "Nueva Solicitud de Reparación");
+        notificacion.put("mensaje", "Nueva solicitud #" + orden.getOrdenId() + " de " + cliente.getNombres());
+        notificacion.put("ordenId", orden.getOrdenId());
+        notificacion.put("timestamp", new Date().getTime());
+        webSocketService.publicarAStaff(CanalStaff.ADMIN, notificacion);
     }
-}
\ No newline at end of file
+}
@@ -22,6 +22,8 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class ClienteController extends BaseController {
 
+    private static final int LIMITE_BUSQUEDA_MAXIMO = 50;
+
     @Autowired
     private ClienteService clienteService;
 
@@ -140,17 +142,24 @@ public class ClienteController extends BaseController {
     }
 
     /**
-     * Busca clientes por su nombre.
-     * @param nombre El nombre a buscar.
-     * @return ResponseEntity con la lista de clientes que coinciden con el nombre.
+     * Busca clientes por nombres, apellidos, DNI o teléfono (autocompletado).
+     * Usa el índice en memoria: ignora tildes y mayúsculas y ordena por similitud.
+     * @param q El texto a buscar.
+     * @param nombre Nombre anterior del parámetro 'q', aceptado por compatibilidad.
+     * @param limite Número máximo de resultados (máximo 50).
+     * @return ResponseEntity con la lista de clientes que coinciden, del más al menos parecido.
      */
     @GetMapping("/buscar")
-    public ResponseEntity<Map<String, Object>> buscarClientesPorNombre(@RequestParam String nombre) {
+    public ResponseEntity<Map<String, Object>> buscarClientesPorNombre(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String nombre,
+            @RequestParam(defaultValue = "10") int limite) {
         try {
-            List<Cliente> clientes = clienteService.buscarPorNombre(nombre);
-            List<ClienteDTO> clientesDTO = clientes.stream()
-                .map(ClienteDTO::new)
-                .collect(Collectors.toList());
+            String consulta = q != null ? q : nombre;
+            if (consulta == null || consulta.isBlank()) {
+                return createErrorResponse("El parámetro 'q' es obligatorio", HttpStatus.BAD_REQUEST);
+            }
+            List<ClienteDTO> clientesDTO = clienteService.buscar(consulta, Math.max(1, Math.min(limite, LIMITE_BUSQUEDA_MAXIMO)));
             return createSuccessResponse(clientesDTO, "Búsqueda completada");
         } catch (Exception e) {
             return createErrorResponse("Error en búsqueda: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -1,6 +1,7 @@
 package com.example.autofixpro.controller;
 
 import com.example.autofixpro.dao.ClienteDAO;
+import com.example.autofixpro.dto.UsuarioPrincipal;
 import com.example.autofixpro.entity.Cliente;
 import com.example.autofixpro.entity.OrdenServicio;
 import com.example.autofixpro.entity.Usuario;
@@ -31,6 +32,8 @@ public class ClienteDashboardController {
 
     private static final Logger log = LoggerFactory.getLogger(ClienteDashboardController.class);
 
+    private static final int ESTADOS_EN_LINEA_DE_TIEMPO = 20;
+
     private final UsuarioService usuarioService;
     private final ClienteDAO clienteDAO;
     private final OrdenServicioService ordenServicioService;
@@ -48,10 +51,13 @@ public class ClienteDashboardController {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
 
-        Usuario usuario = usuarioService.buscarPorUsername(username)
+        // Identidad desde la caché de principales (sin consultas)
+        UsuarioPrincipal usuario = usuarioService.obtenerPrincipal(username)
             .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-        Cliente cliente = clienteDAO.findByEmail(usuario.getEmail()).orElse(null);
+        Cliente cliente = usuario.getClienteId() != null
+            ? clienteDAO.findById(usuario.getClienteId()).orElse(null)
+            : null;
 
         List<Vehiculo> vehiculos = new ArrayList<>();
         if (cliente != null) {
@@ -83,6 +89,7 @@ public class ClienteDashboardController {
 
         model.addAttribute("title", "Detalles de la Orden #" + id);
         model.addAttribute("orden", orden);
+        model.addAttribute("estados", ordenServicioService.obtenerUltimosEstados(id, ESTADOS_EN_LINEA_DE_TIEMPO));
 
         return "cliente-orden-detalle";
     }
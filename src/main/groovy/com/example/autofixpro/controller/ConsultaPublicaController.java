@@ -1,6 +1,6 @@
 package com.example.autofixpro.controller;
 
-import com.example.autofixpro.entity.Vehiculo;
+import com.example.autofixpro.dto.ConsultaVehiculoDTO;
 import com.example.autofixpro.service.VehiculoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -34,12 +34,15 @@ public class ConsultaPublicaController {
         }
 
         try {
-            Optional<Vehiculo> vehiculoOpt = vehiculoService.findByPlaca(placa.trim().toUpperCase());
-
-            if (vehiculoOpt.isPresent()) {
-                Vehiculo vehiculo = vehiculoOpt.get();
-                model.addAttribute("vehiculo", vehiculo);
-                model.addAttribute("title", "Estado del Vehículo - " + placa);
+            // Índice de placas en memoria con caché de resúmenes y de placas inexistentes
+            Optional<ConsultaVehiculoDTO> consultaOpt = vehiculoService.consultarResumenPorPlaca(placa);
+
+            if (consultaOpt.isPresent()) {
+                ConsultaVehiculoDTO consulta = consultaOpt.get();
+                model.addAttribute("vehiculo", consulta);
+                model.addAttribute("ordenes", consulta.getOrdenes());
+                model.addAttribute("progreso", consulta.getProgreso());
+                model.addAttribute("title", "Estado del Vehículo - " + consulta.getPlaca());
                 return "consulta-vehiculo";
             } else {
                 redirectAttributes.addFlashAttribute("error",
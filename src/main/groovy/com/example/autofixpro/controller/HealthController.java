@@ -1,5 +1,7 @@
 package com.example.autofixpro.controller;
 
+import com.example.autofixpro.config.DataSourceConfig;
+import com.example.autofixpro.service.CacheReferenciaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +24,9 @@ public class HealthController extends BaseController {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private CacheReferenciaService cacheReferenciaService;
+
     /**
      * Endpoint básico de health check
      * Usado por AWS ALB Target Group
@@ -83,6 +88,28 @@ public class HealthController extends BaseController {
         return new ResponseEntity<>(health, responseStatus);
     }
 
+    /**
+     * Estadísticas de la caché de segundo nivel por región (aciertos, fallos, escrituras, elementos)
+     */
+    @GetMapping("/health/cache")
+    public ResponseEntity<Map<String, Object>> cache() {
+        return createSuccessResponse(cacheReferenciaService.obtenerEstadisticas(),
+                "Estadísticas de caché obtenidas exitosamente");
+    }
+
+    /**
+     * Estado de las réplicas de lectura (disponibilidad, retraso de replicación) y reparto de lecturas
+     */
+    @GetMapping("/health/replicas")
+    public ResponseEntity<Map<String, Object>> replicas() {
+        if (!(dataSource instanceof DataSourceConfig.DataSourceEnrutado enrutado)) {
+            return createSuccessResponse(Map.of("configuradas", false),
+                    "Sin réplicas de lectura: todas las consultas van al primario");
+        }
+        return createSuccessResponse(enrutado.getReplicas().obtenerEstado(),
+                "Estado de réplicas obtenido exitosamente");
+    }
+
     /**
      * Endpoint de información de la aplicación
      */
@@ -1,12 +1,22 @@
 package com.example.autofixpro.controller;
 
+import com.example.autofixpro.entity.Notification;
 import com.example.autofixpro.entity.OrdenServicio;
+import com.example.autofixpro.enumeration.TipoNotificacion;
 import com.example.autofixpro.service.NotificacionServicio;
+import com.example.autofixpro.service.NotificacionWebSocketService;
 import com.example.autofixpro.service.OrdenServicioService;
+import com.example.autofixpro.service.StaffSesionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Controlador REST para gestionar el envío de notificaciones.
  */
@@ -16,16 +26,45 @@ public class NotificationController {
 
     private final NotificacionServicio notificacionServicio;
     private final OrdenServicioService ordenServicioService; // Para buscar la orden
+    private final NotificacionWebSocketService webSocketService;
+    private final StaffSesionRegistry staffSesionRegistry;
 
     /**
      * Constructor para inyectar los servicios de notificación y orden de servicio.
      * @param notificacionServicio El servicio para enviar notificaciones.
      * @param ordenServicioService El servicio para obtener datos de las órdenes de servicio.
+     * @param webSocketService El servicio de notificaciones en tiempo real.
+     * @param staffSesionRegistry El registro de sesiones WebSocket del personal.
      */
     @Autowired
-    public NotificationController(NotificacionServicio notificacionServicio, OrdenServicioService ordenServicioService) {
+    public NotificationController(NotificacionServicio notificacionServicio, OrdenServicioService ordenServicioService,
+                                  NotificacionWebSocketService webSocketService, StaffSesionRegistry staffSesionRegistry) {
         this.notificacionServicio = notificacionServicio;
         this.ordenServicioService = ordenServicioService;
+        this.webSocketService = webSocketService;
+        this.staffSesionRegistry = staffSesionRegistry;
+    }
+
+    /**
+     * Sesiones WebSocket del personal conectadas a esta instancia y cuántas reciben cada canal.
+     * Solo ADMIN: expone los usuarios del personal y sus IDs de sesión.
+     */
+    @GetMapping("/websocket/staff")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> obtenerSesionesStaff() {
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("porCanal", staffSesionRegistry.contarPorCanal());
+        respuesta.put("sesiones", staffSesionRegistry.obtenerSesiones());
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Métricas del buffer de notificaciones WebSocket por usuario
+     * (encoladas, enviadas, coalescidas, descartadas y pendientes).
+     */
+    @GetMapping("/websocket/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasWebSocket() {
+        return ResponseEntity.ok(webSocketService.obtenerMetricas());
     }
 
     /**
@@ -47,4 +86,52 @@ public class NotificationController {
 
         return ResponseEntity.ok("Notificación de orden completada enviada para la orden #" + ordenId);
     }
+
+    /**
+     * Endpoint para programar una notificación (recordatorio) en una fecha futura.
+     * Solo personal del taller, y solo a clientes registrados: abierto, permitiría enviar SMS a cualquier número.
+     * @param request Un mapa con "destinatario", "canal" (EMAIL, SMS o PUSH), "mensaje" y "fechaEnvio" (ISO-8601).
+     * @return ResponseEntity con el ID de la notificación programada, o un error 400.
+     */
+    @PostMapping("/programadas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TECNICO', 'RECEPCIONISTA')")
+    public ResponseEntity<Map<String, Object>> programarNotificacion(@RequestBody Map<String, String> request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            String canal = request.getOrDefault("canal", "EMAIL");
+            if (!canal.equals("EMAIL") && !canal.equals("SMS") && !canal.equals("PUSH")) {
+                throw new IllegalArgumentException("Canal no soportado: " + canal);
+            }
+            if (request.get("mensaje") == null || request.get("fechaEnvio") == null) {
+                throw new IllegalArgumentException("Mensaje y fechaEnvio son requeridos");
+            }
+            Notification notification = notificacionServicio.programarNotificacion(
+                    TipoNotificacion.RECORDATORIO,
+                    request.get("destinatario"),
+                    canal,
+                    request.get("mensaje"),
+                    LocalDateTime.parse(request.get("fechaEnvio")));
+
+            response.put("notificationId", notification.getNotificationId());
+            response.put("fechaEnvio", notification.getProximoIntento());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Endpoint para cancelar un recordatorio programado que aún no se ha enviado.
+     * @param id El ID de la notificación.
+     * @return ResponseEntity con un mensaje de éxito o un error 409 si ya no se puede cancelar.
+     */
+    @DeleteMapping("/programadas/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TECNICO', 'RECEPCIONISTA')")
+    public ResponseEntity<String> cancelarNotificacion(@PathVariable Long id) {
+        if (!notificacionServicio.cancelarNotificacionProgramada(id)) {
+            return ResponseEntity.status(409).body("El recordatorio #" + id + " ya fue enviado o no existe");
+        }
+        return ResponseEntity.ok("Notificación #" + id + " cancelada");
+    }
 }
@@ -1,25 +1,44 @@
 package com.example.autofixpro.controller;
 
+import com.example.autofixpro.dto.ColaTrabajoItemDTO;
 import com.example.autofixpro.dto.OrdenServicioDTO;
+import com.example.autofixpro.dto.PaginaCursorDTO;
+import com.example.autofixpro.dto.ResultadoLoteProgresoDTO;
 import com.example.autofixpro.entity.OrdenServicio;
 import com.example.autofixpro.entity.Vehiculo;
 import com.example.autofixpro.entity.Tecnico;
 import com.example.autofixpro.enumeration.EstadoOrden;
 import com.example.autofixpro.enumeration.Prioridad;
+import com.example.autofixpro.service.ColaTrabajoService;
+import com.example.autofixpro.service.ConflictoVersionException;
 import com.example.autofixpro.service.OrdenServicioService;
+import com.example.autofixpro.service.ReintentoOptimista;
 import com.example.autofixpro.service.VehiculoService;
 import com.example.autofixpro.service.TecnicoService;
+import com.example.autofixpro.util.ExportadorOrdenes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Controlador REST para gestionar las operaciones de órdenes de servicio.
@@ -34,6 +53,8 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class OrdenServicioController extends BaseController {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrdenServicioController.class);
+
     @Autowired
     private OrdenServicioService ordenServicioService;
 
@@ -43,23 +64,110 @@ public class OrdenServicioController extends BaseController {
     @Autowired
     private TecnicoService tecnicoService;
 
+    @Autowired
+    private ColaTrabajoService colaTrabajoService;
+
+    @Autowired
+    private ExportadorOrdenes exportadorOrdenes;
+
+    @Autowired
+    private ReintentoOptimista reintentoOptimista;
+
+    private static final int LIMITE_COLA_MAXIMO = 200;
+    private static final int LOTE_PROGRESO_MAXIMO = 200;
+
     /**
-     * Obtiene una lista de todas las órdenes de servicio.
-     * @return ResponseEntity con la lista de órdenes.
+     * Obtiene una página de órdenes de servicio, de la más reciente a la más antigua.
+     * Usa paginación por cursor: la respuesta incluye 'siguienteCursor', que se envía
+     * en el parámetro 'cursor' para obtener la página siguiente.
+     * @param estado Filtro opcional por estado (RECIBIDO, EN_DIAGNOSTICO, etc.).
+     * @param prioridad Filtro opcional por prioridad (BAJA, NORMAL, ALTA, URGENTE).
+     * @param tecnicoId Filtro opcional por técnico asignado.
+     * @param fechaDesde Fecha de ingreso mínima en formato ISO (yyyy-MM-dd'T'HH:mm:ss).
+     * @param fechaHasta Fecha de ingreso máxima en formato ISO (yyyy-MM-dd'T'HH:mm:ss).
+     * @param cursor Cursor devuelto por la página anterior.
+     * @param tamanio Número de órdenes por página (máximo 200).
+     * @return ResponseEntity con la página de órdenes.
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> listarOrdenes() {
+    public ResponseEntity<Map<String, Object>> listarOrdenes(
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) String prioridad,
+            @RequestParam(required = false) Long tecnicoId,
+            @RequestParam(required = false) String fechaDesde,
+            @RequestParam(required = false) String fechaHasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamanio) {
         try {
-            List<OrdenServicio> ordenes = ordenServicioService.findAll();
-            List<OrdenServicioDTO> ordenesDTO = ordenes.stream()
-                .map(OrdenServicioDTO::new)
-                .collect(Collectors.toList());
-            return createSuccessResponse(ordenesDTO, "Órdenes de servicio obtenidas exitosamente");
+            EstadoOrden estadoOrden = estado != null && !estado.isBlank() ? EstadoOrden.valueOf(estado) : null;
+            Prioridad prioridadOrden = prioridad != null && !prioridad.isBlank() ? Prioridad.valueOf(prioridad) : null;
+            LocalDateTime desde = fechaDesde != null && !fechaDesde.isBlank() ? LocalDateTime.parse(fechaDesde) : null;
+            LocalDateTime hasta = fechaHasta != null && !fechaHasta.isBlank() ? LocalDateTime.parse(fechaHasta) : null;
+
+            PaginaCursorDTO<OrdenServicioDTO> pagina = ordenServicioService.listarOrdenesPaginadas(
+                estadoOrden, prioridadOrden, tecnicoId, desde, hasta, cursor, tamanio);
+            return createSuccessResponse(pagina, "Órdenes de servicio obtenidas exitosamente");
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return createErrorResponse("Parámetro inválido: " + e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             return createErrorResponse("Error al obtener órdenes: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Obtiene la cola de trabajo: órdenes RECIBIDO ordenadas por prioridad, antigüedad y duración estimada.
+     * @param tecnicoId Si se indica, la cola del técnico (sus órdenes más las que no tienen técnico).
+     * @param especialidad Si se indica, las órdenes asignadas a técnicos de esa especialidad.
+     * @param limite Número máximo de órdenes a devolver (máximo 200).
+     * @return ResponseEntity con las órdenes en cola y el total pendiente.
+     */
+    @GetMapping("/cola")
+    public ResponseEntity<Map<String, Object>> obtenerColaTrabajo(
+            @RequestParam(required = false) Long tecnicoId,
+            @RequestParam(required = false) String especialidad,
+            @RequestParam(defaultValue = "50") int limite) {
+        try {
+            int limiteEfectivo = Math.max(1, Math.min(limite, LIMITE_COLA_MAXIMO));
+            List<ColaTrabajoItemDTO> ordenes = colaTrabajoService.obtenerCola(tecnicoId, especialidad, limiteEfectivo);
+
+            Map<String, Object> cola = new HashMap<>();
+            cola.put("ordenes", ordenes);
+            cola.put("totalEnCola", colaTrabajoService.obtenerTamanio());
+            return createSuccessResponse(cola, "Cola de trabajo obtenida exitosamente");
+        } catch (Exception e) {
+            return createErrorResponse("Error al obtener la cola de trabajo: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * El técnico toma la siguiente orden de la cola: se le asigna y pasa a EN_DIAGNOSTICO.
+     * @param request Objeto con el tecnicoId.
+     * @return ResponseEntity con la orden tomada, o 404 si no hay trabajo pendiente.
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'TECNICO')")
+    @PostMapping("/cola/siguiente")
+    public ResponseEntity<Map<String, Object>> tomarSiguienteOrden(@RequestBody Map<String, Long> request) {
+        try {
+            if (!request.containsKey("tecnicoId")) {
+                return createErrorResponse("El campo 'tecnicoId' es obligatorio", HttpStatus.BAD_REQUEST);
+            }
+
+            Optional<Tecnico> tecnicoOpt = tecnicoService.findById(request.get("tecnicoId"));
+            if (!tecnicoOpt.isPresent()) {
+                return createErrorResponse("Técnico no encontrado", HttpStatus.NOT_FOUND);
+            }
+
+            Optional<OrdenServicio> orden = ordenServicioService.tomarSiguienteOrden(tecnicoOpt.get());
+            if (orden.isPresent()) {
+                return createSuccessResponse(orden.get(), "Orden asignada desde la cola de trabajo");
+            } else {
+                return createErrorResponse("No hay órdenes pendientes en la cola", HttpStatus.NOT_FOUND);
+            }
+        } catch (Exception e) {
+            return createErrorResponse("Error al tomar la siguiente orden: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Crea una nueva orden de servicio para un vehículo.
      * Corresponde al CU03: Crear orden de servicios.
@@ -106,18 +214,18 @@ public class OrdenServicioController extends BaseController {
                 nuevaOrden.setCostoEstimado(costoEstimado);
             }
 
+            // Guardar cambios adicionales
+            OrdenServicio ordenGuardada = ordenServicioService.save(nuevaOrden);
+
             // Asignar técnico si se proporciona
             if (request.containsKey("tecnicoId")) {
                 Long tecnicoId = Long.valueOf(request.get("tecnicoId").toString());
                 Optional<Tecnico> tecnicoOpt = tecnicoService.findById(tecnicoId);
                 if (tecnicoOpt.isPresent()) {
-                    nuevaOrden.setTecnico(tecnicoOpt.get());
+                    ordenGuardada = ordenServicioService.asignarTecnico(ordenGuardada, tecnicoOpt.get());
                 }
             }
 
-            // Guardar cambios adicionales
-            OrdenServicio ordenGuardada = ordenServicioService.save(nuevaOrden);
-
             return createResponse(ordenGuardada, "Orden de servicio creada exitosamente", HttpStatus.CREATED);
         } catch (NumberFormatException e) {
             return createErrorResponse("Formato de ID inválido: " + e.getMessage(), HttpStatus.BAD_REQUEST);
@@ -149,8 +257,8 @@ public class OrdenServicioController extends BaseController {
      * Actualiza el progreso de una orden de servicio.
      * Corresponde al CU02: Actualizar progreso de reparación.
      * @param id El ID de la orden de servicio.
-     * @param request Objeto con nuevoEstado y observaciones.
-     * @return ResponseEntity con la orden actualizada.
+     * @param request Objeto con nuevoEstado, observaciones y, opcionalmente, la version leída por el cliente.
+     * @return ResponseEntity con la orden actualizada, o 409 con la versión actual si la orden cambió.
      */
     @PutMapping("/{id}/progreso")
     public ResponseEntity<Map<String, Object>> actualizarProgreso(
@@ -163,9 +271,15 @@ public class OrdenServicioController extends BaseController {
 
             EstadoOrden nuevoEstado = EstadoOrden.valueOf(request.get("nuevoEstado"));
             String observaciones = request.getOrDefault("observaciones", "");
+            Long version = request.get("version") != null ? Long.valueOf(request.get("version")) : null;
 
-            OrdenServicio ordenActualizada = ordenServicioService.actualizarProgreso(id, nuevoEstado, observaciones);
+            OrdenServicio ordenActualizada = reintentoOptimista.ejecutar(id,
+                    () -> ordenServicioService.actualizarProgreso(id, nuevoEstado, observaciones, version));
             return createSuccessResponse(ordenActualizada, "Progreso actualizado exitosamente");
+        } catch (ConflictoVersionException e) {
+            return conflicto(e);
+        } catch (NumberFormatException e) {
+            return createErrorResponse("Versión inválida: " + e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (IllegalArgumentException e) {
             return createErrorResponse("Estado inválido: " + e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (RuntimeException e) {
@@ -175,6 +289,46 @@ public class OrdenServicioController extends BaseController {
         }
     }
 
+    /**
+     * Cambia el estado de varias órdenes en una sola petición y una sola transacción
+     * (por ejemplo, COMPLETADO → ENTREGADO al cierre o RECIBIDO → EN_DIAGNOSTICO al iniciar el turno).
+     * Las órdenes inexistentes o con una transición no permitida se devuelven en 'rechazadas'.
+     * @param request Objeto con ordenIds (lista), nuevoEstado y observaciones.
+     * @return ResponseEntity con las órdenes aplicadas y rechazadas.
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'TECNICO', 'RECEPCIONISTA')")
+    @PostMapping("/progreso/lote")
+    public ResponseEntity<Map<String, Object>> actualizarProgresoEnLote(@RequestBody Map<String, Object> request) {
+        try {
+            if (!request.containsKey("nuevoEstado") || !(request.get("ordenIds") instanceof List<?> lista)) {
+                return createErrorResponse("Los campos 'ordenIds' (lista) y 'nuevoEstado' son obligatorios",
+                        HttpStatus.BAD_REQUEST);
+            }
+            if (lista.isEmpty() || lista.size() > LOTE_PROGRESO_MAXIMO) {
+                return createErrorResponse("El lote debe tener entre 1 y " + LOTE_PROGRESO_MAXIMO + " órdenes",
+                        HttpStatus.BAD_REQUEST);
+            }
+
+            EstadoOrden nuevoEstado = EstadoOrden.valueOf(request.get("nuevoEstado").toString());
+            String observaciones = request.getOrDefault("observaciones", "").toString();
+            List<Long> ordenIds = lista.stream().map(id -> Long.valueOf(id.toString())).toList();
+
+            ResultadoLoteProgresoDTO resultado = reintentoOptimista.ejecutar(
+                    () -> ordenServicioService.actualizarProgresoEnLote(ordenIds, nuevoEstado, observaciones));
+            return createSuccessResponse(resultado, "Lote procesado: " + resultado.getAplicadas().size()
+                    + " aplicadas, " + resultado.getRechazadas().size() + " rechazadas");
+        } catch (NumberFormatException e) {
+            return createErrorResponse("Formato de ID inválido: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse("Estado inválido: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (OptimisticLockingFailureException e) {
+            return createErrorResponse("Otras actualizaciones modificaron las órdenes del lote; intente nuevamente",
+                    HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return createErrorResponse("Error al actualizar el lote: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Obtiene todas las órdenes de servicio por estado.
      * @param estado El estado a filtrar (RECIBIDO, EN_DIAGNOSTICO, EN_REPARACION, etc.).
@@ -226,8 +380,8 @@ public class OrdenServicioController extends BaseController {
     /**
      * Asigna un técnico a una orden de servicio.
      * @param id El ID de la orden de servicio.
-     * @param request Objeto con el tecnicoId.
-     * @return ResponseEntity con la orden actualizada.
+     * @param request Objeto con el tecnicoId y, opcionalmente, la version leída por el cliente.
+     * @return ResponseEntity con la orden actualizada, o 409 con la versión actual si la orden cambió.
      */
     @PutMapping("/{id}/asignar-tecnico")
     public ResponseEntity<Map<String, Object>> asignarTecnico(
@@ -239,9 +393,9 @@ public class OrdenServicioController extends BaseController {
             }
 
             Long tecnicoId = request.get("tecnicoId");
+            Long version = request.get("version");
 
-            Optional<OrdenServicio> ordenOpt = ordenServicioService.findById(id);
-            if (!ordenOpt.isPresent()) {
+            if (!ordenServicioService.existsById(id)) {
                 return createErrorResponse("Orden de servicio no encontrada", HttpStatus.NOT_FOUND);
             }
 
@@ -250,11 +404,12 @@ public class OrdenServicioController extends BaseController {
                 return createErrorResponse("Técnico no encontrado", HttpStatus.NOT_FOUND);
             }
 
-            OrdenServicio orden = ordenOpt.get();
-            orden.setTecnico(tecnicoOpt.get());
-            OrdenServicio ordenActualizada = ordenServicioService.update(orden);
+            OrdenServicio ordenActualizada = reintentoOptimista.ejecutar(id,
+                    () -> ordenServicioService.asignarTecnico(id, tecnicoOpt.get(), version));
 
             return createSuccessResponse(ordenActualizada, "Técnico asignado exitosamente");
+        } catch (ConflictoVersionException e) {
+            return conflicto(e);
         } catch (Exception e) {
             return createErrorResponse("Error al asignar técnico: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -263,8 +418,8 @@ public class OrdenServicioController extends BaseController {
     /**
      * Actualiza el costo estimado de una orden de servicio.
      * @param id El ID de la orden de servicio.
-     * @param request Objeto con el costoEstimado.
-     * @return ResponseEntity con la orden actualizada.
+     * @param request Objeto con el costoEstimado y, opcionalmente, la version leída por el cliente.
+     * @return ResponseEntity con la orden actualizada, o 409 con la versión actual si la orden cambió.
      */
     @PutMapping("/{id}/costo")
     public ResponseEntity<Map<String, Object>> actualizarCosto(
@@ -275,16 +430,18 @@ public class OrdenServicioController extends BaseController {
                 return createErrorResponse("El campo 'costoEstimado' es obligatorio", HttpStatus.BAD_REQUEST);
             }
 
-            Optional<OrdenServicio> ordenOpt = ordenServicioService.findById(id);
-            if (!ordenOpt.isPresent()) {
+            if (!ordenServicioService.existsById(id)) {
                 return createErrorResponse("Orden de servicio no encontrada", HttpStatus.NOT_FOUND);
             }
 
-            OrdenServicio orden = ordenOpt.get();
-            orden.setCostoEstimado(request.get("costoEstimado"));
-            OrdenServicio ordenActualizada = ordenServicioService.update(orden);
+            Double costoEstimado = request.get("costoEstimado");
+            Long version = request.get("version") != null ? request.get("version").longValue() : null;
+            OrdenServicio ordenActualizada = reintentoOptimista.ejecutar(id,
+                    () -> ordenServicioService.actualizarCosto(id, costoEstimado, version));
 
             return createSuccessResponse(ordenActualizada, "Costo actualizado exitosamente");
+        } catch (ConflictoVersionException e) {
+            return conflicto(e);
         } catch (Exception e) {
             return createErrorResponse("Error al actualizar costo: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -293,26 +450,39 @@ public class OrdenServicioController extends BaseController {
     /**
      * Completa una orden de servicio.
      * @param id El ID de la orden de servicio.
-     * @return ResponseEntity con la orden completada.
+     * @param version Versión leída por el cliente (opcional).
+     * @return ResponseEntity con la orden completada, o 409 con la versión actual si la orden cambió.
      */
     @PutMapping("/{id}/completar")
-    public ResponseEntity<Map<String, Object>> completarOrden(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> completarOrden(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long version) {
         try {
-            Optional<OrdenServicio> ordenOpt = ordenServicioService.findById(id);
-            if (!ordenOpt.isPresent()) {
+            if (!ordenServicioService.existsById(id)) {
                 return createErrorResponse("Orden de servicio no encontrada", HttpStatus.NOT_FOUND);
             }
 
-            OrdenServicio orden = ordenOpt.get();
-            orden.completarOrden();
-            OrdenServicio ordenActualizada = ordenServicioService.update(orden);
+            OrdenServicio ordenActualizada = reintentoOptimista.ejecutar(id,
+                    () -> ordenServicioService.completarOrden(id, version));
 
             return createSuccessResponse(ordenActualizada, "Orden completada exitosamente");
+        } catch (ConflictoVersionException e) {
+            return conflicto(e);
         } catch (Exception e) {
             return createErrorResponse("Error al completar orden: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Métricas de conflictos de versión y reintentos en las actualizaciones de órdenes.
+     * @return ResponseEntity con los contadores.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/concurrencia/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasConcurrencia() {
+        return createSuccessResponse(reintentoOptimista.obtenerMetricas(), "Métricas de concurrencia obtenidas exitosamente");
+    }
+
     /**
      * Obtiene órdenes de servicio por período de tiempo.
      * Útil para reportes (CU06).
@@ -334,4 +504,60 @@ public class OrdenServicioController extends BaseController {
             return createErrorResponse("Error al obtener órdenes por período: " + e.getMessage(), HttpStatus.BAD_REQUEST);
         }
     }
+
+    /**
+     * Exporta las órdenes de un período en CSV o NDJSON, escribiendo cada fila directamente en la respuesta.
+     * El consumo de memoria no depende del número de órdenes del período (CU06).
+     * @param fechaInicio Fecha de inicio en formato ISO (yyyy-MM-dd'T'HH:mm:ss).
+     * @param fechaFin Fecha de fin en formato ISO (yyyy-MM-dd'T'HH:mm:ss).
+     * @param format Formato de salida: csv (por defecto) o ndjson.
+     * @return El archivo exportado como descarga.
+     */
+    @GetMapping("/periodo/export")
+    public ResponseEntity<?> exportarOrdenesPorPeriodo(
+            @RequestParam String fechaInicio,
+            @RequestParam String fechaFin,
+            @RequestParam(defaultValue = "csv") String format) {
+        LocalDateTime inicio;
+        LocalDateTime fin;
+        ExportadorOrdenes.Formato formato;
+        try {
+            inicio = LocalDateTime.parse(fechaInicio);
+            fin = LocalDateTime.parse(fechaFin);
+            formato = ExportadorOrdenes.Formato.desde(format);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return createErrorResponse("Parámetro inválido: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+
+        // Se ejecuta en un hilo asíncrono de Spring MVC después de devolver las cabeceras
+        StreamingResponseBody cuerpo = salida -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            try {
+                exportadorOrdenes.escribirEncabezado(writer, formato);
+                long total = ordenServicioService.recorrerPorPeriodo(inicio, fin,
+                        orden -> exportadorOrdenes.escribirFila(writer, formato, orden));
+                writer.flush();
+                logger.debug("Exportadas {} órdenes del período {} - {} en {}", total, inicio, fin, formato);
+            } catch (UncheckedIOException e) {
+                // El cliente cerró la conexión; la respuesta ya empezó y no se puede cambiar el estado
+                logger.warn("Exportación de órdenes interrumpida: {}", e.getMessage());
+            }
+        };
+
+        String archivo = "ordenes_" + inicio.toLocalDate() + "_" + fin.toLocalDate() + "." + formato.getExtension();
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.parseMediaType(formato.getContentType()), StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+                .body(cuerpo);
+    }
+
+    /**
+     * Respuesta 409 con la versión confirmada, para que el cliente recargue la orden y reintente.
+     */
+    private ResponseEntity<Map<String, Object>> conflicto(ConflictoVersionException e) {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("ordenId", e.getOrdenId());
+        datos.put("versionActual", e.getVersionActual());
+        return createResponse(datos, e.getMessage(), HttpStatus.CONFLICT);
+    }
 }
@@ -0,0 +1,108 @@
+package com.example.autofixpro.controller;
+
+import com.example.autofixpro.dto.ReportePeriodoDTO;
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.service.ReporteDiarioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controlador REST para los reportes de órdenes del taller (CU06).
+ * Responde a partir de los acumulados diarios de reporte_diario, sin recorrer las órdenes.
+ */
+@RestController
+@RequestMapping("/api/reportes")
+@CrossOrigin(origins = "*")
+public class ReporteController extends BaseController {
+
+    @Autowired
+    private ReporteDiarioService reporteDiarioService;
+
+    /**
+     * Obtiene el reporte de órdenes ingresadas en un rango de días.
+     * @param desde Primer día en formato ISO (yyyy-MM-dd), inclusive.
+     * @param hasta Último día en formato ISO (yyyy-MM-dd), inclusive.
+     * @return ResponseEntity con totales por estado, prioridad, técnico y día.
+     */
+    @GetMapping("/ordenes")
+    public ResponseEntity<Map<String, Object>> obtenerReporteOrdenes(
+            @RequestParam String desde,
+            @RequestParam String hasta) {
+        try {
+            LocalDate inicio = LocalDate.parse(desde);
+            LocalDate fin = LocalDate.parse(hasta);
+            if (fin.isBefore(inicio)) {
+                return createErrorResponse("La fecha 'hasta' no puede ser anterior a 'desde'", HttpStatus.BAD_REQUEST);
+            }
+
+            ReportePeriodoDTO reporte = reporteDiarioService.obtenerReporte(inicio, fin);
+            return createSuccessResponse(reporte, "Reporte generado exitosamente");
+        } catch (DateTimeParseException e) {
+            return createErrorResponse("Fecha inválida: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return createErrorResponse("Error al generar el reporte: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Cuenta las órdenes en un estado ingresadas en un rango de días.
+     * @param estado El estado a contar (RECIBIDO, EN_DIAGNOSTICO, etc.).
+     * @param desde Primer día en formato ISO (yyyy-MM-dd), inclusive.
+     * @param hasta Último día en formato ISO (yyyy-MM-dd), inclusive.
+     * @return ResponseEntity con el conteo.
+     */
+    @GetMapping("/ordenes/estado/{estado}")
+    public ResponseEntity<Map<String, Object>> contarOrdenesPorEstado(
+            @PathVariable String estado,
+            @RequestParam String desde,
+            @RequestParam String hasta) {
+        try {
+            EstadoOrden estadoOrden = EstadoOrden.valueOf(estado);
+            long cantidad = reporteDiarioService.contarPorEstado(estadoOrden, LocalDate.parse(desde), LocalDate.parse(hasta));
+
+            Map<String, Object> conteo = new HashMap<>();
+            conteo.put("estado", estadoOrden);
+            conteo.put("cantidad", cantidad);
+            return createSuccessResponse(conteo, "Conteo obtenido exitosamente");
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return createErrorResponse("Parámetro inválido: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return createErrorResponse("Error al contar órdenes: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Reconstruye los acumulados diarios de un rango de días desde las órdenes.
+     * @param desde Primer día en formato ISO (yyyy-MM-dd), inclusive.
+     * @param hasta Último día en formato ISO (yyyy-MM-dd), inclusive.
+     * @return ResponseEntity con el número de grupos recalculados.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/acumulados/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirAcumulados(
+            @RequestParam String desde,
+            @RequestParam String hasta) {
+        try {
+            LocalDate inicio = LocalDate.parse(desde);
+            LocalDate fin = LocalDate.parse(hasta);
+            if (fin.isBefore(inicio)) {
+                return createErrorResponse("La fecha 'hasta' no puede ser anterior a 'desde'", HttpStatus.BAD_REQUEST);
+            }
+
+            int grupos = reporteDiarioService.reconstruir(inicio, fin);
+            return createSuccessResponse(Map.of("grupos", grupos), "Acumulados reconstruidos exitosamente");
+        } catch (DateTimeParseException e) {
+            return createErrorResponse("Fecha inválida: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return createErrorResponse("Error al reconstruir acumulados: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.autofixpro.controller;
 
 import com.example.autofixpro.service.AwsSnsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,7 +13,9 @@ import java.util.concurrent.CompletableFuture;
 /**
  * Controlador REST para interactuar con el servicio AWS SNS (Simple Notification Service).
  * Proporciona endpoints para enviar SMS, crear y publicar en topics, y suscribir correos electrónicos.
+ * Es de uso administrativo ocasional, así que se crea con la primera petición y no durante el arranque.
  */
+@Lazy
 @RestController
 @RequestMapping("/api/sns")
 @CrossOrigin(origins = "*")
@@ -34,6 +37,15 @@ public class SnsController {
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * Obtiene las métricas del despachador de SMS: profundidad de cola, envíos, descartes y latencia.
+     * @return ResponseEntity con las métricas.
+     */
+    @GetMapping("/sms/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasSms() {
+        return ResponseEntity.ok(awsSnsService.obtenerMetricasSms());
+    }
+
     /**
      * Envía un mensaje SMS a un número de teléfono.
      * @param request Un mapa que contiene el "telefono" y el "mensaje".
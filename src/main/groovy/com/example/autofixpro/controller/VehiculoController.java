@@ -1,24 +1,23 @@
 package com.example.autofixpro.controller;
 
-import com.example.autofixpro.dto.OrdenServicioDTO;
+import com.example.autofixpro.dto.HistorialVehiculoDTO;
 import com.example.autofixpro.dto.VehiculoDTO;
 import com.example.autofixpro.entity.Cliente;
 import com.example.autofixpro.entity.OrdenServicio;
 import com.example.autofixpro.entity.Vehiculo;
 import com.example.autofixpro.service.VehiculoService;
 import com.example.autofixpro.service.ClienteService;
-import com.example.autofixpro.service.OrdenServicioService;
 import com.example.autofixpro.service.sunarp.SunarpOrchestratorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Controlador REST para gestionar las operaciones de los vehículos.
@@ -29,15 +28,15 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class VehiculoController extends BaseController {
 
+    // Tamaño máximo de página del historial (CU08/CU09)
+    private static final int TAMANIO_HISTORIAL_MAXIMO = 100;
+
     @Autowired
     private VehiculoService vehiculoService;
 
     @Autowired
     private ClienteService clienteService;
 
-    @Autowired
-    private OrdenServicioService ordenServicioService;
-
     @Autowired
     private SunarpOrchestratorService sunarpService;
 
@@ -81,14 +80,20 @@ public class VehiculoController extends BaseController {
      * Consulta el estado de un vehículo por su placa.
      * Corresponde al CU08: Consultar estado del vehículo.
      * @param placa La placa del vehículo a consultar.
-     * @return ResponseEntity con la información del estado del vehículo.
+     * @param pagina Número de página de órdenes, desde 0.
+     * @param tamanio Órdenes por página (máximo 100).
+     * @return ResponseEntity con las órdenes del vehículo, sus estados y sus servicios.
      */
     @GetMapping("/placa/{placa}/estado")
-    public ResponseEntity<Map<String, Object>> consultarEstadoVehiculo(@PathVariable String placa) {
+    public ResponseEntity<Map<String, Object>> consultarEstadoVehiculo(
+            @PathVariable String placa,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamanio) {
         try {
-            Optional<Vehiculo> vehiculo = vehiculoService.consultarEstadoPorPlaca(placa);
-            if (vehiculo.isPresent()) {
-                return createSuccessResponse(vehiculo.get(), "Estado del vehículo obtenido exitosamente");
+            Optional<HistorialVehiculoDTO> historial = vehiculoService.consultarEstadoPorPlaca(
+                    placa, Math.max(0, pagina), limitarTamanio(tamanio));
+            if (historial.isPresent()) {
+                return createSuccessResponse(historial.get(), "Estado del vehículo obtenido exitosamente");
             } else {
                 return createErrorResponse("Vehículo con placa " + placa + " no encontrado", HttpStatus.NOT_FOUND);
             }
@@ -97,26 +102,49 @@ public class VehiculoController extends BaseController {
         }
     }
 
+    /**
+     * Autocompleta placas registradas a partir de un prefijo (recepción).
+     * Se resuelve con el índice de placas en memoria; se ignoran guiones y mayúsculas.
+     * Solo personal de recepción: abierto, permitiría listar todas las placas registradas.
+     * @param prefijo El inicio de la placa.
+     * @param limite Número máximo de placas (máximo 50).
+     * @return ResponseEntity con las placas normalizadas en orden alfabético.
+     */
+    @GetMapping("/placas/autocompletar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPCIONISTA')")
+    public ResponseEntity<Map<String, Object>> autocompletarPlacas(
+            @RequestParam String prefijo,
+            @RequestParam(defaultValue = "10") int limite) {
+        try {
+            List<String> placas = vehiculoService.autocompletarPlacas(prefijo, Math.max(1, Math.min(limite, 50)));
+            return createSuccessResponse(placas, "Placas obtenidas exitosamente");
+        } catch (Exception e) {
+            return createErrorResponse("Error al autocompletar placas: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Obtiene el historial de servicios de un vehículo.
      * Corresponde al CU09: Ver historial de servicio.
      * @param id El ID del vehículo.
+     * @param pagina Número de página de órdenes, desde 0.
+     * @param tamanio Órdenes por página (máximo 100).
      * @return ResponseEntity con el historial de servicios del vehículo.
      */
     @GetMapping("/{id}/historial")
-    public ResponseEntity<Map<String, Object>> obtenerHistorialServicios(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> obtenerHistorialServicios(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamanio) {
         try {
-            // Verificar que el vehículo existe
-            if (!vehiculoService.existsById(id)) {
+            // Tres consultas en total: página de órdenes, estados y servicios (sin JOIN FETCH de dos colecciones)
+            Optional<HistorialVehiculoDTO> historial = vehiculoService.obtenerHistorialServicios(
+                    id, Math.max(0, pagina), limitarTamanio(tamanio));
+            if (historial.isEmpty()) {
                 return createErrorResponse("Vehículo no encontrado", HttpStatus.NOT_FOUND);
             }
 
-            // Obtener órdenes directamente por vehículo ID para evitar MultipleBagFetchException
-            List<OrdenServicioDTO> ordenesDTO = ordenServicioService.findHistorialByVehiculoId(id).stream()
-                .map(OrdenServicioDTO::new)
-                .collect(Collectors.toList());
-
-            return createSuccessResponse(ordenesDTO, "Historial de servicios obtenido exitosamente");
+            return createSuccessResponse(historial.get(), "Historial de servicios obtenido exitosamente");
         } catch (Exception e) {
             return createErrorResponse("Error al obtener historial: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -236,4 +264,8 @@ public class VehiculoController extends BaseController {
             return createErrorResponse("Error al consultar: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    private static int limitarTamanio(int tamanio) {
+        return Math.max(1, Math.min(tamanio, TAMANIO_HISTORIAL_MAXIMO));
+    }
+}
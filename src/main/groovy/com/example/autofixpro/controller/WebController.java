@@ -1,15 +1,19 @@
 package com.example.autofixpro.controller;
 
+import com.example.autofixpro.dto.DashboardMetricasDTO;
 import com.example.autofixpro.entity.Cliente;
 import com.example.autofixpro.entity.OrdenServicio;
 import com.example.autofixpro.entity.Vehiculo;
-import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.CanalStaff;
 import com.example.autofixpro.service.ClienteService;
+import com.example.autofixpro.service.DashboardMetricsService;
 import com.example.autofixpro.service.VehiculoService;
 import com.example.autofixpro.service.OrdenServicioService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,6 +32,8 @@ public class WebController {
 
     private static final Logger log = LoggerFactory.getLogger(WebController.class);
 
+    private static final int CLIENTES_RECIENTES = 10;
+
     @Autowired
     private ClienteService clienteService;
 
@@ -37,39 +43,40 @@ public class WebController {
     @Autowired
     private OrdenServicioService ordenServicioService;
 
+    @Autowired
+    private DashboardMetricsService dashboardMetricsService;
+
     /**
      * Muestra el dashboard principal con métricas clave del taller.
      * @param model El modelo para la vista.
      * @return El nombre de la vista 'dashboard'.
      */
     @GetMapping("/dashboard")
-    public String dashboard(Model model) {
+    public String dashboard(Model model, Authentication authentication) {
         model.addAttribute("title", "AutoFixPro - Dashboard");
         model.addAttribute("message", "Sistema de Gestión de Taller Mecánico");
 
-        // Obtener datos de clientes
-        List<Cliente> clientes = clienteService.findAll();
-        model.addAttribute("clientes", clientes);
-        model.addAttribute("totalClientes", clientes.size());
+        // Totales y clientes recientes (sin cargar la tabla completa)
+        model.addAttribute("clientes", clienteService.findRecientes(CLIENTES_RECIENTES));
+        model.addAttribute("totalClientes", clienteService.count());
 
         // Obtener datos de vehículos
         long totalVehiculos = vehiculoService.count();
         model.addAttribute("totalVehiculos", totalVehiculos);
 
-        // Obtener órdenes activas (todas excepto COMPLETADO y ENTREGADO)
-        List<OrdenServicio> todasOrdenes = ordenServicioService.findAll();
-        long ordenesActivas = todasOrdenes.stream()
-            .filter(orden -> orden.getEstadoOrden() != EstadoOrden.COMPLETADO &&
-                           orden.getEstadoOrden() != EstadoOrden.ENTREGADO)
-            .count();
-        model.addAttribute("ordenesActivas", ordenesActivas);
-
-        // Contar servicios completados (órdenes en estado COMPLETADO o ENTREGADO)
-        long serviciosCompletados = todasOrdenes.stream()
-            .filter(orden -> orden.getEstadoOrden() == EstadoOrden.COMPLETADO ||
-                           orden.getEstadoOrden() == EstadoOrden.ENTREGADO)
-            .count();
-        model.addAttribute("serviciosCompletados", serviciosCompletados);
+        // Métricas de órdenes desde el snapshot en memoria
+        DashboardMetricasDTO metricas = dashboardMetricsService.obtenerMetricas();
+        model.addAttribute("ordenesActivas", metricas.getOrdenesActivas());
+        model.addAttribute("serviciosCompletados", metricas.getServiciosCompletados());
+        model.addAttribute("metricas", metricas);
+
+        // Canales de alertas WebSocket a los que puede suscribirse el rol del usuario
+        List<String> autoridades = authentication == null ? List.of() : authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        model.addAttribute("canalesStaff", CanalStaff.permitidosPara(autoridades).stream()
+                .map(CanalStaff::getDestino)
+                .toList());
 
         return "dashboard";
     }
@@ -1,6 +1,8 @@
 package com.example.autofixpro.dao;
 
+import com.example.autofixpro.dto.ClienteDTO;
 import com.example.autofixpro.entity.Cliente;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,6 +22,9 @@ public interface ClienteDAO extends JpaRepository<Cliente, Long> {
     @Query("SELECT c FROM Cliente c WHERE c.telefono = :telefono")
     Optional<Cliente> findByTelefono(@Param("telefono") String telefono);
 
+    // Destinatarios de notificaciones programadas: solo clientes registrados
+    boolean existsByEmailOrTelefono(String email, String telefono);
+
     @Query("SELECT c FROM Cliente c WHERE LOWER(c.nombres) LIKE LOWER(CONCAT('%', :nombre, '%')) " +
             "OR LOWER(c.apellidos) LIKE LOWER(CONCAT('%', :nombre, '%'))")
     List<Cliente> findByNombreContaining(@Param("nombre") String nombre);
@@ -27,4 +32,14 @@ public interface ClienteDAO extends JpaRepository<Cliente, Long> {
     // Para el caso de uso CU01: Consultar estado del vehículo
     @Query("SELECT c FROM Cliente c LEFT JOIN FETCH c.vehiculos v WHERE c.clienteId = :clienteId")
     Optional<Cliente> findByIdWithVehiculos(@Param("clienteId") Long clienteId);
-}
\ No newline at end of file
+
+    // Para el dashboard: clientes más recientes proyectados a DTO, sin cargar entidades
+    @Query("SELECT new com.example.autofixpro.dto.ClienteDTO(c.clienteId, c.nombres, c.apellidos, " +
+            "c.dni, c.telefono, c.email) FROM Cliente c ORDER BY c.clienteId DESC")
+    List<ClienteDTO> findRecientes(Pageable pageable);
+
+    // Índice de búsqueda de clientes: todos los clientes proyectados a DTO en una sola consulta
+    @Query("SELECT new com.example.autofixpro.dto.ClienteDTO(c.clienteId, c.nombres, c.apellidos, " +
+            "c.dni, c.telefono, c.email) FROM Cliente c")
+    List<ClienteDTO> findTodosProyectados();
+}
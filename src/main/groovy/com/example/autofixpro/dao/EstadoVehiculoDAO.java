@@ -0,0 +1,44 @@
+package com.example.autofixpro.dao;
+
+import com.example.autofixpro.dto.EstadoVehiculoDTO;
+import com.example.autofixpro.entity.EstadoVehiculo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Registro de solo inserción (append-only) de los estados de vehículo por orden de servicio.
+ * Las inserciones se hacen en lote por JDBC (ver EstadoVehiculoDAOCustom).
+ */
+@Repository
+public interface EstadoVehiculoDAO extends JpaRepository<EstadoVehiculo, Long>, EstadoVehiculoDAOCustom {
+
+    // Línea de tiempo de una orden (CU02): últimos N estados, del más reciente al más antiguo
+    @Query("SELECT new com.example.autofixpro.dto.EstadoVehiculoDTO(" +
+            "ev.ordenServicio.ordenId, ev.estado, ev.descripcionEstado, ev.fechaActualizacion, " +
+            "ev.porcentajeAvance, ev.observaciones) " +
+            "FROM EstadoVehiculo ev WHERE ev.ordenServicio.ordenId = :ordenId " +
+            "ORDER BY ev.fechaActualizacion DESC, ev.estadoId DESC")
+    List<EstadoVehiculoDTO> findUltimosPorOrden(@Param("ordenId") Long ordenId, Pageable pageable);
+
+    // Último estado de cada orden (CU08); resuelto solo con el índice idx_estado_orden_fecha
+    @Query("SELECT new com.example.autofixpro.dto.EstadoVehiculoDTO(" +
+            "ev.ordenServicio.ordenId, ev.estado, ev.descripcionEstado, ev.fechaActualizacion, ev.porcentajeAvance) " +
+            "FROM EstadoVehiculo ev WHERE ev.ordenServicio.ordenId IN :ordenIds " +
+            "AND ev.fechaActualizacion = (SELECT MAX(e2.fechaActualizacion) FROM EstadoVehiculo e2 " +
+            "WHERE e2.ordenServicio.ordenId = ev.ordenServicio.ordenId)")
+    List<EstadoVehiculoDTO> findUltimoEstadoPorOrdenes(@Param("ordenIds") Collection<Long> ordenIds);
+
+    // Historial del vehículo (CU08/CU09): líneas de tiempo completas de varias órdenes en una sola consulta
+    @Query("SELECT new com.example.autofixpro.dto.EstadoVehiculoDTO(" +
+            "ev.ordenServicio.ordenId, ev.estado, ev.descripcionEstado, ev.fechaActualizacion, " +
+            "ev.porcentajeAvance, ev.observaciones) " +
+            "FROM EstadoVehiculo ev WHERE ev.ordenServicio.ordenId IN :ordenIds " +
+            "ORDER BY ev.fechaActualizacion, ev.estadoId")
+    List<EstadoVehiculoDTO> findPorOrdenes(@Param("ordenIds") Collection<Long> ordenIds);
+}
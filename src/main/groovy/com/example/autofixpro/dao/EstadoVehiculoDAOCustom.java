@@ -0,0 +1,18 @@
+package com.example.autofixpro.dao;
+
+import com.example.autofixpro.entity.EstadoVehiculo;
+
+import java.util.List;
+
+/**
+ * Operaciones de EstadoVehiculoDAO implementadas con JDBC en lugar de JPA.
+ */
+public interface EstadoVehiculoDAOCustom {
+
+    /**
+     * Inserta los estados con un único batch JDBC en la transacción actual.
+     * Los estados deben tener asignada una orden de servicio ya persistida.
+     * @param estados Los estados a insertar.
+     */
+    void insertarEnLote(List<EstadoVehiculo> estados);
+}
@@ -0,0 +1,47 @@
+package com.example.autofixpro.dao;
+
+import com.example.autofixpro.entity.EstadoVehiculo;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Implementación JDBC de EstadoVehiculoDAOCustom.
+ * JdbcTemplate participa en la transacción JPA activa, por lo que los estados
+ * se confirman o se revierten junto con la orden de servicio.
+ */
+public class EstadoVehiculoDAOImpl implements EstadoVehiculoDAOCustom {
+
+    private static final String INSERT_ESTADO =
+            "INSERT INTO estados_vehiculo (estado, descripcion_estado, fecha_actualizacion, " +
+            "porcentaje_avance, observaciones, orden_servicio_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final int TAMANIO_LOTE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EstadoVehiculoDAOImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertarEnLote(List<EstadoVehiculo> estados) {
+        if (estados.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ESTADO, estados, TAMANIO_LOTE, (ps, estado) -> {
+            ps.setString(1, estado.getEstado());
+            ps.setString(2, estado.getDescripcionEstado());
+            ps.setTimestamp(3, Timestamp.valueOf(estado.getFechaActualizacion()));
+            if (estado.getPorcentajeAvance() != null) {
+                ps.setInt(4, estado.getPorcentajeAvance());
+            } else {
+                ps.setNull(4, Types.INTEGER);
+            }
+            ps.setString(5, estado.getObservaciones());
+            ps.setLong(6, estado.getOrdenServicio().getOrdenId());
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.autofixpro.dao;
+
+import com.example.autofixpro.entity.Notification;
+import com.example.autofixpro.enumeration.TipoNotificacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationDAO extends JpaRepository<Notification, Long> {
+
+    /**
+     * Bloquea un lote de notificaciones listas para enviarse (pendientes, o en proceso con plazo vencido).
+     * SKIP LOCKED permite que varios workers o instancias reclamen lotes distintos sin esperarse entre sí.
+     * Debe ejecutarse dentro de una transacción.
+     */
+    @Query(value = "SELECT * FROM notifications " +
+            "WHERE estado_envio IN ('PENDIENTE', 'EN_PROCESO') " +
+            "AND (proximo_intento IS NULL OR proximo_intento <= :ahora) " +
+            "ORDER BY proximo_intento, notification_id " +
+            "LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Notification> reclamarPendientes(@Param("ahora") LocalDateTime ahora, @Param("limite") int limite);
+
+    List<Notification> findByEstadoEnvio(String estadoEnvio);
+
+    /**
+     * Cancela una notificación de un tipo si aún no ha sido reclamada por un worker.
+     * @return 1 si se canceló, 0 si ya se estaba enviando, ya se envió, es de otro tipo o no existe.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.estadoEnvio = 'CANCELADA' " +
+            "WHERE n.notificationId = :id AND n.tipoNotificacion = :tipo AND n.estadoEnvio = 'PENDIENTE'")
+    int cancelarPendiente(@Param("id") Long id, @Param("tipo") TipoNotificacion tipo);
+
+    /**
+     * Cancela las notificaciones pendientes de un tipo asociadas a una orden.
+     * @return El número de notificaciones canceladas.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.estadoEnvio = 'CANCELADA' " +
+            "WHERE n.ordenId = :ordenId AND n.tipoNotificacion = :tipo AND n.estadoEnvio = 'PENDIENTE'")
+    int cancelarPendientesPorOrden(@Param("ordenId") Long ordenId, @Param("tipo") TipoNotificacion tipo);
+
+    /**
+     * Cancela en un solo UPDATE las notificaciones pendientes de un tipo asociadas a varias órdenes.
+     * @return El número de notificaciones canceladas.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.estadoEnvio = 'CANCELADA' " +
+            "WHERE n.ordenId IN :ordenIds AND n.tipoNotificacion = :tipo AND n.estadoEnvio = 'PENDIENTE'")
+    int cancelarPendientesPorOrdenes(@Param("ordenIds") Collection<Long> ordenIds, @Param("tipo") TipoNotificacion tipo);
+}
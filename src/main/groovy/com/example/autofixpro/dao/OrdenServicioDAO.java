@@ -1,14 +1,26 @@
 package com.example.autofixpro.dao;
 
+import com.example.autofixpro.dto.OrdenServicioDTO;
 import com.example.autofixpro.entity.OrdenServicio;
 import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrdenServicioDAO extends JpaRepository<OrdenServicio, Long> {
@@ -30,6 +42,21 @@ public interface OrdenServicioDAO extends JpaRepository<OrdenServicio, Long> {
     List<OrdenServicio> findByFechaIngresoBetween(@Param("fechaInicio") LocalDateTime fechaInicio,
                                                   @Param("fechaFin") LocalDateTime fechaFin);
 
+    // Exportación de reportes (CU06): proyección a DTO recorrida con un cursor de solo avance.
+    // Con MySQL Connector/J, un fetch size de Integer.MIN_VALUE hace que las filas se lean una a una
+    // del servidor en lugar de cargar todo el resultado en memoria. Debe consumirse dentro de una transacción.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.example.autofixpro.dto.OrdenServicioDTO(" +
+            "os.ordenId, os.fechaIngreso, os.fechaEntrega, os.descripcionProblema, os.costoEstimado, " +
+            "os.estadoOrden, os.prioridad, " +
+            "v.vehiculoId, v.placa, v.marca, v.modelo, v.year, v.color, " +
+            "t.tecnicoId, t.nombres, t.apellidos, t.especialidad) " +
+            "FROM OrdenServicio os LEFT JOIN os.vehiculo v LEFT JOIN os.tecnico t " +
+            "WHERE os.fechaIngreso BETWEEN :fechaInicio AND :fechaFin " +
+            "ORDER BY os.fechaIngreso, os.ordenId")
+    Stream<OrdenServicioDTO> streamProyectadoPorPeriodo(@Param("fechaInicio") LocalDateTime fechaInicio,
+                                                        @Param("fechaFin") LocalDateTime fechaFin);
+
     // Para el caso de uso CU02: Actualizar progreso
     @Query("SELECT os FROM OrdenServicio os LEFT JOIN FETCH os.estadosVehiculo " +
             "WHERE os.ordenId = :ordenId")
@@ -41,4 +68,101 @@ public interface OrdenServicioDAO extends JpaRepository<OrdenServicio, Long> {
     Long countByEstadoAndFecha(@Param("estado") EstadoOrden estado,
                                @Param("fechaInicio") LocalDateTime fechaInicio,
                                @Param("fechaFin") LocalDateTime fechaFin);
-}
\ No newline at end of file
+
+    // Listado paginado por cursor (keyset sobre fechaIngreso, ordenId).
+    // Proyección en una sola consulta: no carga entidades Vehiculo ni Tecnico.
+    @Query("SELECT new com.example.autofixpro.dto.OrdenServicioDTO(" +
+            "os.ordenId, os.fechaIngreso, os.fechaEntrega, os.descripcionProblema, os.costoEstimado, " +
+            "os.estadoOrden, os.prioridad, " +
+            "v.vehiculoId, v.placa, v.marca, v.modelo, v.year, v.color, " +
+            "t.tecnicoId, t.nombres, t.apellidos, t.especialidad) " +
+            "FROM OrdenServicio os LEFT JOIN os.vehiculo v LEFT JOIN os.tecnico t " +
+            "WHERE (:estado IS NULL OR os.estadoOrden = :estado) " +
+            "AND (:prioridad IS NULL OR os.prioridad = :prioridad) " +
+            "AND (:tecnicoId IS NULL OR t.tecnicoId = :tecnicoId) " +
+            "AND (:fechaDesde IS NULL OR os.fechaIngreso >= :fechaDesde) " +
+            "AND (:fechaHasta IS NULL OR os.fechaIngreso <= :fechaHasta) " +
+            "AND (:cursorFecha IS NULL OR os.fechaIngreso < :cursorFecha " +
+            "OR (os.fechaIngreso = :cursorFecha AND os.ordenId < :cursorId)) " +
+            "ORDER BY os.fechaIngreso DESC, os.ordenId DESC")
+    List<OrdenServicioDTO> findPaginaProyectada(@Param("estado") EstadoOrden estado,
+                                                @Param("prioridad") Prioridad prioridad,
+                                                @Param("tecnicoId") Long tecnicoId,
+                                                @Param("fechaDesde") LocalDateTime fechaDesde,
+                                                @Param("fechaHasta") LocalDateTime fechaHasta,
+                                                @Param("cursorFecha") LocalDateTime cursorFecha,
+                                                @Param("cursorId") Long cursorId,
+                                                Pageable pageable);
+
+    // Consulta pública por placa: órdenes de un vehículo proyectadas a DTO, de la más reciente a la más antigua
+    @Query("SELECT new com.example.autofixpro.dto.OrdenServicioDTO(" +
+            "os.ordenId, os.fechaIngreso, os.fechaEntrega, os.descripcionProblema, os.costoEstimado, " +
+            "os.estadoOrden, os.prioridad, " +
+            "v.vehiculoId, v.placa, v.marca, v.modelo, v.year, v.color, " +
+            "t.tecnicoId, t.nombres, t.apellidos, t.especialidad) " +
+            "FROM OrdenServicio os JOIN os.vehiculo v LEFT JOIN os.tecnico t " +
+            "WHERE v.vehiculoId = :vehiculoId " +
+            "ORDER BY os.fechaIngreso DESC, os.ordenId DESC")
+    List<OrdenServicioDTO> findProyectadasPorVehiculo(@Param("vehiculoId") Long vehiculoId);
+
+    // Historial del vehículo (CU08/CU09), primera fase: una página de órdenes con los datos del vehículo.
+    // Slice pide una fila de más para saber si hay otra página, sin COUNT
+    @Query("SELECT new com.example.autofixpro.dto.OrdenServicioDTO(" +
+            "os.ordenId, os.fechaIngreso, os.fechaEntrega, os.descripcionProblema, os.costoEstimado, " +
+            "os.estadoOrden, os.prioridad, " +
+            "v.vehiculoId, v.placa, v.marca, v.modelo, v.year, v.color, " +
+            "t.tecnicoId, t.nombres, t.apellidos, t.especialidad) " +
+            "FROM OrdenServicio os JOIN os.vehiculo v LEFT JOIN os.tecnico t " +
+            "WHERE v.vehiculoId = :vehiculoId " +
+            "ORDER BY os.fechaIngreso DESC, os.ordenId DESC")
+    Slice<OrdenServicioDTO> findPaginaHistorialPorVehiculo(@Param("vehiculoId") Long vehiculoId, Pageable pageable);
+
+    @Query("SELECT new com.example.autofixpro.dto.OrdenServicioDTO(" +
+            "os.ordenId, os.fechaIngreso, os.fechaEntrega, os.descripcionProblema, os.costoEstimado, " +
+            "os.estadoOrden, os.prioridad, " +
+            "v.vehiculoId, v.placa, v.marca, v.modelo, v.year, v.color, " +
+            "t.tecnicoId, t.nombres, t.apellidos, t.especialidad) " +
+            "FROM OrdenServicio os JOIN os.vehiculo v LEFT JOIN os.tecnico t " +
+            "WHERE v.placa = :placa " +
+            "ORDER BY os.fechaIngreso DESC, os.ordenId DESC")
+    Slice<OrdenServicioDTO> findPaginaHistorialPorPlaca(@Param("placa") String placa, Pageable pageable);
+
+    // Métricas del dashboard: conteo agrupado por estado, prioridad y técnico en una sola consulta
+    @Query("SELECT os.estadoOrden, os.prioridad, t.tecnicoId, COUNT(os) FROM OrdenServicio os " +
+            "LEFT JOIN os.tecnico t " +
+            "GROUP BY os.estadoOrden, os.prioridad, t.tecnicoId")
+    List<Object[]> contarAgrupadoPorEstadoPrioridadTecnico();
+
+    // Cola de trabajo: órdenes pendientes con su técnico y la suma de minutos estimados de sus servicios
+    @Query("SELECT os.ordenId, os.prioridad, os.fechaIngreso, t.tecnicoId, t.especialidad, SUM(s.tiempoEstimado) " +
+            "FROM OrdenServicio os LEFT JOIN os.tecnico t LEFT JOIN os.servicios s " +
+            "WHERE os.estadoOrden = :estado " +
+            "GROUP BY os.ordenId, os.prioridad, os.fechaIngreso, t.tecnicoId, t.especialidad")
+    List<Object[]> findPendientesParaCola(@Param("estado") EstadoOrden estado);
+
+    // Bloquea la fila (SELECT ... FOR UPDATE) para que dos técnicos no tomen la misma orden
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT os FROM OrdenServicio os WHERE os.ordenId = :ordenId")
+    Optional<OrdenServicio> findByIdParaActualizar(@Param("ordenId") Long ordenId);
+
+    // Órdenes de un cambio de estado en lote, con vehículo, cliente y técnico para las notificaciones.
+    // Ordenadas por ID, como los UPDATE del flush, para que dos lotes concurrentes tomen las filas en el mismo orden.
+    @Query("SELECT os FROM OrdenServicio os LEFT JOIN FETCH os.vehiculo v LEFT JOIN FETCH v.cliente " +
+           "LEFT JOIN FETCH os.tecnico WHERE os.ordenId IN :ordenIds ORDER BY os.ordenId")
+    List<OrdenServicio> findParaLote(@Param("ordenIds") Collection<Long> ordenIds);
+
+    // Versión confirmada de la orden, para informar al cliente en un conflicto de concurrencia
+    @Query("SELECT os.version FROM OrdenServicio os WHERE os.ordenId = :ordenId")
+    Optional<Long> findVersion(@Param("ordenId") Long ordenId);
+
+    // Valores de la orden que determinan su grupo en reporte_diario, tal como están guardados.
+    // Sin auto-flush: si la entidad fue modificada en la transacción, se leen los valores anteriores.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT os.fechaIngreso, os.estadoOrden, os.prioridad, t.tecnicoId, os.costoEstimado " +
+            "FROM OrdenServicio os LEFT JOIN os.tecnico t WHERE os.ordenId = :ordenId")
+    List<Object[]> findDatosReporte(@Param("ordenId") Long ordenId);
+
+    // Inicio del historial, para reconstruir los acumulados diarios
+    @Query("SELECT MIN(os.fechaIngreso) FROM OrdenServicio os")
+    LocalDateTime findPrimeraFechaIngreso();
+}
@@ -0,0 +1,30 @@
+package com.example.autofixpro.dao;
+
+import com.example.autofixpro.entity.ReporteDiario;
+import com.example.autofixpro.enumeration.EstadoOrden;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Acumulados diarios de órdenes para los reportes (CU06).
+ * Las actualizaciones incrementales y la reconstrucción se hacen por JDBC (ver ReporteDiarioDAOCustom).
+ */
+@Repository
+public interface ReporteDiarioDAO extends JpaRepository<ReporteDiario, Long>, ReporteDiarioDAOCustom {
+
+    // Todos los grupos con órdenes del rango; el servicio los agrega por estado, prioridad, técnico y día
+    @Query("SELECT r FROM ReporteDiario r WHERE r.fecha BETWEEN :desde AND :hasta AND r.cantidad > 0")
+    List<ReporteDiario> findByRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    // Equivalente a OrdenServicioDAO.countByEstadoAndFecha, resuelto sobre los acumulados
+    @Query("SELECT COALESCE(SUM(r.cantidad), 0) FROM ReporteDiario r " +
+            "WHERE r.estadoOrden = :estado AND r.fecha BETWEEN :desde AND :hasta")
+    Long sumarCantidadPorEstado(@Param("estado") EstadoOrden estado,
+                                @Param("desde") LocalDate desde,
+                                @Param("hasta") LocalDate hasta);
+}
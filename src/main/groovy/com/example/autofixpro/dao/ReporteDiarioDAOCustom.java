@@ -0,0 +1,26 @@
+package com.example.autofixpro.dao;
+
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+
+import java.time.LocalDate;
+
+/**
+ * Operaciones de ReporteDiarioDAO implementadas con JDBC en lugar de JPA.
+ */
+public interface ReporteDiarioDAOCustom {
+
+    /**
+     * Suma (o resta) una orden y su costo al acumulado de un grupo, creando la fila si no existe.
+     * Es un único INSERT ... ON DUPLICATE KEY UPDATE en la transacción actual.
+     * @param tecnicoId El técnico del grupo, o null si la orden no tiene técnico.
+     */
+    void acumular(LocalDate fecha, EstadoOrden estado, Prioridad prioridad, Long tecnicoId,
+                  long cantidad, double costo);
+
+    /**
+     * Recalcula los acumulados de los días [desde, hasta) directamente desde ordenes_servicio.
+     * @return El número de grupos insertados.
+     */
+    int recalcularRango(LocalDate desde, LocalDate hasta);
+}
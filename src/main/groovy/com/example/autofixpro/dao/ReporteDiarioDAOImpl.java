@@ -0,0 +1,60 @@
+package com.example.autofixpro.dao;
+
+import com.example.autofixpro.entity.ReporteDiario;
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * Implementación JDBC de ReporteDiarioDAOCustom.
+ * JdbcTemplate participa en la transacción JPA activa, por lo que los acumulados
+ * se confirman o se revierten junto con la orden de servicio.
+ */
+public class ReporteDiarioDAOImpl implements ReporteDiarioDAOCustom {
+
+    private static final String UPSERT_ACUMULADO =
+            "INSERT INTO reporte_diario (fecha, estado_orden, prioridad, tecnico_id, cantidad, costo_estimado_total) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad), " +
+            "costo_estimado_total = costo_estimado_total + VALUES(costo_estimado_total)";
+
+    private static final String DELETE_RANGO =
+            "DELETE FROM reporte_diario WHERE fecha >= ? AND fecha < ?";
+
+    private static final String INSERT_DESDE_ORDENES =
+            "INSERT INTO reporte_diario (fecha, estado_orden, prioridad, tecnico_id, cantidad, costo_estimado_total) " +
+            "SELECT DATE(fecha_ingreso), estado_orden, prioridad, COALESCE(tecnico_id, " + ReporteDiario.SIN_TECNICO + "), " +
+            "COUNT(*), COALESCE(SUM(costo_estimado), 0) " +
+            "FROM ordenes_servicio WHERE fecha_ingreso >= ? AND fecha_ingreso < ? " +
+            "GROUP BY DATE(fecha_ingreso), estado_orden, prioridad, COALESCE(tecnico_id, " + ReporteDiario.SIN_TECNICO + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReporteDiarioDAOImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void acumular(LocalDate fecha, EstadoOrden estado, Prioridad prioridad, Long tecnicoId,
+                         long cantidad, double costo) {
+        jdbcTemplate.update(UPSERT_ACUMULADO,
+                Date.valueOf(fecha),
+                estado.name(),
+                prioridad.name(),
+                tecnicoId != null ? tecnicoId : ReporteDiario.SIN_TECNICO,
+                cantidad,
+                costo);
+    }
+
+    @Override
+    public int recalcularRango(LocalDate desde, LocalDate hasta) {
+        jdbcTemplate.update(DELETE_RANGO, Date.valueOf(desde), Date.valueOf(hasta));
+        // El filtro usa el índice idx_orden_fecha_ingreso_id de ordenes_servicio
+        return jdbcTemplate.update(INSERT_DESDE_ORDENES,
+                Timestamp.valueOf(desde.atStartOfDay()), Timestamp.valueOf(hasta.atStartOfDay()));
+    }
+}
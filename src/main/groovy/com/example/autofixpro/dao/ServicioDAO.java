@@ -0,0 +1,22 @@
+package com.example.autofixpro.dao;
+
+import com.example.autofixpro.dto.ServicioDTO;
+import com.example.autofixpro.entity.Servicio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ServicioDAO extends JpaRepository<Servicio, Long> {
+
+    // Historial de servicios (CU09): servicios de varias órdenes en una sola consulta
+    @Query("SELECT new com.example.autofixpro.dto.ServicioDTO(" +
+            "s.servicioId, s.ordenServicio.ordenId, s.nombre, s.descripcion, s.precio, s.tiempoEstimado, s.categoria) " +
+            "FROM Servicio s WHERE s.ordenServicio.ordenId IN :ordenIds " +
+            "ORDER BY s.servicioId")
+    List<ServicioDTO> findPorOrdenes(@Param("ordenIds") Collection<Long> ordenIds);
+}
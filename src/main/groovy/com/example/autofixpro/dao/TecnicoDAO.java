@@ -1,23 +1,48 @@
 package com.example.autofixpro.dao;
 
 import com.example.autofixpro.entity.Tecnico;
+import com.example.autofixpro.enumeration.EstadoOrden;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TecnicoDAO extends JpaRepository<Tecnico, Long> {
 
+    // Región de caché de resultados de las consultas de técnicos (ver ehcache.xml)
+    String REGION_CONSULTAS = "consultas.tecnicos";
+
     Optional<Tecnico> findByDni(String dni);
 
+    // Consultas de referencia con caché de resultados; Hibernate las invalida al escribir en tecnicos
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_CONSULTAS)
+    })
     List<Tecnico> findByEspecialidad(String especialidad);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_CONSULTAS)
+    })
     List<Tecnico> findByEstadoActivo(Boolean estadoActivo);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_CONSULTAS)
+    })
+    @Override
+    List<Tecnico> findAll();
+
+    // Sin caché de resultados: depende de ordenes_servicio, que cambia a cada momento
     @Query("SELECT t FROM Tecnico t WHERE t.estadoActivo = true " +
             "AND SIZE(t.ordenesAsignadas) < 5")
     List<Tecnico> findTecnicosDisponibles();
@@ -26,4 +51,11 @@ public interface TecnicoDAO extends JpaRepository<Tecnico, Long> {
     @Query("SELECT t FROM Tecnico t LEFT JOIN FETCH t.ordenesAsignadas " +
             "WHERE t.tecnicoId = :tecnicoId AND t.estadoActivo = true")
     Optional<Tecnico> findByIdWithOrdenes(@Param("tecnicoId") Long tecnicoId);
-}
\ No newline at end of file
+
+    // Carga de cada técnico activo: [tecnicoId, especialidad, órdenes abiertas], para TecnicoLoadIndex
+    @Query("SELECT t.tecnicoId, t.especialidad, COUNT(o) FROM Tecnico t " +
+            "LEFT JOIN t.ordenesAsignadas o ON o.estadoOrden NOT IN :estadosCerrados " +
+            "WHERE t.estadoActivo = true " +
+            "GROUP BY t.tecnicoId, t.especialidad")
+    List<Object[]> contarOrdenesAbiertasPorTecnico(@Param("estadosCerrados") Collection<EstadoOrden> estadosCerrados);
+}
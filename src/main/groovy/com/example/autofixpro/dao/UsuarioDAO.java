@@ -1,7 +1,10 @@
 package com.example.autofixpro.dao;
 
+import com.example.autofixpro.dto.UsuarioPrincipal;
 import com.example.autofixpro.entity.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -16,4 +19,10 @@ public interface UsuarioDAO extends JpaRepository<Usuario, Long> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    // Identidad compacta del usuario y su cliente asociado en una sola consulta
+    @Query("SELECT new com.example.autofixpro.dto.UsuarioPrincipal(u.id, u.username, u.password, u.nombre, " +
+            "u.email, u.role, u.activo, c.clienteId) " +
+            "FROM Usuario u LEFT JOIN Cliente c ON c.usuario = u WHERE u.username = :username")
+    Optional<UsuarioPrincipal> findPrincipalByUsername(@Param("username") String username);
 }
@@ -21,13 +21,7 @@ public interface VehiculoDAO extends JpaRepository<Vehiculo, Long> {
     @Query("SELECT v FROM Vehiculo v WHERE v.year >= :yearMinimo")
     List<Vehiculo> findByAñoGreaterThanEqual(@Param("yearMinimo") String yearMinimo);
 
-    // Para el caso de uso CU08: Consultar estado del vehículo
-    @Query("SELECT v FROM Vehiculo v LEFT JOIN FETCH v.ordenesServicio os " +
-            "LEFT JOIN FETCH os.estadosVehiculo WHERE v.placa = :placa")
-    Optional<Vehiculo> findByPlacaWithOrdenesAndEstados(@Param("placa") String placa);
-
-    // Para obtener historial de servicios (CU09)
-    @Query("SELECT v FROM Vehiculo v LEFT JOIN FETCH v.ordenesServicio os " +
-            "LEFT JOIN FETCH os.servicios WHERE v.vehiculoId = :vehiculoId")
-    Optional<Vehiculo> findByIdWithHistorialServicios(@Param("vehiculoId") Long vehiculoId);
-}
\ No newline at end of file
+    // Índice de placas de la consulta pública: solo ID y placa de todos los vehículos
+    @Query("SELECT v.vehiculoId, v.placa FROM Vehiculo v")
+    List<Object[]> findIdsYPlacas();
+}
@@ -74,6 +74,18 @@ public class ClienteDTO {
         }
     }
 
+    /**
+     * Constructor usado por la proyección JPQL de ClienteDAO (sin usuario ni vehículos).
+     */
+    public ClienteDTO(Long clienteId, String nombres, String apellidos, String dni, String telefono, String email) {
+        this.clienteId = clienteId;
+        this.nombres = nombres;
+        this.apellidos = apellidos;
+        this.dni = dni;
+        this.telefono = telefono;
+        this.email = email;
+    }
+
     /**
      * Obtiene el nombre completo del cliente.
      * @return Nombres y apellidos concatenados.
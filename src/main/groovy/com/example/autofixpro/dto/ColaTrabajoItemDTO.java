@@ -0,0 +1,39 @@
+package com.example.autofixpro.dto;
+
+import com.example.autofixpro.enumeration.Prioridad;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO inmutable con una orden pendiente de la cola de trabajo del taller.
+ * El puntaje se calcula al momento de la consulta: a mayor puntaje, antes se atiende.
+ */
+public class ColaTrabajoItemDTO {
+    private final Long ordenId;
+    private final Long tecnicoId;
+    private final String especialidad;
+    private final Prioridad prioridad;
+    private final LocalDateTime fechaIngreso;
+    private final int minutosEstimados;
+    private final double puntaje;
+
+    public ColaTrabajoItemDTO(Long ordenId, Long tecnicoId, String especialidad, Prioridad prioridad,
+                              LocalDateTime fechaIngreso, int minutosEstimados, double puntaje) {
+        this.ordenId = ordenId;
+        this.tecnicoId = tecnicoId;
+        this.especialidad = especialidad;
+        this.prioridad = prioridad;
+        this.fechaIngreso = fechaIngreso;
+        this.minutosEstimados = minutosEstimados;
+        this.puntaje = puntaje;
+    }
+
+    // Getters
+    public Long getOrdenId() { return ordenId; }
+    public Long getTecnicoId() { return tecnicoId; }
+    public String getEspecialidad() { return especialidad; }
+    public Prioridad getPrioridad() { return prioridad; }
+    public LocalDateTime getFechaIngreso() { return fechaIngreso; }
+    public int getMinutosEstimados() { return minutosEstimados; }
+    public double getPuntaje() { return puntaje; }
+}
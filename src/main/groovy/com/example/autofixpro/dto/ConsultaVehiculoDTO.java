@@ -0,0 +1,40 @@
+package com.example.autofixpro.dto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO inmutable con el resumen de estado de un vehículo que muestra la consulta pública por placa.
+ * Lo guarda en caché PlacaIndex, por lo que no contiene entidades JPA.
+ */
+public class ConsultaVehiculoDTO {
+    private final Long vehiculoId;
+    private final String placa;
+    private final String marca;
+    private final String modelo;
+    private final String year;
+    private final List<OrdenServicioDTO> ordenes;
+    private final Map<Long, EstadoVehiculoDTO> progreso;
+
+    public ConsultaVehiculoDTO(Long vehiculoId, String placa, String marca, String modelo, String year,
+                               List<OrdenServicioDTO> ordenes, Map<Long, EstadoVehiculoDTO> progreso) {
+        this.vehiculoId = vehiculoId;
+        this.placa = placa;
+        this.marca = marca;
+        this.modelo = modelo;
+        this.year = year;
+        this.ordenes = Collections.unmodifiableList(ordenes);
+        this.progreso = Collections.unmodifiableMap(progreso);
+    }
+
+    // Getters
+    public Long getVehiculoId() { return vehiculoId; }
+    public String getPlaca() { return placa; }
+    public String getMarca() { return marca; }
+    public String getModelo() { return modelo; }
+    public String getYear() { return year; }
+    public List<OrdenServicioDTO> getOrdenes() { return ordenes; }
+    // Último estado registrado de cada orden, por ordenId
+    public Map<Long, EstadoVehiculoDTO> getProgreso() { return progreso; }
+}
@@ -0,0 +1,44 @@
+package com.example.autofixpro.dto;
+
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * DTO inmutable con las métricas de órdenes que muestra el dashboard administrativo.
+ * Es una foto (snapshot) de los contadores mantenidos en memoria por DashboardMetricsService.
+ */
+public class DashboardMetricasDTO {
+    private final long totalOrdenes;
+    private final long ordenesActivas;
+    private final long serviciosCompletados;
+    private final Map<EstadoOrden, Long> ordenesPorEstado;
+    private final Map<Prioridad, Long> ordenesPorPrioridad;
+    private final Map<Long, Long> ordenesActivasPorTecnico;
+    private final LocalDateTime generadoEn;
+
+    public DashboardMetricasDTO(long totalOrdenes, long ordenesActivas, long serviciosCompletados,
+                                Map<EstadoOrden, Long> ordenesPorEstado,
+                                Map<Prioridad, Long> ordenesPorPrioridad,
+                                Map<Long, Long> ordenesActivasPorTecnico) {
+        this.totalOrdenes = totalOrdenes;
+        this.ordenesActivas = ordenesActivas;
+        this.serviciosCompletados = serviciosCompletados;
+        this.ordenesPorEstado = Collections.unmodifiableMap(ordenesPorEstado);
+        this.ordenesPorPrioridad = Collections.unmodifiableMap(ordenesPorPrioridad);
+        this.ordenesActivasPorTecnico = Collections.unmodifiableMap(ordenesActivasPorTecnico);
+        this.generadoEn = LocalDateTime.now();
+    }
+
+    // Getters
+    public long getTotalOrdenes() { return totalOrdenes; }
+    public long getOrdenesActivas() { return ordenesActivas; }
+    public long getServiciosCompletados() { return serviciosCompletados; }
+    public Map<EstadoOrden, Long> getOrdenesPorEstado() { return ordenesPorEstado; }
+    public Map<Prioridad, Long> getOrdenesPorPrioridad() { return ordenesPorPrioridad; }
+    public Map<Long, Long> getOrdenesActivasPorTecnico() { return ordenesActivasPorTecnico; }
+    public LocalDateTime getGeneradoEn() { return generadoEn; }
+}
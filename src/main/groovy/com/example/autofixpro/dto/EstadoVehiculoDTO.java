@@ -0,0 +1,45 @@
+package com.example.autofixpro.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO compacto para la línea de tiempo de estados de una orden de servicio.
+ * Se obtiene mediante proyección JPQL desde EstadoVehiculoDAO, sin cargar la orden ni el vehículo.
+ */
+public class EstadoVehiculoDTO {
+    private Long ordenId;
+    private String estado;
+    private String descripcionEstado;
+    private LocalDateTime fechaActualizacion;
+    private Integer porcentajeAvance;
+    private String observaciones;
+
+    /**
+     * Constructor para el resumen de estado (columnas cubiertas por el índice, sin observaciones).
+     */
+    public EstadoVehiculoDTO(Long ordenId, String estado, String descripcionEstado,
+                             LocalDateTime fechaActualizacion, Integer porcentajeAvance) {
+        this.ordenId = ordenId;
+        this.estado = estado;
+        this.descripcionEstado = descripcionEstado;
+        this.fechaActualizacion = fechaActualizacion;
+        this.porcentajeAvance = porcentajeAvance;
+    }
+
+    /**
+     * Constructor para la línea de tiempo completa, incluyendo observaciones.
+     */
+    public EstadoVehiculoDTO(Long ordenId, String estado, String descripcionEstado,
+                             LocalDateTime fechaActualizacion, Integer porcentajeAvance, String observaciones) {
+        this(ordenId, estado, descripcionEstado, fechaActualizacion, porcentajeAvance);
+        this.observaciones = observaciones;
+    }
+
+    // Getters
+    public Long getOrdenId() { return ordenId; }
+    public String getEstado() { return estado; }
+    public String getDescripcionEstado() { return descripcionEstado; }
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public Integer getPorcentajeAvance() { return porcentajeAvance; }
+    public String getObservaciones() { return observaciones; }
+}
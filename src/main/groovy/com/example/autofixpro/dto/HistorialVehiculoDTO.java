@@ -0,0 +1,90 @@
+package com.example.autofixpro.dto;
+
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DTO con el historial de un vehículo (CU08/CU09): datos del vehículo y una página de sus órdenes,
+ * cada una con su línea de tiempo de estados y sus servicios.
+ * Lo arma HistorialVehiculoLoader con un número fijo de consultas, sin entidades JPA.
+ */
+public class HistorialVehiculoDTO {
+    private final Long vehiculoId;
+    private final String placa;
+    private final String marca;
+    private final String modelo;
+    private final String year;
+    private final String color;
+    private final List<OrdenHistorial> ordenes;
+    private final int pagina;
+    private final boolean hayMas;
+
+    /**
+     * Orden del historial con sus estados (del más antiguo al más reciente) y sus servicios.
+     */
+    public static class OrdenHistorial {
+        private final Long ordenId;
+        private final LocalDateTime fechaIngreso;
+        private final LocalDateTime fechaEntrega;
+        private final String descripcionProblema;
+        private final Double costoEstimado;
+        private final EstadoOrden estadoOrden;
+        private final Prioridad prioridad;
+        private final OrdenServicioDTO.TecnicoInfo tecnico;
+        private final List<EstadoVehiculoDTO> estados;
+        private final List<ServicioDTO> servicios;
+
+        public OrdenHistorial(OrdenServicioDTO orden, List<EstadoVehiculoDTO> estados, List<ServicioDTO> servicios) {
+            this.ordenId = orden.getOrdenId();
+            this.fechaIngreso = orden.getFechaIngreso();
+            this.fechaEntrega = orden.getFechaEntrega();
+            this.descripcionProblema = orden.getDescripcionProblema();
+            this.costoEstimado = orden.getCostoEstimado();
+            this.estadoOrden = orden.getEstadoOrden();
+            this.prioridad = orden.getPrioridad();
+            this.tecnico = orden.getTecnico();
+            this.estados = Collections.unmodifiableList(estados);
+            this.servicios = Collections.unmodifiableList(servicios);
+        }
+
+        // Getters
+        public Long getOrdenId() { return ordenId; }
+        public LocalDateTime getFechaIngreso() { return fechaIngreso; }
+        public LocalDateTime getFechaEntrega() { return fechaEntrega; }
+        public String getDescripcionProblema() { return descripcionProblema; }
+        public Double getCostoEstimado() { return costoEstimado; }
+        public EstadoOrden getEstadoOrden() { return estadoOrden; }
+        public Prioridad getPrioridad() { return prioridad; }
+        public OrdenServicioDTO.TecnicoInfo getTecnico() { return tecnico; }
+        public List<EstadoVehiculoDTO> getEstados() { return estados; }
+        public List<ServicioDTO> getServicios() { return servicios; }
+    }
+
+    public HistorialVehiculoDTO(Long vehiculoId, String placa, String marca, String modelo, String year, String color,
+                                List<OrdenHistorial> ordenes, int pagina, boolean hayMas) {
+        this.vehiculoId = vehiculoId;
+        this.placa = placa;
+        this.marca = marca;
+        this.modelo = modelo;
+        this.year = year;
+        this.color = color;
+        this.ordenes = Collections.unmodifiableList(ordenes);
+        this.pagina = pagina;
+        this.hayMas = hayMas;
+    }
+
+    // Getters
+    public Long getVehiculoId() { return vehiculoId; }
+    public String getPlaca() { return placa; }
+    public String getMarca() { return marca; }
+    public String getModelo() { return modelo; }
+    public String getYear() { return year; }
+    public String getColor() { return color; }
+    public List<OrdenHistorial> getOrdenes() { return ordenes; }
+    public int getPagina() { return pagina; }
+    public boolean isHayMas() { return hayMas; }
+}
@@ -109,6 +109,33 @@ public class OrdenServicioDTO {
         }
     }
 
+    /**
+     * Constructor plano usado por la proyección JPQL (SELECT new ...) de OrdenServicioDAO.
+     * Recibe las columnas de la orden, del vehículo y del técnico obtenidas en una sola consulta,
+     * sin cargar las entidades asociadas.
+     */
+    public OrdenServicioDTO(Long ordenId, LocalDateTime fechaIngreso, LocalDateTime fechaEntrega,
+                            String descripcionProblema, Double costoEstimado,
+                            EstadoOrden estadoOrden, Prioridad prioridad,
+                            Long vehiculoId, String placa, String marca, String modelo, String año, String color,
+                            Long tecnicoId, String tecnicoNombres, String tecnicoApellidos, String tecnicoEspecialidad) {
+        this.ordenId = ordenId;
+        this.fechaIngreso = fechaIngreso;
+        this.fechaEntrega = fechaEntrega;
+        this.descripcionProblema = descripcionProblema;
+        this.costoEstimado = costoEstimado;
+        this.estadoOrden = estadoOrden;
+        this.prioridad = prioridad;
+
+        // LEFT JOIN: el vehículo o el técnico pueden venir nulos
+        if (vehiculoId != null) {
+            this.vehiculo = new VehiculoInfo(vehiculoId, placa, marca, modelo, año, color);
+        }
+        if (tecnicoId != null) {
+            this.tecnico = new TecnicoInfo(tecnicoId, tecnicoNombres, tecnicoApellidos, tecnicoEspecialidad);
+        }
+    }
+
     // Getters
     public Long getOrdenId() { return ordenId; }
     public LocalDateTime getFechaIngreso() { return fechaIngreso; }
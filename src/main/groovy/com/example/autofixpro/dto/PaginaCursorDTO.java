@@ -0,0 +1,29 @@
+package com.example.autofixpro.dto;
+
+import java.util.List;
+
+/**
+ * DTO para respuestas paginadas por cursor (keyset pagination).
+ * El cliente envía el valor de siguienteCursor en la próxima petición para obtener la página siguiente.
+ *
+ * @param <T> El tipo de los elementos de la página.
+ */
+public class PaginaCursorDTO<T> {
+    private List<T> contenido;
+    private String siguienteCursor;
+    private boolean hayMas;
+    private int tamanio;
+
+    public PaginaCursorDTO(List<T> contenido, String siguienteCursor, boolean hayMas) {
+        this.contenido = contenido;
+        this.siguienteCursor = siguienteCursor;
+        this.hayMas = hayMas;
+        this.tamanio = contenido.size();
+    }
+
+    // Getters
+    public List<T> getContenido() { return contenido; }
+    public String getSiguienteCursor() { return siguienteCursor; }
+    public boolean isHayMas() { return hayMas; }
+    public int getTamanio() { return tamanio; }
+}
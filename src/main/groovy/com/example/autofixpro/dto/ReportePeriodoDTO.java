@@ -0,0 +1,54 @@
+package com.example.autofixpro.dto;
+
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * DTO inmutable con el reporte de órdenes de un rango de días (CU06),
+ * calculado a partir de los acumulados de reporte_diario.
+ * Los días se cuentan por fecha de ingreso de la orden; el estado es el actual.
+ */
+public class ReportePeriodoDTO {
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private final long totalOrdenes;
+    private final double costoEstimadoTotal;
+    private final Map<EstadoOrden, Long> ordenesPorEstado;
+    private final Map<Prioridad, Long> ordenesPorPrioridad;
+    private final Map<Long, Long> ordenesPorTecnico;
+    private final Map<LocalDate, Long> ordenesPorDia;
+    private final Map<LocalDate, Double> costoPorDia;
+
+    public ReportePeriodoDTO(LocalDate desde, LocalDate hasta, long totalOrdenes, double costoEstimadoTotal,
+                             Map<EstadoOrden, Long> ordenesPorEstado,
+                             Map<Prioridad, Long> ordenesPorPrioridad,
+                             Map<Long, Long> ordenesPorTecnico,
+                             Map<LocalDate, Long> ordenesPorDia,
+                             Map<LocalDate, Double> costoPorDia) {
+        this.desde = desde;
+        this.hasta = hasta;
+        this.totalOrdenes = totalOrdenes;
+        this.costoEstimadoTotal = costoEstimadoTotal;
+        this.ordenesPorEstado = Collections.unmodifiableMap(ordenesPorEstado);
+        this.ordenesPorPrioridad = Collections.unmodifiableMap(ordenesPorPrioridad);
+        this.ordenesPorTecnico = Collections.unmodifiableMap(ordenesPorTecnico);
+        this.ordenesPorDia = Collections.unmodifiableMap(ordenesPorDia);
+        this.costoPorDia = Collections.unmodifiableMap(costoPorDia);
+    }
+
+    // Getters
+    public LocalDate getDesde() { return desde; }
+    public LocalDate getHasta() { return hasta; }
+    public long getTotalOrdenes() { return totalOrdenes; }
+    public double getCostoEstimadoTotal() { return costoEstimadoTotal; }
+    public Map<EstadoOrden, Long> getOrdenesPorEstado() { return ordenesPorEstado; }
+    public Map<Prioridad, Long> getOrdenesPorPrioridad() { return ordenesPorPrioridad; }
+    // La clave 0 agrupa las órdenes sin técnico asignado
+    public Map<Long, Long> getOrdenesPorTecnico() { return ordenesPorTecnico; }
+    public Map<LocalDate, Long> getOrdenesPorDia() { return ordenesPorDia; }
+    public Map<LocalDate, Double> getCostoPorDia() { return costoPorDia; }
+}
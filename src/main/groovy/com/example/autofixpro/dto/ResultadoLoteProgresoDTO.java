@@ -0,0 +1,49 @@
+package com.example.autofixpro.dto;
+
+import com.example.autofixpro.enumeration.EstadoOrden;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de un cambio de estado en lote: las órdenes que cambiaron
+ * y las que se rechazaron, con el motivo de cada rechazo.
+ */
+public class ResultadoLoteProgresoDTO {
+    private final EstadoOrden nuevoEstado;
+    private final List<Long> aplicadas;
+    private final List<Rechazo> rechazadas;
+    private final int clientesNotificados;
+
+    /**
+     * Orden que no cambió de estado.
+     */
+    public static class Rechazo {
+        private final Long ordenId;
+        private final EstadoOrden estadoActual;
+        private final String motivo;
+
+        public Rechazo(Long ordenId, EstadoOrden estadoActual, String motivo) {
+            this.ordenId = ordenId;
+            this.estadoActual = estadoActual;
+            this.motivo = motivo;
+        }
+
+        public Long getOrdenId() { return ordenId; }
+        public EstadoOrden getEstadoActual() { return estadoActual; }
+        public String getMotivo() { return motivo; }
+    }
+
+    public ResultadoLoteProgresoDTO(EstadoOrden nuevoEstado, List<Long> aplicadas, List<Rechazo> rechazadas,
+                                    int clientesNotificados) {
+        this.nuevoEstado = nuevoEstado;
+        this.aplicadas = aplicadas;
+        this.rechazadas = rechazadas;
+        this.clientesNotificados = clientesNotificados;
+    }
+
+    // Getters
+    public EstadoOrden getNuevoEstado() { return nuevoEstado; }
+    public List<Long> getAplicadas() { return aplicadas; }
+    public List<Rechazo> getRechazadas() { return rechazadas; }
+    public int getClientesNotificados() { return clientesNotificados; }
+}
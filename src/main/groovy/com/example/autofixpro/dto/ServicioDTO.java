@@ -0,0 +1,37 @@
+package com.example.autofixpro.dto;
+
+import com.example.autofixpro.enumeration.Categoria;
+
+/**
+ * DTO compacto de un servicio realizado en una orden.
+ * Se obtiene mediante proyección JPQL desde ServicioDAO, sin cargar la orden.
+ */
+public class ServicioDTO {
+    private final Long servicioId;
+    private final Long ordenId;
+    private final String nombre;
+    private final String descripcion;
+    private final Double precio;
+    private final Integer tiempoEstimado;
+    private final Categoria categoria;
+
+    public ServicioDTO(Long servicioId, Long ordenId, String nombre, String descripcion, Double precio,
+                       Integer tiempoEstimado, Categoria categoria) {
+        this.servicioId = servicioId;
+        this.ordenId = ordenId;
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+        this.precio = precio;
+        this.tiempoEstimado = tiempoEstimado;
+        this.categoria = categoria;
+    }
+
+    // Getters
+    public Long getServicioId() { return servicioId; }
+    public Long getOrdenId() { return ordenId; }
+    public String getNombre() { return nombre; }
+    public String getDescripcion() { return descripcion; }
+    public Double getPrecio() { return precio; }
+    public Integer getTiempoEstimado() { return tiempoEstimado; }
+    public Categoria getCategoria() { return categoria; }
+}
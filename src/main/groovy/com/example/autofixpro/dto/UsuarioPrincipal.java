@@ -0,0 +1,43 @@
+package com.example.autofixpro.dto;
+
+import com.example.autofixpro.entity.Usuario;
+
+/**
+ * Datos inmutables de identidad de un usuario autenticado.
+ * Se guardan en UsuarioPrincipalCache para resolver el usuario de cada petición sin consultar la base de datos.
+ */
+public final class UsuarioPrincipal {
+    private final Long usuarioId;
+    private final String username;
+    private final String password; // hash, necesario para la autenticación por formulario
+    private final String nombre;
+    private final String email;
+    private final Usuario.Role role;
+    private final boolean activo;
+    private final Long clienteId; // null si el usuario no tiene cliente asociado
+
+    /**
+     * Constructor usado por la proyección JPQL de UsuarioDAO.
+     */
+    public UsuarioPrincipal(Long usuarioId, String username, String password, String nombre, String email,
+                            Usuario.Role role, Boolean activo, Long clienteId) {
+        this.usuarioId = usuarioId;
+        this.username = username;
+        this.password = password;
+        this.nombre = nombre;
+        this.email = email;
+        this.role = role;
+        this.activo = Boolean.TRUE.equals(activo);
+        this.clienteId = clienteId;
+    }
+
+    // Getters
+    public Long getUsuarioId() { return usuarioId; }
+    public String getUsername() { return username; }
+    public String getPassword() { return password; }
+    public String getNombre() { return nombre; }
+    public String getEmail() { return email; }
+    public Usuario.Role getRole() { return role; }
+    public boolean isActivo() { return activo; }
+    public Long getClienteId() { return clienteId; }
+}
@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "estados_vehiculo")
+@Table(name = "estados_vehiculo", indexes = {
+        // Índice de cobertura para la línea de tiempo por orden (últimos N estados por fecha)
+        @Index(name = "idx_estado_orden_fecha",
+               columnList = "orden_servicio_id, fecha_actualizacion, estado, porcentaje_avance, descripcion_estado")
+})
 public class EstadoVehiculo {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -5,7 +5,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    // Índice usado por los workers del outbox para reclamar pendientes
+    @Index(name = "idx_notif_estado_proximo", columnList = "estado_envio, proximo_intento"),
+    @Index(name = "idx_notif_orden", columnList = "orden_id")
+})
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,10 +37,25 @@ public class Notification {
     @Column
     private String canal; // EMAIL, SMS, PUSH
 
+    // Campos del outbox: reintentos y backoff
+    @Column
+    private Integer intentos = 0;
+
+    @Column
+    private LocalDateTime proximoIntento;
+
+    @Column(length = 500)
+    private String ultimoError;
+
+    // Orden relacionada, para poder cancelar recordatorios programados
+    @Column(name = "orden_id")
+    private Long ordenId;
+
     // Constructores
     public Notification() {
         this.fechaCreacion = LocalDateTime.now();
         this.estadoEnvio = "PENDIENTE";
+        this.proximoIntento = this.fechaCreacion;
     }
 
     public Notification(TipoNotificacion tipo, String mensaje, String destinatario) {
@@ -46,6 +65,11 @@ public class Notification {
         this.destinatario = destinatario;
     }
 
+    public Notification(TipoNotificacion tipo, String mensaje, String destinatario, String canal) {
+        this(tipo, mensaje, destinatario);
+        this.canal = canal;
+    }
+
     // Métodos de negocio
     public void marcarEnviado() {
         this.estadoEnvio = "ENVIADO";
@@ -56,6 +80,41 @@ public class Notification {
         this.estadoEnvio = "FALLIDO";
     }
 
+    /**
+     * Marca la notificación como reclamada por un worker hasta que vence el plazo indicado.
+     * Si el worker muere antes de terminar, otra instancia la volverá a reclamar al vencer.
+     */
+    public void marcarEnProceso(LocalDateTime vencimiento) {
+        this.estadoEnvio = "EN_PROCESO";
+        this.proximoIntento = vencimiento;
+    }
+
+    /**
+     * Registra un intento fallido y deja la notificación pendiente para un nuevo intento.
+     */
+    public void programarReintento(String error, LocalDateTime proximoIntento) {
+        this.intentos = getIntentos() + 1;
+        this.ultimoError = truncar(error);
+        this.estadoEnvio = "PENDIENTE";
+        this.proximoIntento = proximoIntento;
+    }
+
+    /**
+     * Registra el último intento fallido y descarta la notificación definitivamente.
+     */
+    public void marcarFallido(String error) {
+        this.intentos = getIntentos() + 1;
+        this.ultimoError = truncar(error);
+        marcarFallido();
+    }
+
+    private static String truncar(String error) {
+        if (error == null || error.length() <= 500) {
+            return error;
+        }
+        return error.substring(0, 500);
+    }
+
     // Getters y Setters
     public Long getNotificationId() { return notificationId; }
     public void setNotificationId(Long notificationId) { this.notificationId = notificationId; }
@@ -80,4 +139,16 @@ public class Notification {
 
     public String getCanal() { return canal; }
     public void setCanal(String canal) { this.canal = canal; }
+
+    public Integer getIntentos() { return intentos != null ? intentos : 0; }
+    public void setIntentos(Integer intentos) { this.intentos = intentos; }
+
+    public LocalDateTime getProximoIntento() { return proximoIntento; }
+    public void setProximoIntento(LocalDateTime proximoIntento) { this.proximoIntento = proximoIntento; }
+
+    public String getUltimoError() { return ultimoError; }
+    public void setUltimoError(String ultimoError) { this.ultimoError = ultimoError; }
+
+    public Long getOrdenId() { return ordenId; }
+    public void setOrdenId(Long ordenId) { this.ordenId = ordenId; }
 }
\ No newline at end of file
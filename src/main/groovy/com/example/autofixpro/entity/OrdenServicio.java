@@ -5,16 +5,28 @@ import com.example.autofixpro.enumeration.Prioridad;
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "ordenes_servicio")
+@Table(name = "ordenes_servicio", indexes = {
+        // Índice para la paginación por cursor (ORDER BY fechaIngreso DESC, ordenId DESC)
+        @Index(name = "idx_orden_fecha_ingreso_id", columnList = "fecha_ingreso, orden_id"),
+        @Index(name = "idx_orden_estado_fecha", columnList = "estado_orden, fecha_ingreso")
+})
+// Los UPDATE incluyen solo las columnas modificadas: un cambio de costo no reescribe el estado ni el técnico
+@DynamicUpdate
 public class OrdenServicio {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long ordenId;
 
+    // Control de concurrencia optimista: cada UPDATE exige la versión leída y la incrementa
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @Column(nullable = false)
     private LocalDateTime fechaIngreso;
 
@@ -84,6 +96,9 @@ public class OrdenServicio {
     public Long getOrdenId() { return ordenId; }
     public void setOrdenId(Long ordenId) { this.ordenId = ordenId; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public LocalDateTime getFechaIngreso() { return fechaIngreso; }
     public void setFechaIngreso(LocalDateTime fechaIngreso) { this.fechaIngreso = fechaIngreso; }
 
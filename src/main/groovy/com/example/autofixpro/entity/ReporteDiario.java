@@ -0,0 +1,70 @@
+package com.example.autofixpro.entity;
+
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Acumulado diario de órdenes de servicio para los reportes (CU06).
+ * Una fila por día de ingreso × estado actual × prioridad × técnico, con el número de órdenes
+ * y la suma de su costo estimado. Lo mantiene ReporteDiarioService.
+ */
+@Entity
+@Table(name = "reporte_diario", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_reporte_diario_grupo", columnNames = {"fecha", "estado_orden", "prioridad", "tecnico_id"})
+})
+public class ReporteDiario {
+
+    // tecnico_id es parte de la clave única; MySQL no compara NULL en índices únicos, así que "sin técnico" es 0
+    public static final long SIN_TECNICO = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long reporteId;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_orden", nullable = false)
+    private EstadoOrden estadoOrden;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Prioridad prioridad;
+
+    @Column(name = "tecnico_id", nullable = false)
+    private Long tecnicoId;
+
+    @Column(nullable = false)
+    private Long cantidad;
+
+    @Column(nullable = false)
+    private Double costoEstimadoTotal;
+
+    // Constructores
+    public ReporteDiario() {}
+
+    // Getters y Setters
+    public Long getReporteId() { return reporteId; }
+    public void setReporteId(Long reporteId) { this.reporteId = reporteId; }
+
+    public LocalDate getFecha() { return fecha; }
+    public void setFecha(LocalDate fecha) { this.fecha = fecha; }
+
+    public EstadoOrden getEstadoOrden() { return estadoOrden; }
+    public void setEstadoOrden(EstadoOrden estadoOrden) { this.estadoOrden = estadoOrden; }
+
+    public Prioridad getPrioridad() { return prioridad; }
+    public void setPrioridad(Prioridad prioridad) { this.prioridad = prioridad; }
+
+    public Long getTecnicoId() { return tecnicoId; }
+    public void setTecnicoId(Long tecnicoId) { this.tecnicoId = tecnicoId; }
+
+    public Long getCantidad() { return cantidad; }
+    public void setCantidad(Long cantidad) { this.cantidad = cantidad; }
+
+    public Double getCostoEstimadoTotal() { return costoEstimadoTotal; }
+    public void setCostoEstimadoTotal(Double costoEstimadoTotal) { this.costoEstimadoTotal = costoEstimadoTotal; }
+}
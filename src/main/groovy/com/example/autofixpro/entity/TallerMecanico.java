@@ -1,10 +1,14 @@
 package com.example.autofixpro.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 
 @Entity
 @Table(name = "talleres_mecanicos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "talleres")
 public class TallerMecanico {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -2,10 +2,14 @@ package com.example.autofixpro.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 
 @Entity
 @Table(name = "tecnicos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tecnicos")
 public class Tecnico {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,50 @@
+package com.example.autofixpro.enumeration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Destinos WebSocket de difusión para el personal del taller, uno por rol.
+ * Una alerta se publica una sola vez en el destino y el broker la entrega a todas las sesiones
+ * suscritas; WebSocketSecurityConfig solo permite suscribirse a los roles indicados.
+ */
+public enum CanalStaff {
+    ADMIN("/topic/staff/admin", "ADMIN"),
+    RECEPCION("/topic/staff/recepcion", "ADMIN", "RECEPCIONISTA"),
+    TECNICO("/topic/staff/tecnico", "ADMIN", "TECNICO");
+
+    private final String destino;
+    private final String[] roles;
+
+    CanalStaff(String destino, String... roles) {
+        this.destino = destino;
+        this.roles = roles;
+    }
+
+    public String getDestino() {
+        return destino;
+    }
+
+    // Roles (sin el prefijo ROLE_) que pueden suscribirse al destino
+    public String[] getRoles() {
+        return roles.clone();
+    }
+
+    /**
+     * Canales a los que puede suscribirse un usuario con las autoridades indicadas.
+     * @param autoridades Autoridades de Spring Security (ej. "ROLE_ADMIN").
+     */
+    public static List<CanalStaff> permitidosPara(Collection<String> autoridades) {
+        List<CanalStaff> canales = new ArrayList<>();
+        for (CanalStaff canal : values()) {
+            for (String rol : canal.roles) {
+                if (autoridades.contains("ROLE_" + rol)) {
+                    canales.add(canal);
+                    break;
+                }
+            }
+        }
+        return canales;
+    }
+}
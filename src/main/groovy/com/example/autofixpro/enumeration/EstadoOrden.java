@@ -1,5 +1,8 @@
 package com.example.autofixpro.enumeration;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum EstadoOrden {
     RECIBIDO("Recibido"),
     EN_DIAGNOSTICO("En Diagnostico"),
@@ -17,5 +20,22 @@ public enum EstadoOrden {
         return descripcion;
     }
 
+    /**
+     * Estados a los que puede pasar una orden desde este estado.
+     * ENTREGADO y CANCELADO son finales.
+     */
+    public Set<EstadoOrden> getSiguientesPermitidos() {
+        return switch (this) {
+            case RECIBIDO -> EnumSet.of(EN_DIAGNOSTICO, EN_REPARACION, CANCELADO);
+            case EN_DIAGNOSTICO -> EnumSet.of(EN_REPARACION, CANCELADO);
+            case EN_REPARACION -> EnumSet.of(EN_PRUEBAS, COMPLETADO, CANCELADO);
+            case EN_PRUEBAS -> EnumSet.of(EN_REPARACION, COMPLETADO, CANCELADO);
+            case COMPLETADO -> EnumSet.of(ENTREGADO);
+            case ENTREGADO, CANCELADO -> EnumSet.noneOf(EstadoOrden.class);
+        };
+    }
 
+    public boolean puedeCambiarA(EstadoOrden destino) {
+        return getSiguientesPermitidos().contains(destino);
+    }
 }
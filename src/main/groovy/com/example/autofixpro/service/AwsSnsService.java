@@ -1,28 +1,36 @@
 package com.example.autofixpro.service;
 
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.sns.SnsClient;
 import software.amazon.awssdk.services.sns.model.*;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * Servicio para interactuar con AWS SNS (Simple Notification Service).
  * Permite enviar notificaciones SMS y publicar mensajes en topics de SNS.
- * Las operaciones son asíncronas y se ejecutan en un hilo separado.
+ * Las operaciones son asíncronas. Los SMS pasan por DespachadorSms; el resto se ejecuta en un hilo separado.
  */
 @Service
 public class AwsSnsService {
 
     private static final Logger logger = LoggerFactory.getLogger(AwsSnsService.class);
 
+    // Proxy: el cliente se construye en la primera llamada a SNS (ver AwsConfig)
     @Autowired
+    @Lazy
     private SnsClient snsClient;
 
+    @Autowired
+    private DespachadorSms despachadorSms;
+
     @Value("${aws.sns.enabled:true}")
     private boolean snsEnabled;
 
@@ -37,32 +45,37 @@ public class AwsSnsService {
      * @param mensaje        El contenido del mensaje.
      * @return Un CompletableFuture con el ID del mensaje de SNS o un ID simulado.
      */
+    @Timed(value = "autofixpro.sns.publicacion", extraTags = {"operacion", "sms"}, histogram = true)
     public CompletableFuture<String> enviarNotificacionSMS(String numeroTelefono, String mensaje) {
+        return enviarNotificacionSMS(numeroTelefono, null, mensaje);
+    }
+
+    /**
+     * Envía una notificación SMS sobre una orden de servicio.
+     * Los mensajes de una misma orden al mismo teléfono se coalescen; los de órdenes distintas no.
+     *
+     * @param numeroTelefono El número de teléfono del destinatario.
+     * @param ordenId        La orden a la que se refiere el mensaje, o null.
+     * @param mensaje        El contenido del mensaje.
+     * @return Un CompletableFuture con el ID del mensaje de SNS o un ID simulado.
+     */
+    @Timed(value = "autofixpro.sns.publicacion", extraTags = {"operacion", "sms"}, histogram = true)
+    public CompletableFuture<String> enviarNotificacionSMS(String numeroTelefono, Long ordenId, String mensaje) {
         if (!snsEnabled) {
             logger.info("SNS está deshabilitado. SMS simulado enviado a: {} - Mensaje: {}", numeroTelefono, mensaje);
             return CompletableFuture.completedFuture("SMS_SIMULADO");
         }
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Formatear número de teléfono para SNS (formato E.164)
-                String numeroFormateado = formatearNumeroTelefono(numeroTelefono);
-
-                PublishRequest request = PublishRequest.builder()
-                        .phoneNumber(numeroFormateado)
-                        .message(mensaje)
-                        .build();
-
-                PublishResponse response = snsClient.publish(request);
-                logger.info("SMS enviado exitosamente. MessageId: {} - Teléfono: {}",
-                           response.messageId(), numeroFormateado);
-                return response.messageId();
+        // El despachador aplica el límite de TPS, la coalescencia y la deduplicación por teléfono y orden
+        return despachadorSms.encolar(formatearNumeroTelefono(numeroTelefono), ordenId, mensaje);
+    }
 
-            } catch (SnsException e) {
-                logger.error("Error enviando SMS a {}: {}", numeroTelefono, e.getMessage());
-                throw new RuntimeException("Error enviando SMS: " + e.getMessage(), e);
-            }
-        });
+    /**
+     * Obtiene las métricas del despachador de SMS (cola, envíos, descartes y latencia).
+     * @return Un mapa con las métricas.
+     */
+    public Map<String, Object> obtenerMetricasSms() {
+        return despachadorSms.obtenerMetricas();
     }
 
     /**
@@ -73,6 +86,7 @@ public class AwsSnsService {
      * @param asunto  El asunto del mensaje.
      * @return Un CompletableFuture con el ID del mensaje de SNS o un ID simulado.
      */
+    @Timed(value = "autofixpro.sns.publicacion", extraTags = {"operacion", "topic"}, histogram = true)
     public CompletableFuture<String> publicarEnTopic(String mensaje, String asunto) {
         if (!snsEnabled || autoFixProTopicArn == null || autoFixProTopicArn.isEmpty()) {
             logger.info("SNS/Topic deshabilitado. Notificación simulada - Asunto: {} - Mensaje: {}", asunto, mensaje);
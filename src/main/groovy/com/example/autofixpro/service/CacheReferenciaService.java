@@ -0,0 +1,95 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dao.TecnicoDAO;
+import com.example.autofixpro.entity.Tecnico;
+import com.example.autofixpro.util.TransaccionUtils;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Administra la caché de segundo nivel de Hibernate para los datos de referencia
+ * (técnicos, talleres y usuarios) y expone sus estadísticas por región.
+ *
+ * Hibernate ya actualiza las entidades cacheadas y descarta las consultas afectadas cuando la
+ * escritura pasa por JPA; la evicción explícita tras el commit cubre además las escrituras de esta
+ * instancia que no pasan por el contexto de persistencia (SQL nativo, JDBC).
+ *
+ * Ehcache es una caché local de cada JVM: nada invalida las entradas de las demás instancias, que
+ * ven los cambios de otra solo cuando vence el TTL de la región (ehcache.xml). Por eso usuarios,
+ * cuyo rol y estado activo deciden la autorización, expira antes que el resto de las regiones.
+ */
+@Service
+public class CacheReferenciaService {
+
+    public static final String REGION_TECNICOS = "tecnicos";
+    public static final String REGION_TALLERES = "talleres";
+    public static final String REGION_USUARIOS = "usuarios";
+    public static final String REGION_CONSULTAS_TECNICOS = TecnicoDAO.REGION_CONSULTAS;
+    public static final String REGION_MARCAS_TIEMPO = "default-update-timestamps-region";
+
+    private static final List<String> REGIONES = List.of(REGION_TECNICOS, REGION_TALLERES, REGION_USUARIOS,
+            REGION_CONSULTAS_TECNICOS, REGION_MARCAS_TIEMPO);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Descarta de la caché un técnico y todas las consultas de técnicos cacheadas.
+     * Se aplica tras el commit de la transacción actual.
+     * @param tecnicoId El ID del técnico, o null para descartar solo las consultas.
+     */
+    public void evictarTecnico(Long tecnicoId) {
+        TransaccionUtils.despuesDeConfirmar(() -> {
+            org.hibernate.Cache cache = sessionFactory().getCache();
+            if (tecnicoId != null) {
+                cache.evictEntityData(Tecnico.class, tecnicoId);
+            }
+            cache.evictQueryRegion(REGION_CONSULTAS_TECNICOS);
+        });
+    }
+
+    /**
+     * Estadísticas de aciertos, fallos y escrituras de cada región de la caché.
+     * @return Un mapa por nombre de región; las regiones aún no creadas se omiten.
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Statistics estadisticas = sessionFactory().getStatistics();
+        Map<String, Object> regiones = new LinkedHashMap<>();
+        for (String region : REGIONES) {
+            CacheRegionStatistics stats = estadisticas.getCacheRegionStatistics(region);
+            if (stats == null) {
+                continue;
+            }
+            long aciertos = stats.getHitCount();
+            long fallos = stats.getMissCount();
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("aciertos", aciertos);
+            datos.put("fallos", fallos);
+            datos.put("escrituras", stats.getPutCount());
+            datos.put("tasaAciertos", aciertos + fallos > 0 ? (double) aciertos / (aciertos + fallos) : 0.0);
+            datos.put("elementosEnMemoria", stats.getElementCountInMemory());
+            regiones.put(region, datos);
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("habilitadas", estadisticas.isStatisticsEnabled());
+        resultado.put("regiones", regiones);
+        resultado.put("consultasCacheadas", Map.of(
+                "aciertos", estadisticas.getQueryCacheHitCount(),
+                "fallos", estadisticas.getQueryCacheMissCount(),
+                "escrituras", estadisticas.getQueryCachePutCount()));
+        return resultado;
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
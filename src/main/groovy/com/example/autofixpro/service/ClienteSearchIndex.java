@@ -0,0 +1,257 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dao.ClienteDAO;
+import com.example.autofixpro.dto.ClienteDTO;
+import com.example.autofixpro.entity.Cliente;
+import com.example.autofixpro.util.EstadoReconstruible;
+import com.example.autofixpro.util.TransaccionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas en memoria para buscar clientes por nombres, apellidos, DNI o teléfono.
+ *
+ * Los textos se normalizan (minúsculas, sin tildes: "José Ramírez" → "jose ramirez") y cada palabra
+ * se parte en trigramas con relleno, como pg_trgm. Una búsqueda junta las listas de los trigramas
+ * de la consulta y ordena los candidatos por la fracción de trigramas que comparten, con prioridad
+ * a los que contienen la consulta completa. La última palabra de la consulta se trata como prefijo,
+ * para el autocompletado mientras se escribe.
+ *
+ * Se construye al iniciar con una sola consulta proyectada y ClienteService lo actualiza tras el
+ * commit de cada alta, modificación o baja; una reconstrucción periódica corrige desviaciones.
+ * Los cambios que llegan durante una reconstrucción se repiten sobre el índice nuevo (ver EstadoReconstruible).
+ */
+@Service
+public class ClienteSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClienteSearchIndex.class);
+
+    // Fracción mínima de trigramas de la consulta que debe compartir un cliente para aparecer
+    private static final double SIMILITUD_MINIMA = 0.5;
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+
+    @Autowired
+    private ClienteDAO clienteDAO;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Cliente indexado con su texto normalizado y sus trigramas.
+     */
+    private record Documento(ClienteDTO cliente, String texto, Set<String> trigramas) {}
+
+    /**
+     * Resultado candidato de una búsqueda.
+     */
+    private record Candidato(Documento documento, double puntaje) {}
+
+    private static final Comparator<Candidato> POR_PUNTAJE =
+            Comparator.comparingDouble(Candidato::puntaje)
+                    .thenComparing(c -> c.documento().cliente().getClienteId(), Comparator.reverseOrder());
+
+    /**
+     * Estado completo del índice; la reconstrucción lo reemplaza de una vez.
+     */
+    private static class Estado {
+        final Map<Long, Documento> porCliente = new HashMap<>();
+        final Map<String, Set<Long>> porTrigrama = new HashMap<>();
+
+        void poner(Documento documento) {
+            Long clienteId = documento.cliente().getClienteId();
+            quitar(clienteId);
+            porCliente.put(clienteId, documento);
+            for (String trigrama : documento.trigramas()) {
+                porTrigrama.computeIfAbsent(trigrama, k -> new HashSet<>()).add(clienteId);
+            }
+        }
+
+        void quitar(Long clienteId) {
+            Documento anterior = porCliente.remove(clienteId);
+            if (anterior == null) {
+                return;
+            }
+            for (String trigrama : anterior.trigramas()) {
+                Set<Long> lista = porTrigrama.get(trigrama);
+                if (lista != null && lista.remove(clienteId) && lista.isEmpty()) {
+                    porTrigrama.remove(trigrama);
+                }
+            }
+        }
+    }
+
+    private final EstadoReconstruible<Estado> estado = new EstadoReconstruible<>(this::cargar);
+
+    /**
+     * Busca clientes por nombres, apellidos, DNI o teléfono, sin acceder a la base de datos.
+     * @param consulta El texto escrito por el usuario (se ignoran tildes y mayúsculas).
+     * @param limite Número máximo de resultados.
+     * @return Los clientes más parecidos, del mejor al peor.
+     */
+    public List<ClienteDTO> buscar(String consulta, int limite) {
+        String normalizada = normalizar(consulta);
+        if (normalizada.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        Set<String> trigramasConsulta = trigramas(normalizada, true);
+        PriorityQueue<Candidato> mejores = estado.leer(
+                actual -> seleccionarMejores(actual, normalizada, trigramasConsulta, limite));
+
+        List<ClienteDTO> resultado = new ArrayList<>(mejores.size());
+        while (!mejores.isEmpty()) {
+            resultado.add(mejores.poll().documento().cliente());
+        }
+        // La cola entrega del peor al mejor
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    /**
+     * Los candidatos con mayor puntaje, a lo sumo "limite", en una cola del peor al mejor.
+     */
+    private PriorityQueue<Candidato> seleccionarMejores(Estado actual, String normalizada,
+                                                        Set<String> trigramasConsulta, int limite) {
+        // Conteo de trigramas compartidos por cada cliente candidato
+        Map<Long, Integer> coincidencias = new HashMap<>();
+        for (String trigrama : trigramasConsulta) {
+            Set<Long> lista = actual.porTrigrama.get(trigrama);
+            if (lista != null) {
+                for (Long clienteId : lista) {
+                    coincidencias.merge(clienteId, 1, Integer::sum);
+                }
+            }
+        }
+
+        PriorityQueue<Candidato> mejores = new PriorityQueue<>(POR_PUNTAJE);
+        int minimo = (int) Math.ceil(trigramasConsulta.size() * SIMILITUD_MINIMA);
+        for (Map.Entry<Long, Integer> entrada : coincidencias.entrySet()) {
+            if (entrada.getValue() < minimo) {
+                continue;
+            }
+            Documento documento = actual.porCliente.get(entrada.getKey());
+            double puntaje = (double) entrada.getValue() / trigramasConsulta.size();
+            if (documento.texto().contains(normalizada)) {
+                // Coincidencia exacta de la consulta completa: siempre por delante de las aproximadas
+                puntaje += 1;
+            }
+            mejores.offer(new Candidato(documento, puntaje));
+            if (mejores.size() > limite) {
+                mejores.poll();
+            }
+        }
+        return mejores;
+    }
+
+    /**
+     * Registra el alta o modificación de un cliente. Se aplica tras el commit de la transacción actual.
+     */
+    public void actualizar(Cliente cliente) {
+        if (cliente.getClienteId() == null) {
+            return;
+        }
+        ClienteDTO dto = new ClienteDTO(cliente.getClienteId(), cliente.getNombres(), cliente.getApellidos(),
+                cliente.getDni(), cliente.getTelefono(), cliente.getEmail());
+        Documento documento = crearDocumento(dto);
+        TransaccionUtils.despuesDeConfirmar(() -> estado.modificar(actual -> actual.poner(documento)));
+    }
+
+    /**
+     * Registra la baja de un cliente. Se aplica tras el commit de la transacción actual.
+     */
+    public void quitar(Long clienteId) {
+        TransaccionUtils.despuesDeConfirmar(() -> estado.modificar(actual -> actual.quitar(clienteId)));
+    }
+
+    /**
+     * Reconstruye el índice con una única consulta proyectada de todos los clientes.
+     * Se ejecuta al iniciar la aplicación y periódicamente para reconciliar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${clientes.busqueda.reconciliacion-ms:600000}",
+               initialDelayString = "${clientes.busqueda.reconciliacion-ms:600000}")
+    public void reconstruir() {
+        estado.reconstruir();
+    }
+
+    /**
+     * Lee todos los clientes y arma un índice nuevo. La transacción es propia, también en la carga
+     * perezosa de la primera búsqueda, y sin readOnly: se lee del primario, no de una réplica atrasada.
+     */
+    private Estado cargar() {
+        List<ClienteDTO> clientes = new TransactionTemplate(transactionManager)
+                .execute(transaccion -> clienteDAO.findTodosProyectados());
+
+        Estado nuevo = new Estado();
+        for (ClienteDTO cliente : clientes) {
+            nuevo.poner(crearDocumento(cliente));
+        }
+        logger.debug("Índice de búsqueda de clientes reconstruido: {} clientes, {} trigramas",
+                clientes.size(), nuevo.porTrigrama.size());
+        return nuevo;
+    }
+
+    /**
+     * Quita tildes y signos, pasa a minúsculas y deja las palabras separadas por un espacio.
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return NO_ALFANUMERICO.matcher(sinTildes.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Trigramas de cada palabra con dos espacios de relleno al inicio y uno al final.
+     * @param prefijo Si es true, la última palabra no lleva relleno final (aún se está escribiendo).
+     */
+    static Set<String> trigramas(String normalizado, boolean prefijo) {
+        Set<String> resultado = new LinkedHashSet<>();
+        String[] palabras = normalizado.split(" ");
+        for (int i = 0; i < palabras.length; i++) {
+            if (palabras[i].isEmpty()) {
+                continue;
+            }
+            boolean abierta = prefijo && i == palabras.length - 1;
+            String relleno = "  " + palabras[i] + (abierta ? "" : " ");
+            for (int j = 0; j + 3 <= relleno.length(); j++) {
+                resultado.add(relleno.substring(j, j + 3));
+            }
+        }
+        return resultado;
+    }
+
+    private Documento crearDocumento(ClienteDTO cliente) {
+        String texto = normalizar(String.join(" ",
+                valor(cliente.getNombres()), valor(cliente.getApellidos()),
+                valor(cliente.getDni()), valor(cliente.getTelefono())));
+        return new Documento(cliente, texto, trigramas(texto, false));
+    }
+
+    private static String valor(String texto) {
+        return texto != null ? texto : "";
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.autofixpro.service;
 
 import com.example.autofixpro.dao.ClienteDAO;
+import com.example.autofixpro.dto.ClienteDTO;
 import com.example.autofixpro.entity.Cliente;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,6 +31,9 @@ public class ClienteService implements GenericService<Cliente, Long> {
     @Autowired
     private NotificacionServicio notificationService; // Servicio para envío de notificaciones
 
+    @Autowired
+    private ClienteSearchIndex clienteSearchIndex; // Índice en memoria para la búsqueda de clientes
+
     /**
      * Guarda un nuevo cliente en el sistema y envía notificación de bienvenida.
      * Implementa el caso de uso CU07: Registrar vehículo (parte del cliente)
@@ -40,6 +45,7 @@ public class ClienteService implements GenericService<Cliente, Long> {
     public Cliente save(Cliente cliente) {
         // CU07: Registrar vehículo (parte del cliente)
         Cliente savedCliente = clienteDAO.save(cliente);
+        clienteSearchIndex.actualizar(savedCliente);
 
         // Enviar notificación de registro automática al cliente
         notificationService.enviarNotificacionRegistro(savedCliente);
@@ -49,6 +55,7 @@ public class ClienteService implements GenericService<Cliente, Long> {
 
     /**
      * Busca un cliente por su ID único.
+     * Sin readOnly: lee del primario, porque suele preceder a una escritura (registrar un vehículo).
      * 
      * @param id El ID del cliente a buscar
      * @return Optional que contiene el cliente si existe, vacío si no se encuentra
@@ -64,6 +71,7 @@ public class ClienteService implements GenericService<Cliente, Long> {
      * @return Lista completa de clientes
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Cliente> findAll() {
         return clienteDAO.findAll();
     }
@@ -76,7 +84,9 @@ public class ClienteService implements GenericService<Cliente, Long> {
      */
     @Override
     public Cliente update(Cliente cliente) {
-        return clienteDAO.save(cliente);
+        Cliente updatedCliente = clienteDAO.save(cliente);
+        clienteSearchIndex.actualizar(updatedCliente);
+        return updatedCliente;
     }
 
     /**
@@ -87,6 +97,7 @@ public class ClienteService implements GenericService<Cliente, Long> {
     @Override
     public void deleteById(Long id) {
         clienteDAO.deleteById(id);
+        clienteSearchIndex.quitar(id);
     }
 
     /**
@@ -106,6 +117,7 @@ public class ClienteService implements GenericService<Cliente, Long> {
      * @return Número total de clientes en el sistema
      */
     @Override
+    @Transactional(readOnly = true)
     public long count() {
         return clienteDAO.count();
     }
@@ -141,10 +153,24 @@ public class ClienteService implements GenericService<Cliente, Long> {
      * @param nombre Parte del nombre a buscar (búsqueda parcial)
      * @return Lista de clientes que coinciden con el criterio de búsqueda
      */
+    @Transactional(readOnly = true)
     public List<Cliente> buscarPorNombre(String nombre) {
         return clienteDAO.findByNombreContaining(nombre);
     }
 
+    /**
+     * Busca clientes por nombres, apellidos, DNI o teléfono en el índice en memoria.
+     * Ignora tildes y mayúsculas, tolera errores de tipeo y ordena por similitud;
+     * pensado para el autocompletado, ya que no consulta la base de datos.
+     * 
+     * @param consulta El texto escrito por el usuario
+     * @param limite Número máximo de resultados
+     * @return Lista de clientes (sin usuario ni vehículos) del más al menos parecido
+     */
+    public List<ClienteDTO> buscar(String consulta, int limite) {
+        return clienteSearchIndex.buscar(consulta, limite);
+    }
+
     /**
      * Consulta un cliente junto con todos sus vehículos asociados.
      * Implementa el caso de uso CU01: Consultar estado del vehículo.
@@ -154,7 +180,20 @@ public class ClienteService implements GenericService<Cliente, Long> {
      * @return Optional que contiene el cliente con sus vehículos cargados
      */
     // CU01: Consultar estado del vehículo
+    @Transactional(readOnly = true)
     public Optional<Cliente> consultarClienteConVehiculos(Long clienteId) {
         return clienteDAO.findByIdWithVehiculos(clienteId);
     }
+
+    /**
+     * Obtiene los clientes registrados más recientemente, proyectados a DTO.
+     * Usado por el dashboard para no cargar la tabla completa de clientes.
+     * 
+     * @param cantidad Número máximo de clientes a devolver
+     * @return Lista de clientes recientes (del más nuevo al más antiguo)
+     */
+    @Transactional(readOnly = true)
+    public List<ClienteDTO> findRecientes(int cantidad) {
+        return clienteDAO.findRecientes(PageRequest.of(0, cantidad));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,376 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dao.OrdenServicioDAO;
+import com.example.autofixpro.dto.ColaTrabajoItemDTO;
+import com.example.autofixpro.entity.OrdenServicio;
+import com.example.autofixpro.entity.Servicio;
+import com.example.autofixpro.entity.Tecnico;
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+import com.example.autofixpro.util.TransaccionUtils;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Cola de trabajo del taller: órdenes RECIBIDO ordenadas por prioridad, antigüedad y duración estimada.
+ *
+ * Puntaje de una orden en el instante t (a mayor puntaje, antes se atiende):
+ *   bonoPrioridad + minutosEsperando(t) - factorDuracion * minutosEstimados
+ * Como la antigüedad crece igual para todas las órdenes, el orden relativo no cambia con el tiempo;
+ * basta ordenar por la parte fija (puntaje - t), y así las colas no se reordenan nunca.
+ * Una orden BAJA que espera lo suficiente termina adelantando a las nuevas URGENTE (anti-inanición).
+ *
+ * Hay una cola por técnico (órdenes ya asignadas), una por especialidad del técnico asignado y una
+ * de órdenes sin asignar. OrdenServicioService notifica cada cambio tras el commit y cada
+ * actualización es O(log n); una reconciliación periódica con una única consulta corrige desviaciones.
+ */
+@Service
+public class ColaTrabajoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColaTrabajoService.class);
+
+    @Autowired
+    private OrdenServicioDAO ordenServicioDAO;
+
+    @Value("${ordenes.cola.bono-minutos.baja:0}")
+    private double bonoBaja;
+
+    @Value("${ordenes.cola.bono-minutos.normal:120}")
+    private double bonoNormal;
+
+    @Value("${ordenes.cola.bono-minutos.alta:480}")
+    private double bonoAlta;
+
+    @Value("${ordenes.cola.bono-minutos.urgente:1440}")
+    private double bonoUrgente;
+
+    @Value("${ordenes.cola.factor-duracion:0.5}")
+    private double factorDuracion;
+
+    @Value("${ordenes.cola.minutos-estimados-defecto:60}")
+    private int minutosEstimadosDefecto;
+
+    /**
+     * Orden en cola. Es inmutable: cada cambio reemplaza la entrada en los conjuntos ordenados.
+     * clave es la parte del puntaje que no depende del tiempo.
+     */
+    private record Entrada(Long ordenId, Long tecnicoId, String especialidad, Prioridad prioridad,
+                           LocalDateTime fechaIngreso, int minutosEstimados, double clave) {}
+
+    private static final Comparator<Entrada> POR_PUNTAJE =
+            Comparator.comparingDouble(Entrada::clave).reversed().thenComparing(Entrada::ordenId);
+
+    /**
+     * Estado completo de las colas; la reconciliación lo reemplaza de una vez.
+     * Se modifica siempre con el monitor de ColaTrabajoService adquirido.
+     */
+    private static class Estado {
+        final Map<Long, Entrada> porOrden = new HashMap<>();
+        final TreeSet<Entrada> todas = new TreeSet<>(POR_PUNTAJE);
+        final TreeSet<Entrada> sinAsignar = new TreeSet<>(POR_PUNTAJE);
+        final Map<Long, TreeSet<Entrada>> porTecnico = new HashMap<>();
+        final Map<String, TreeSet<Entrada>> porEspecialidad = new HashMap<>();
+
+        void poner(Entrada entrada) {
+            quitar(entrada.ordenId());
+            porOrden.put(entrada.ordenId(), entrada);
+            todas.add(entrada);
+            if (entrada.tecnicoId() == null) {
+                sinAsignar.add(entrada);
+            } else {
+                porTecnico.computeIfAbsent(entrada.tecnicoId(), k -> new TreeSet<>(POR_PUNTAJE)).add(entrada);
+                porEspecialidad.computeIfAbsent(clave(entrada.especialidad()), k -> new TreeSet<>(POR_PUNTAJE))
+                        .add(entrada);
+            }
+        }
+
+        Entrada quitar(Long ordenId) {
+            Entrada entrada = porOrden.remove(ordenId);
+            if (entrada == null) {
+                return null;
+            }
+            todas.remove(entrada);
+            if (entrada.tecnicoId() == null) {
+                sinAsignar.remove(entrada);
+            } else {
+                quitarDe(porTecnico, entrada.tecnicoId(), entrada);
+                quitarDe(porEspecialidad, clave(entrada.especialidad()), entrada);
+            }
+            return entrada;
+        }
+
+        private static <K> void quitarDe(Map<K, TreeSet<Entrada>> colas, K clave, Entrada entrada) {
+            TreeSet<Entrada> cola = colas.get(clave);
+            if (cola != null && cola.remove(entrada) && cola.isEmpty()) {
+                colas.remove(clave);
+            }
+        }
+    }
+
+    private volatile Estado estado;
+
+    /**
+     * Devuelve las primeras órdenes de la cola, de la más urgente a la menos urgente.
+     * @param tecnicoId Si se indica, la cola de ese técnico junto con las órdenes sin asignar.
+     * @param especialidad Si se indica (y no hay técnico), las órdenes asignadas a técnicos de esa especialidad.
+     * @param limite Número máximo de órdenes a devolver.
+     * @return Las órdenes en cola con su puntaje actual.
+     */
+    public List<ColaTrabajoItemDTO> obtenerCola(Long tecnicoId, String especialidad, int limite) {
+        Estado actual = obtenerEstado();
+        double ahora = minutosDesdeEpoca(LocalDateTime.now());
+        List<ColaTrabajoItemDTO> resultado = new ArrayList<>();
+
+        synchronized (this) {
+            Iterator<Entrada> it;
+            if (tecnicoId != null) {
+                it = mezclar(actual.porTecnico.getOrDefault(tecnicoId, new TreeSet<>(POR_PUNTAJE)).iterator(),
+                        actual.sinAsignar.iterator());
+            } else if (especialidad != null && !especialidad.isBlank()) {
+                TreeSet<Entrada> cola = actual.porEspecialidad.get(clave(especialidad));
+                it = cola != null ? cola.iterator() : Collections.emptyIterator();
+            } else {
+                it = actual.todas.iterator();
+            }
+
+            while (it.hasNext() && resultado.size() < limite) {
+                resultado.add(aDTO(it.next(), ahora));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Número total de órdenes en cola.
+     */
+    public int obtenerTamanio() {
+        Estado actual = obtenerEstado();
+        synchronized (this) {
+            return actual.porOrden.size();
+        }
+    }
+
+    /**
+     * Saca de la cola la siguiente orden para un técnico: la mejor entre las asignadas a él
+     * y las que aún no tienen técnico. Si la transacción actual se revierte, la orden vuelve a la cola.
+     * @param tecnicoId El ID del técnico que pide trabajo.
+     * @return El ID de la orden extraída, o vacío si no hay trabajo pendiente para él.
+     */
+    public Optional<Long> extraerSiguiente(Long tecnicoId) {
+        Estado actual = obtenerEstado();
+        Entrada elegida;
+
+        synchronized (this) {
+            TreeSet<Entrada> propias = actual.porTecnico.get(tecnicoId);
+            Entrada propia = propias != null && !propias.isEmpty() ? propias.first() : null;
+            Entrada libre = actual.sinAsignar.isEmpty() ? null : actual.sinAsignar.first();
+
+            if (propia == null) {
+                elegida = libre;
+            } else if (libre == null) {
+                elegida = propia;
+            } else {
+                elegida = POR_PUNTAJE.compare(propia, libre) <= 0 ? propia : libre;
+            }
+            if (elegida == null) {
+                return Optional.empty();
+            }
+            actual.quitar(elegida.ordenId());
+        }
+
+        TransaccionUtils.siSeRevierte(() -> reinsertar(elegida));
+        return Optional.of(elegida.ordenId());
+    }
+
+    /**
+     * Registra el estado actual de una orden: entra (o se reordena) en la cola si está RECIBIDO
+     * y sale de ella en cualquier otro estado. Los datos se toman ahora y se aplican tras el commit.
+     * @param orden La orden de servicio ya guardada.
+     */
+    public void sincronizar(OrdenServicio orden) {
+        Long ordenId = orden.getOrdenId();
+        if (ordenId == null) {
+            return;
+        }
+        if (orden.getEstadoOrden() != EstadoOrden.RECIBIDO) {
+            quitar(ordenId);
+            return;
+        }
+
+        Tecnico tecnico = orden.getTecnico();
+        Long tecnicoId = tecnico != null ? tecnico.getTecnicoId() : null;
+        String especialidad = tecnico != null ? tecnico.getEspecialidad() : null;
+        Prioridad prioridad = orden.getPrioridad() != null ? orden.getPrioridad() : Prioridad.NORMAL;
+        LocalDateTime fechaIngreso = orden.getFechaIngreso() != null ? orden.getFechaIngreso() : LocalDateTime.now();
+        Integer minutos = sumarMinutosCargados(orden);
+
+        TransaccionUtils.despuesDeConfirmar(
+                () -> aplicar(ordenId, tecnicoId, especialidad, prioridad, fechaIngreso, minutos));
+    }
+
+    /**
+     * Quita una orden de la cola tras el commit de la transacción actual.
+     */
+    public void quitar(Long ordenId) {
+        TransaccionUtils.despuesDeConfirmar(() -> {
+            synchronized (this) {
+                Estado actual = estado;
+                if (actual != null) {
+                    actual.quitar(ordenId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reconstruye las colas con una única consulta agregada (órdenes RECIBIDO y sus minutos estimados).
+     * Se ejecuta periódicamente y en la primera lectura.
+     */
+    @Scheduled(fixedDelayString = "${ordenes.cola.reconciliacion-ms:300000}",
+               initialDelayString = "${ordenes.cola.reconciliacion-ms:300000}")
+    // Sin readOnly: las colas se reemplazan enteras, y una réplica atrasada perdería órdenes recién recibidas
+    @Transactional
+    public void refrescar() {
+        List<Object[]> filas = ordenServicioDAO.findPendientesParaCola(EstadoOrden.RECIBIDO);
+
+        Estado nuevo = new Estado();
+        for (Object[] fila : filas) {
+            Prioridad prioridad = fila[1] != null ? (Prioridad) fila[1] : Prioridad.NORMAL;
+            LocalDateTime fechaIngreso = fila[2] != null ? (LocalDateTime) fila[2] : LocalDateTime.now();
+            int minutos = fila[5] != null ? ((Number) fila[5]).intValue() : minutosEstimadosDefecto;
+            nuevo.poner(crearEntrada((Long) fila[0], (Long) fila[3], (String) fila[4], prioridad, fechaIngreso, minutos));
+        }
+
+        synchronized (this) {
+            estado = nuevo;
+        }
+        logger.debug("Cola de trabajo recalculada: {} órdenes pendientes", filas.size());
+    }
+
+    private synchronized void aplicar(Long ordenId, Long tecnicoId, String especialidad, Prioridad prioridad,
+                                      LocalDateTime fechaIngreso, Integer minutos) {
+        Estado actual = estado;
+        if (actual == null) {
+            // Sin datos cargados; la primera lectura hará la carga completa
+            return;
+        }
+        int minutosEstimados;
+        if (minutos != null) {
+            minutosEstimados = minutos;
+        } else {
+            // Se conservan los minutos conocidos para no cargar los servicios de la orden
+            Entrada anterior = actual.porOrden.get(ordenId);
+            minutosEstimados = anterior != null ? anterior.minutosEstimados() : minutosEstimadosDefecto;
+        }
+        actual.poner(crearEntrada(ordenId, tecnicoId, especialidad, prioridad, fechaIngreso, minutosEstimados));
+    }
+
+    private synchronized void reinsertar(Entrada entrada) {
+        Estado actual = estado;
+        if (actual != null && !actual.porOrden.containsKey(entrada.ordenId())) {
+            actual.poner(entrada);
+        }
+    }
+
+    private Entrada crearEntrada(Long ordenId, Long tecnicoId, String especialidad, Prioridad prioridad,
+                                 LocalDateTime fechaIngreso, int minutosEstimados) {
+        double clave = bonoPrioridad(prioridad) - factorDuracion * minutosEstimados - minutosDesdeEpoca(fechaIngreso);
+        return new Entrada(ordenId, tecnicoId, especialidad, prioridad, fechaIngreso, minutosEstimados, clave);
+    }
+
+    private double bonoPrioridad(Prioridad prioridad) {
+        return switch (prioridad) {
+            case BAJA -> bonoBaja;
+            case NORMAL -> bonoNormal;
+            case ALTA -> bonoAlta;
+            case URGENTE -> bonoUrgente;
+        };
+    }
+
+    /**
+     * Suma los minutos estimados de los servicios de la orden solo si ya están cargados.
+     * @return La suma, o null si la colección no está inicializada o está vacía.
+     */
+    private Integer sumarMinutosCargados(OrdenServicio orden) {
+        List<Servicio> servicios = orden.getServicios();
+        if (servicios == null || !Hibernate.isInitialized(servicios) || servicios.isEmpty()) {
+            return null;
+        }
+        int total = 0;
+        for (Servicio servicio : servicios) {
+            if (servicio.getTiempoEstimado() != null) {
+                total += servicio.getTiempoEstimado();
+            }
+        }
+        return total;
+    }
+
+    private ColaTrabajoItemDTO aDTO(Entrada entrada, double ahora) {
+        return new ColaTrabajoItemDTO(entrada.ordenId(), entrada.tecnicoId(), entrada.especialidad(),
+                entrada.prioridad(), entrada.fechaIngreso(), entrada.minutosEstimados(), entrada.clave() + ahora);
+    }
+
+    private Estado obtenerEstado() {
+        Estado actual = estado;
+        if (actual == null) {
+            refrescar();
+            actual = estado;
+        }
+        return actual;
+    }
+
+    /**
+     * Recorre dos colas ordenadas como si fueran una sola.
+     */
+    private static Iterator<Entrada> mezclar(Iterator<Entrada> a, Iterator<Entrada> b) {
+        return new Iterator<>() {
+            private Entrada siguienteA = a.hasNext() ? a.next() : null;
+            private Entrada siguienteB = b.hasNext() ? b.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return siguienteA != null || siguienteB != null;
+            }
+
+            @Override
+            public Entrada next() {
+                Entrada resultado;
+                if (siguienteB == null || (siguienteA != null && POR_PUNTAJE.compare(siguienteA, siguienteB) <= 0)) {
+                    resultado = siguienteA;
+                    siguienteA = a.hasNext() ? a.next() : null;
+                } else {
+                    resultado = siguienteB;
+                    siguienteB = b.hasNext() ? b.next() : null;
+                }
+                return resultado;
+            }
+        };
+    }
+
+    private static double minutosDesdeEpoca(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toEpochSecond() / 60.0;
+    }
+
+    private static String clave(String especialidad) {
+        return especialidad == null ? "" : especialidad.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.autofixpro.service;
+
+/**
+ * La orden fue modificada por otro usuario después de que el cliente la leyó.
+ * Lleva la versión confirmada para que el cliente recargue la orden y decida si reintenta.
+ */
+public class ConflictoVersionException extends RuntimeException {
+
+    private final Long ordenId;
+    private final Long versionActual;
+
+    public ConflictoVersionException(Long ordenId, Long versionActual) {
+        this(ordenId, versionActual, null);
+    }
+
+    public ConflictoVersionException(Long ordenId, Long versionActual, Throwable causa) {
+        super("La orden de servicio " + ordenId + " fue modificada por otro usuario (versión actual: "
+                + versionActual + ")", causa);
+        this.ordenId = ordenId;
+        this.versionActual = versionActual;
+    }
+
+    public Long getOrdenId() { return ordenId; }
+
+    public Long getVersionActual() { return versionActual; }
+}
@@ -0,0 +1,156 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dao.OrdenServicioDAO;
+import com.example.autofixpro.dto.DashboardMetricasDTO;
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+import com.example.autofixpro.util.TransaccionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio que mantiene en memoria las métricas de órdenes del dashboard administrativo.
+ *
+ * Los contadores se cargan con una única consulta GROUP BY (estado, prioridad, técnico)
+ * y luego se actualizan de forma incremental cuando OrdenServicioService crea una orden
+ * o cambia su estado. Los cambios se aplican solo después del commit de la transacción.
+ * Una reconciliación periódica corrige desviaciones por cambios hechos fuera de esos métodos
+ * (por ejemplo, asignación de técnico o prioridad desde el controlador).
+ */
+@Service
+public class DashboardMetricsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardMetricsService.class);
+
+    @Autowired
+    private OrdenServicioDAO ordenServicioDAO;
+
+    /**
+     * Clave de agrupación de los contadores. tecnicoId puede ser null (orden sin técnico).
+     */
+    private record Clave(EstadoOrden estado, Prioridad prioridad, Long tecnicoId) {}
+
+    // Contadores protegidos por el monitor de esta clase; las lecturas usan el snapshot inmutable
+    private final Map<Clave, Long> contadores = new HashMap<>();
+
+    private volatile DashboardMetricasDTO snapshot;
+
+    /**
+     * Devuelve las métricas actuales sin acceder a la base de datos
+     * (salvo la primera vez, cuando aún no se han cargado).
+     * @return El snapshot inmutable de métricas.
+     */
+    public DashboardMetricasDTO obtenerMetricas() {
+        DashboardMetricasDTO actual = snapshot;
+        if (actual == null) {
+            refrescar();
+            actual = snapshot;
+        }
+        return actual;
+    }
+
+    /**
+     * Recalcula todos los contadores desde la base de datos con una sola consulta agrupada.
+     * Se ejecuta periódicamente para reconciliar el estado en memoria.
+     */
+    @Scheduled(fixedDelayString = "${dashboard.metricas.reconciliacion-ms:300000}",
+               initialDelayString = "${dashboard.metricas.reconciliacion-ms:300000}")
+    // Sin readOnly: se lee del primario para no reemplazar los contadores con una foto atrasada
+    @Transactional
+    public void refrescar() {
+        List<Object[]> filas = ordenServicioDAO.contarAgrupadoPorEstadoPrioridadTecnico();
+
+        synchronized (this) {
+            contadores.clear();
+            for (Object[] fila : filas) {
+                Clave clave = new Clave((EstadoOrden) fila[0], (Prioridad) fila[1], (Long) fila[2]);
+                contadores.put(clave, ((Number) fila[3]).longValue());
+            }
+            publicarSnapshot();
+        }
+        logger.debug("Métricas del dashboard recalculadas: {} grupos", filas.size());
+    }
+
+    /**
+     * Registra la creación de una orden. Se aplica tras el commit de la transacción actual.
+     */
+    public void registrarOrdenCreada(EstadoOrden estado, Prioridad prioridad, Long tecnicoId) {
+        TransaccionUtils.despuesDeConfirmar(() -> ajustar(new Clave(estado, prioridad, tecnicoId), 1));
+    }
+
+    /**
+     * Registra el cambio de estado de una orden. Se aplica tras el commit de la transacción actual.
+     */
+    public void registrarCambioEstado(EstadoOrden estadoAnterior, EstadoOrden estadoNuevo,
+                                      Prioridad prioridad, Long tecnicoId) {
+        if (estadoAnterior == estadoNuevo) {
+            return;
+        }
+        TransaccionUtils.despuesDeConfirmar(() -> {
+            synchronized (this) {
+                ajustar(new Clave(estadoAnterior, prioridad, tecnicoId), -1);
+                ajustar(new Clave(estadoNuevo, prioridad, tecnicoId), 1);
+            }
+        });
+    }
+
+    private synchronized void ajustar(Clave clave, long delta) {
+        if (snapshot == null) {
+            // Aún no hay datos cargados; la primera lectura hará la carga completa
+            return;
+        }
+        long valor = contadores.getOrDefault(clave, 0L) + delta;
+        if (valor <= 0) {
+            contadores.remove(clave);
+        } else {
+            contadores.put(clave, valor);
+        }
+        publicarSnapshot();
+    }
+
+    /**
+     * Construye un nuevo snapshot inmutable a partir de los contadores.
+     * Debe invocarse con el monitor de la clase adquirido.
+     */
+    private void publicarSnapshot() {
+        Map<EstadoOrden, Long> porEstado = new EnumMap<>(EstadoOrden.class);
+        Map<Prioridad, Long> porPrioridad = new EnumMap<>(Prioridad.class);
+        Map<Long, Long> activasPorTecnico = new HashMap<>();
+        long total = 0;
+        long activas = 0;
+        long completadas = 0;
+
+        for (Map.Entry<Clave, Long> entrada : contadores.entrySet()) {
+            Clave clave = entrada.getKey();
+            long cantidad = entrada.getValue();
+
+            total += cantidad;
+            porEstado.merge(clave.estado(), cantidad, Long::sum);
+            porPrioridad.merge(clave.prioridad(), cantidad, Long::sum);
+
+            if (esCompletada(clave.estado())) {
+                completadas += cantidad;
+            } else {
+                activas += cantidad;
+                if (clave.tecnicoId() != null) {
+                    activasPorTecnico.merge(clave.tecnicoId(), cantidad, Long::sum);
+                }
+            }
+        }
+
+        snapshot = new DashboardMetricasDTO(total, activas, completadas, porEstado, porPrioridad, activasPorTecnico);
+    }
+
+    private boolean esCompletada(EstadoOrden estado) {
+        return estado == EstadoOrden.COMPLETADO || estado == EstadoOrden.ENTREGADO;
+    }
+}
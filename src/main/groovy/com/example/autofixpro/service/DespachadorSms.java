@@ -0,0 +1,396 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.util.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Motor de envío de SMS sobre AWS SNS.
+ *
+ * Los mensajes entran en una cola acotada indexada por teléfono y orden, y se envían desde un único
+ * hilo despachador, respetando un token bucket (TPS de SNS) y un máximo de envíos simultáneos.
+ * Cada mensaje de una orden espera una ventana de coalescencia: si en ese tiempo llegan más mensajes
+ * de la misma orden para el mismo teléfono, se envía solo el último. Los mensajes sin orden (envíos
+ * puntuales) no esperan: pasan por delante de los que aún están en su ventana y solo se agrupan con
+ * otros idénticos. Un mensaje idéntico a uno ya enviado con la misma clave dentro de la ventana de
+ * deduplicación no se vuelve a enviar.
+ *
+ * Los registros no incluyen el texto del mensaje y el teléfono va enmascarado.
+ *
+ * Puede usar SnsAsyncClient (sin bloquear hilos) o SnsClient sobre un pool propio; este último
+ * permite probar el despachador con un SnsClient simulado (ver los métodos de fábrica).
+ */
+public class DespachadorSms {
+
+    private static final Logger logger = LoggerFactory.getLogger(DespachadorSms.class);
+
+    private final Function<PublishRequest, CompletableFuture<PublishResponse>> publicador;
+    private final ExecutorService executorSincrono;
+
+    private final int capacidadCola;
+    private final long ventanaCoalescenciaNanos;
+    private final long ventanaDeduplicacionNanos;
+    private final TokenBucket limitador;
+    private final int maxEnVuelo;
+    private final Semaphore enVuelo;
+
+    // Estado protegido por "lock"
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, SmsPendiente> pendientes = new LinkedHashMap<>();
+    // Pendientes sin orden, listos para enviarse sin ventana de coalescencia (también están en "pendientes")
+    private final ArrayDeque<SmsPendiente> inmediatos = new ArrayDeque<>();
+    private final Map<String, EnvioReciente> recientes = new HashMap<>();
+
+    private volatile boolean activo;
+    private Thread hiloDespachador;
+
+    // Métricas
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong coalescidos = new AtomicLong();
+    private final AtomicLong deduplicados = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong latenciaTotalNanos = new AtomicLong();
+    private final AtomicLong latenciaMaximaNanos = new AtomicLong();
+
+    private static class SmsPendiente {
+        final String clave;
+        final String telefono;
+        final Long ordenId;
+        final long encoladoNanos;
+        String mensaje;
+        final List<CompletableFuture<String>> futuros = new ArrayList<>();
+
+        SmsPendiente(String clave, String telefono, Long ordenId, String mensaje, long encoladoNanos) {
+            this.clave = clave;
+            this.telefono = telefono;
+            this.ordenId = ordenId;
+            this.mensaje = mensaje;
+            this.encoladoNanos = encoladoNanos;
+        }
+    }
+
+    private record EnvioReciente(String mensaje, String messageId, long enviadoNanos) {}
+
+    /**
+     * Crea un despachador que publica con SnsAsyncClient.
+     */
+    public static DespachadorSms conClienteAsincrono(SnsAsyncClient snsAsyncClient, int capacidadCola,
+                                                     double tps, int rafaga, long ventanaCoalescenciaMs,
+                                                     long ventanaDeduplicacionMs, int maxEnVuelo) {
+        return new DespachadorSms(snsAsyncClient::publish, null, capacidadCola, tps, rafaga,
+                ventanaCoalescenciaMs, ventanaDeduplicacionMs, maxEnVuelo);
+    }
+
+    /**
+     * Crea un despachador que publica con SnsClient (bloqueante) sobre un pool de maxEnVuelo hilos.
+     */
+    public static DespachadorSms conClienteSincrono(SnsClient snsClient, int capacidadCola,
+                                                    double tps, int rafaga, long ventanaCoalescenciaMs,
+                                                    long ventanaDeduplicacionMs, int maxEnVuelo) {
+        ExecutorService executor = Executors.newFixedThreadPool(maxEnVuelo, tarea -> {
+            Thread hilo = new Thread(tarea, "sms-publicador");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        return new DespachadorSms(request -> CompletableFuture.supplyAsync(() -> snsClient.publish(request), executor),
+                executor, capacidadCola, tps, rafaga, ventanaCoalescenciaMs, ventanaDeduplicacionMs, maxEnVuelo);
+    }
+
+    private DespachadorSms(Function<PublishRequest, CompletableFuture<PublishResponse>> publicador,
+                           ExecutorService executorSincrono, int capacidadCola, double tps, int rafaga,
+                           long ventanaCoalescenciaMs, long ventanaDeduplicacionMs, int maxEnVuelo) {
+        this.publicador = publicador;
+        this.executorSincrono = executorSincrono;
+        this.capacidadCola = capacidadCola;
+        this.ventanaCoalescenciaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaCoalescenciaMs);
+        this.ventanaDeduplicacionNanos = TimeUnit.MILLISECONDS.toNanos(ventanaDeduplicacionMs);
+        this.limitador = new TokenBucket(tps, rafaga);
+        this.maxEnVuelo = maxEnVuelo;
+        this.enVuelo = new Semaphore(maxEnVuelo);
+    }
+
+    /**
+     * Arranca el hilo despachador.
+     */
+    public void iniciar() {
+        activo = true;
+        hiloDespachador = new Thread(this::bucleDespacho, "sms-despachador");
+        hiloDespachador.setDaemon(true);
+        hiloDespachador.start();
+    }
+
+    /**
+     * Detiene el despachador. Los mensajes aún en cola se completan con error.
+     */
+    public void detener() {
+        activo = false;
+        List<SmsPendiente> restantes;
+        synchronized (lock) {
+            restantes = new ArrayList<>(pendientes.values());
+            pendientes.clear();
+            inmediatos.clear();
+            lock.notifyAll();
+        }
+        if (hiloDespachador != null) {
+            hiloDespachador.interrupt();
+        }
+        if (executorSincrono != null) {
+            executorSincrono.shutdown();
+        }
+        IllegalStateException detenido = new IllegalStateException("Despachador de SMS detenido");
+        for (SmsPendiente pendiente : restantes) {
+            pendiente.futuros.forEach(f -> f.completeExceptionally(detenido));
+        }
+    }
+
+    /**
+     * Encola un SMS que no pertenece a ninguna orden. Se envía sin esperar la ventana de coalescencia
+     * y solo se agrupa con mensajes idénticos.
+     * @see #encolar(String, Long, String)
+     */
+    public CompletableFuture<String> encolar(String telefono, String mensaje) {
+        return encolar(telefono, null, mensaje);
+    }
+
+    /**
+     * Encola un SMS para su envío.
+     * @param telefono El teléfono en formato E.164.
+     * @param ordenId  La orden a la que se refiere el mensaje, o null. La coalescencia y la
+     *                 deduplicación se aplican por teléfono y orden; sin orden no hay coalescencia.
+     * @param mensaje  El contenido del mensaje.
+     * @return Un CompletableFuture con el MessageId de SNS. Falla con RejectedExecutionException
+     *         si la cola está llena.
+     */
+    public CompletableFuture<String> encolar(String telefono, Long ordenId, String mensaje) {
+        CompletableFuture<String> futuro = new CompletableFuture<>();
+        String clave = clave(telefono, ordenId, mensaje);
+        long ahora = System.nanoTime();
+
+        synchronized (lock) {
+            if (!activo) {
+                futuro.completeExceptionally(new IllegalStateException("Despachador de SMS detenido"));
+                return futuro;
+            }
+
+            EnvioReciente reciente = recientes.get(clave);
+            if (reciente != null && reciente.mensaje().equals(mensaje)
+                    && ahora - reciente.enviadoNanos() < ventanaDeduplicacionNanos) {
+                deduplicados.incrementAndGet();
+                futuro.complete(reciente.messageId());
+                return futuro;
+            }
+
+            SmsPendiente pendiente = pendientes.get(clave);
+            if (pendiente != null) {
+                // Se envía solo el último mensaje de la orden dentro de la ventana
+                if (pendiente.mensaje.equals(mensaje)) {
+                    deduplicados.incrementAndGet();
+                } else {
+                    coalescidos.incrementAndGet();
+                    pendiente.mensaje = mensaje;
+                }
+                pendiente.futuros.add(futuro);
+                return futuro;
+            }
+
+            if (pendientes.size() >= capacidadCola) {
+                descartados.incrementAndGet();
+                futuro.completeExceptionally(new RejectedExecutionException("Cola de SMS llena"));
+                return futuro;
+            }
+
+            pendiente = new SmsPendiente(clave, telefono, ordenId, mensaje, ahora);
+            pendiente.futuros.add(futuro);
+            pendientes.put(clave, pendiente);
+            if (ordenId == null) {
+                inmediatos.addLast(pendiente);
+            }
+            encolados.incrementAndGet();
+            lock.notifyAll();
+        }
+        return futuro;
+    }
+
+    /**
+     * Clave de la cola y de los envíos recientes: teléfono y orden, o teléfono y mensaje si no hay orden.
+     */
+    private static String clave(String telefono, Long ordenId, String mensaje) {
+        return ordenId != null ? telefono + "#orden:" + ordenId : telefono + "#mensaje:" + mensaje;
+    }
+
+    private void bucleDespacho() {
+        while (activo) {
+            try {
+                esperarSiguienteListo();
+                enVuelo.acquire();
+                limitador.adquirir();
+
+                SmsPendiente siguiente;
+                String mensaje;
+                List<CompletableFuture<String>> futuros;
+                synchronized (lock) {
+                    siguiente = inmediatos.pollFirst();
+                    if (siguiente != null) {
+                        pendientes.remove(siguiente.clave);
+                    } else {
+                        Iterator<SmsPendiente> it = pendientes.values().iterator();
+                        if (!it.hasNext()) {
+                            enVuelo.release();
+                            continue;
+                        }
+                        siguiente = it.next();
+                        it.remove();
+                    }
+                    mensaje = siguiente.mensaje;
+                    futuros = new ArrayList<>(siguiente.futuros);
+                }
+                publicar(siguiente, mensaje, futuros);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Error en el despachador de SMS: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Espera hasta que haya un mensaje sin orden o el primero de la cola haya cumplido su ventana de
+     * coalescencia. Sin mensajes sin orden, el primero de la cola es de una orden; solo el hilo
+     * despachador retira mensajes, así que el primero sigue siéndolo al salir.
+     */
+    private void esperarSiguienteListo() throws InterruptedException {
+        synchronized (lock) {
+            while (activo) {
+                if (!inmediatos.isEmpty()) {
+                    return;
+                }
+                if (pendientes.isEmpty()) {
+                    lock.wait();
+                    continue;
+                }
+                SmsPendiente primero = pendientes.values().iterator().next();
+                long espera = primero.encoladoNanos + ventanaCoalescenciaNanos - System.nanoTime();
+                if (espera <= 0) {
+                    return;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, espera);
+            }
+        }
+    }
+
+    private void publicar(SmsPendiente sms, String mensaje, List<CompletableFuture<String>> futuros) {
+        long inicio = System.nanoTime();
+        PublishRequest request = PublishRequest.builder()
+                .phoneNumber(sms.telefono)
+                .message(mensaje)
+                .build();
+
+        CompletableFuture<PublishResponse> envio;
+        try {
+            envio = publicador.apply(request);
+        } catch (RuntimeException e) {
+            envio = CompletableFuture.failedFuture(e);
+        }
+
+        envio.whenComplete((response, error) -> {
+            enVuelo.release();
+            registrarLatencia(System.nanoTime() - inicio);
+
+            if (error != null) {
+                errores.incrementAndGet();
+                logger.error("Error enviando SMS (orden {}, teléfono {}): {}", sms.ordenId,
+                        enmascarar(sms.telefono), error.getMessage());
+                futuros.forEach(f -> f.completeExceptionally(error));
+                return;
+            }
+
+            enviados.incrementAndGet();
+            logger.debug("SMS enviado. MessageId: {} - Orden: {} - Teléfono: {}", response.messageId(),
+                    sms.ordenId, enmascarar(sms.telefono));
+            recordarEnvio(sms.clave, mensaje, response.messageId());
+            futuros.forEach(f -> f.complete(response.messageId()));
+        });
+    }
+
+    /**
+     * Deja visibles solo los 3 últimos dígitos del teléfono ("+51999000111" → "*********111").
+     */
+    static String enmascarar(String telefono) {
+        if (telefono == null || telefono.length() <= 3) {
+            return "***";
+        }
+        return "*".repeat(telefono.length() - 3) + telefono.substring(telefono.length() - 3);
+    }
+
+    private void recordarEnvio(String clave, String mensaje, String messageId) {
+        long ahora = System.nanoTime();
+        synchronized (lock) {
+            if (recientes.size() >= capacidadCola) {
+                recientes.values().removeIf(r -> ahora - r.enviadoNanos() >= ventanaDeduplicacionNanos);
+            }
+            recientes.put(clave, new EnvioReciente(mensaje, messageId, ahora));
+        }
+    }
+
+    private void registrarLatencia(long nanos) {
+        latenciaTotalNanos.addAndGet(nanos);
+        latenciaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return El número de mensajes en cola pendientes de envío.
+     */
+    public int obtenerProfundidadCola() {
+        synchronized (lock) {
+            return pendientes.size();
+        }
+    }
+
+    /**
+     * Obtiene las métricas del despachador: profundidad de cola, contadores y latencia de envío.
+     */
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        long totalEnvios = enviados.get() + errores.get();
+        metricas.put("profundidadCola", obtenerProfundidadCola());
+        metricas.put("capacidadCola", capacidadCola);
+        metricas.put("enVuelo", totalEnVuelo());
+        metricas.put("encolados", encolados.get());
+        metricas.put("enviados", enviados.get());
+        metricas.put("coalescidos", coalescidos.get());
+        metricas.put("deduplicados", deduplicados.get());
+        metricas.put("descartados", descartados.get());
+        metricas.put("errores", errores.get());
+        metricas.put("latenciaPromedioMs", totalEnvios == 0 ? 0.0
+                : latenciaTotalNanos.get() / (double) totalEnvios / 1_000_000);
+        metricas.put("latenciaMaximaMs", latenciaMaximaNanos.get() / 1_000_000.0);
+        return metricas;
+    }
+
+    private int totalEnVuelo() {
+        return maxEnVuelo - enVuelo.availablePermits();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dao.EstadoVehiculoDAO;
+import com.example.autofixpro.dao.OrdenServicioDAO;
+import com.example.autofixpro.dao.ServicioDAO;
+import com.example.autofixpro.dao.VehiculoDAO;
+import com.example.autofixpro.dto.EstadoVehiculoDTO;
+import com.example.autofixpro.dto.HistorialVehiculoDTO;
+import com.example.autofixpro.dto.OrdenServicioDTO;
+import com.example.autofixpro.dto.ServicioDTO;
+import com.example.autofixpro.entity.Vehiculo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Carga el historial de un vehículo (CU08/CU09) en dos fases y con un número fijo de consultas.
+ *
+ * Primero se obtiene una página de órdenes proyectada (con los datos del vehículo en cada fila);
+ * después se cargan en lote los estados y los servicios de esas órdenes con IN (...) y se reparten
+ * en memoria. Así cada respuesta cuesta 3 consultas sin importar cuántas órdenes, estados o
+ * servicios tenga el vehículo, en lugar del producto cartesiano de dos colecciones con JOIN FETCH.
+ */
+@Service
+public class HistorialVehiculoLoader {
+
+    @Autowired
+    private OrdenServicioDAO ordenServicioDAO;
+
+    @Autowired
+    private EstadoVehiculoDAO estadoVehiculoDAO;
+
+    @Autowired
+    private ServicioDAO servicioDAO;
+
+    @Autowired
+    private VehiculoDAO vehiculoDAO;
+
+    /**
+     * Carga una página del historial de un vehículo por su ID.
+     * @param vehiculoId El ID del vehículo.
+     * @param pagina Número de página, desde 0.
+     * @param tamanio Órdenes por página.
+     * @return Un Optional con el historial, vacío si el vehículo no existe.
+     */
+    @Transactional(readOnly = true)
+    public Optional<HistorialVehiculoDTO> cargarPorVehiculo(Long vehiculoId, int pagina, int tamanio) {
+        Slice<OrdenServicioDTO> ordenes = ordenServicioDAO.findPaginaHistorialPorVehiculo(
+                vehiculoId, PageRequest.of(pagina, tamanio));
+        if (!ordenes.hasContent()) {
+            return vehiculoDAO.findById(vehiculoId).map(v -> sinOrdenes(v, pagina));
+        }
+        return Optional.of(armar(ordenes));
+    }
+
+    /**
+     * Carga una página del historial de un vehículo por su placa.
+     * @param placa La placa del vehículo.
+     * @param pagina Número de página, desde 0.
+     * @param tamanio Órdenes por página.
+     * @return Un Optional con el historial, vacío si la placa no está registrada.
+     */
+    @Transactional(readOnly = true)
+    public Optional<HistorialVehiculoDTO> cargarPorPlaca(String placa, int pagina, int tamanio) {
+        Slice<OrdenServicioDTO> ordenes = ordenServicioDAO.findPaginaHistorialPorPlaca(
+                placa, PageRequest.of(pagina, tamanio));
+        if (!ordenes.hasContent()) {
+            return vehiculoDAO.findByPlaca(placa).map(v -> sinOrdenes(v, pagina));
+        }
+        return Optional.of(armar(ordenes));
+    }
+
+    private HistorialVehiculoDTO armar(Slice<OrdenServicioDTO> ordenes) {
+        List<OrdenServicioDTO> pagActual = ordenes.getContent();
+
+        List<Long> ordenIds = new ArrayList<>(pagActual.size());
+        for (OrdenServicioDTO orden : pagActual) {
+            ordenIds.add(orden.getOrdenId());
+        }
+
+        // Segunda fase: estados y servicios de toda la página en una consulta cada uno
+        Map<Long, List<EstadoVehiculoDTO>> estadosPorOrden = new HashMap<>();
+        for (EstadoVehiculoDTO estado : estadoVehiculoDAO.findPorOrdenes(ordenIds)) {
+            estadosPorOrden.computeIfAbsent(estado.getOrdenId(), k -> new ArrayList<>()).add(estado);
+        }
+        Map<Long, List<ServicioDTO>> serviciosPorOrden = new HashMap<>();
+        for (ServicioDTO servicio : servicioDAO.findPorOrdenes(ordenIds)) {
+            serviciosPorOrden.computeIfAbsent(servicio.getOrdenId(), k -> new ArrayList<>()).add(servicio);
+        }
+
+        List<HistorialVehiculoDTO.OrdenHistorial> historial = new ArrayList<>(pagActual.size());
+        for (OrdenServicioDTO orden : pagActual) {
+            historial.add(new HistorialVehiculoDTO.OrdenHistorial(orden,
+                    estadosPorOrden.getOrDefault(orden.getOrdenId(), List.of()),
+                    serviciosPorOrden.getOrDefault(orden.getOrdenId(), List.of())));
+        }
+
+        OrdenServicioDTO.VehiculoInfo v = pagActual.get(0).getVehiculo();
+        return new HistorialVehiculoDTO(v.getVehiculoId(), v.getPlaca(), v.getMarca(), v.getModelo(),
+                v.getAño(), v.getColor(), historial, ordenes.getNumber(), ordenes.hasNext());
+    }
+
+    private static HistorialVehiculoDTO sinOrdenes(Vehiculo v, int pagina) {
+        return new HistorialVehiculoDTO(v.getVehiculoId(), v.getPlaca(), v.getMarca(), v.getModelo(),
+                v.getYear(), v.getColor(), List.of(), pagina, false);
+    }
+}
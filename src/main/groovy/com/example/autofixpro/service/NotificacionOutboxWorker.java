@@ -0,0 +1,152 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.entity.Notification;
+import com.example.autofixpro.util.SistemaNotificaciones;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker que envía las notificaciones guardadas en el outbox (tabla notifications).
+ *
+ * Periódicamente reclama un lote con SELECT ... FOR UPDATE SKIP LOCKED y lo reparte en un pool
+ * de hilos propio y acotado, para no ocupar el ForkJoinPool común. Solo reclama tantas filas
+ * como lugares libres tenga la cola del pool, así que nunca rechaza trabajo ya reclamado.
+ * Si la instancia se detiene con filas EN_PROCESO, otra las recupera al vencer su plazo.
+ */
+@Service
+public class NotificacionOutboxWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionOutboxWorker.class);
+
+    @Autowired
+    private NotificacionServicio notificacionServicio;
+
+    @Autowired
+    private SistemaNotificaciones sistemaNotificaciones;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notificaciones.outbox.hilos:4}")
+    private int hilos;
+
+    @Value("${notificaciones.outbox.capacidad-cola:100}")
+    private int capacidadCola;
+
+    @Value("${notificaciones.outbox.lote:20}")
+    private int tamanioLote;
+
+    private ThreadPoolExecutor executor;
+
+    // Notificaciones reclamadas que aún no terminan (en cola o enviándose)
+    private final AtomicInteger enCurso = new AtomicInteger();
+
+    @PostConstruct
+    public void iniciar() {
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "notificaciones-outbox-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reclama y reparte notificaciones pendientes mientras haya trabajo y capacidad libre.
+     */
+    @Scheduled(fixedDelayString = "${notificaciones.outbox.intervalo-ms:1000}")
+    public void procesarPendientes() {
+        int capacidadLibre;
+        while ((capacidadLibre = capacidadCola - enCurso.get()) > 0) {
+            List<Notification> lote;
+            try {
+                lote = notificacionServicio.reclamarPendientes(Math.min(tamanioLote, capacidadLibre));
+            } catch (Exception e) {
+                logger.error("Error reclamando notificaciones del outbox: {}", e.getMessage());
+                return;
+            }
+
+            for (Notification notification : lote) {
+                enCurso.incrementAndGet();
+                executor.execute(() -> enviar(notification));
+            }
+
+            if (lote.size() < tamanioLote) {
+                // No quedan más pendientes listas por ahora
+                return;
+            }
+        }
+    }
+
+    private void enviar(Notification notification) {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        CompletableFuture<String> envio;
+        try {
+            envio = sistemaNotificaciones.despachar(notification);
+        } catch (Exception e) {
+            envio = CompletableFuture.failedFuture(e);
+        }
+        // El resultado se registra de nuevo en el pool del outbox (los SMS terminan en hilos del SDK).
+        // No se rechaza: enCurso ya reserva un lugar en el pool para esta notificación.
+        envio.whenCompleteAsync((messageId, error) -> {
+            muestra.stop(Timer.builder("autofixpro.notificaciones.despacho")
+                    .description("Tiempo de envío de una notificación del outbox, por canal")
+                    .tag("canal", notification.getCanal() != null ? notification.getCanal() : "EMAIL")
+                    .tag("resultado", error == null ? "exito" : "error")
+                    .register(meterRegistry));
+            registrarResultado(notification, error);
+        }, executor);
+    }
+
+    private void registrarResultado(Notification notification, Throwable error) {
+        try {
+            if (error == null) {
+                notificacionServicio.registrarEnvio(notification.getNotificationId());
+                return;
+            }
+            Throwable causa = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            String mensaje = causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+            logger.warn("Fallo enviando notificación {} por {}: {}",
+                    notification.getNotificationId(), notification.getCanal(), mensaje);
+            notificacionServicio.registrarFallo(notification.getNotificationId(), mensaje);
+        } catch (Exception e) {
+            // La fila sigue EN_PROCESO y se reintentará al vencer su plazo
+            logger.error("No se pudo registrar el resultado de la notificación {}: {}",
+                    notification.getNotificationId(), e.getMessage());
+        } finally {
+            enCurso.decrementAndGet();
+        }
+    }
+}
@@ -1,36 +1,77 @@
 package com.example.autofixpro.service;
 
+import com.example.autofixpro.dao.ClienteDAO;
+import com.example.autofixpro.dao.NotificationDAO;
 import com.example.autofixpro.entity.Cliente;
 import com.example.autofixpro.entity.OrdenServicio;
 import com.example.autofixpro.entity.Notification;
 import com.example.autofixpro.enumeration.EstadoOrden;
 import com.example.autofixpro.enumeration.TipoNotificacion;
-import com.example.autofixpro.util.SistemaNotificaciones;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de notificaciones al cliente.
+ *
+ * Las notificaciones por EMAIL y SMS no se envían directamente: se guardan en la tabla
+ * notifications (outbox) dentro de la transacción del llamador, de modo que solo existen
+ * si la operación de negocio se confirma. NotificacionOutboxWorker las reclama y las envía
+ * después, con reintentos y backoff exponencial.
+ *
+ * Las notificaciones programadas (recordatorios) usan el mismo outbox: se guardan con
+ * proximo_intento igual a la fecha de envío y el worker las recoge cuando vencen, en orden
+ * por el índice (estado_envio, proximo_intento). Sobreviven a reinicios y no ocupan hilos.
+ */
 @Service
 public class NotificacionServicio {
 
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionServicio.class);
+
     // Inyección de dependencias de Spring
     @Autowired
-    private SistemaNotificaciones sistemaNotificaciones;
+    private NotificationDAO notificationDAO;
 
     @Autowired
     private NotificacionWebSocketService webSocketService;
 
+    @Autowired
+    private ClienteDAO clienteDAO;
+
+    @Value("${notificaciones.outbox.max-intentos:5}")
+    private int maxIntentos;
+
+    @Value("${notificaciones.outbox.backoff-base-ms:2000}")
+    private long backoffBaseMs;
+
+    @Value("${notificaciones.outbox.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    @Value("${notificaciones.outbox.plazo-proceso-ms:300000}")
+    private long plazoProcesoMs;
+
+    @Value("${notificaciones.recordatorio-recojo-horas:24}")
+    private long horasRecordatorioRecojo;
+
     public void enviarNotificacionRegistro(Cliente cliente) {
         String mensaje = String.format("Bienvenido %s %s. Su registro ha sido completado exitosamente.",
                 cliente.getNombres(), cliente.getApellidos());
 
-        Notification notification = new Notification();
-        notification.setTipoNotificacion(TipoNotificacion.INGRESO);
-        notification.setMensajes(mensaje);
-        notification.setEstadoEnvio("PENDIENTE");
-
-        sistemaNotificaciones.enviarNotificacion(cliente.getEmail(), notification);
+        encolar(TipoNotificacion.INGRESO, mensaje, cliente.getEmail(), "EMAIL", null);
     }
 
+    @Timed(value = "autofixpro.notificaciones.encolado", extraTags = {"tipo", "ingreso"})
     public void notificarIngresoVehiculo(OrdenServicio orden) {
         Cliente cliente = orden.getVehiculo().getCliente();
         String mensaje = String.format("Su vehículo con placa %s ha ingresado al taller. " +
@@ -39,17 +80,14 @@ public class NotificacionServicio {
                 orden.getOrdenId(),
                 orden.getEstadoOrden().getDescripcion());
 
-        Notification notification = new Notification();
-        notification.setTipoNotificacion(TipoNotificacion.INGRESO);
-        notification.setMensajes(mensaje);
-
-        sistemaNotificaciones.enviarNotificacion(cliente.getEmail(), notification);
-        sistemaNotificaciones.enviarSMS(cliente.getTelefono(), mensaje);
+        encolar(TipoNotificacion.INGRESO, mensaje, cliente.getEmail(), "EMAIL", orden.getOrdenId());
+        encolar(TipoNotificacion.INGRESO, mensaje, cliente.getTelefono(), "SMS", orden.getOrdenId());
 
         // Enviar notificación en tiempo real vía WebSocket
         webSocketService.notificarCambioEstado(orden, null);
     }
 
+    @Timed(value = "autofixpro.notificaciones.encolado", extraTags = {"tipo", "actualizacion"})
     public void notificarActualizacionEstado(OrdenServicio orden, EstadoOrden estadoAnterior, EstadoOrden nuevoEstado) {
         Cliente cliente = orden.getVehiculo().getCliente();
         String mensaje = String.format("Actualización de su vehículo %s: %s → %s. " +
@@ -59,21 +97,73 @@ public class NotificacionServicio {
                 nuevoEstado.getDescripcion(),
                 orden.getOrdenId());
 
-        Notification notification = new Notification();
-        notification.setTipoNotificacion(TipoNotificacion.ACTUALIZACION);
-        notification.setMensajes(mensaje);
-
-        sistemaNotificaciones.enviarNotificacion(cliente.getEmail(), notification);
+        encolar(TipoNotificacion.ACTUALIZACION, mensaje, cliente.getEmail(), "EMAIL", orden.getOrdenId());
 
         // Enviar SMS solo para estados importantes
         if (nuevoEstado == EstadoOrden.COMPLETADO || nuevoEstado == EstadoOrden.EN_REPARACION) {
-            sistemaNotificaciones.enviarSMS(cliente.getTelefono(), mensaje);
+            encolar(TipoNotificacion.ACTUALIZACION, mensaje, cliente.getTelefono(), "SMS", orden.getOrdenId());
+        }
+
+        // Recordatorio de recojo: se programa al completar y se cancela al entregar
+        if (nuevoEstado == EstadoOrden.COMPLETADO) {
+            programarRecordatorioRecojo(orden, LocalDateTime.now().plusHours(horasRecordatorioRecojo));
+        } else if (nuevoEstado == EstadoOrden.ENTREGADO) {
+            notificationDAO.cancelarPendientesPorOrden(orden.getOrdenId(), TipoNotificacion.RECORDATORIO);
         }
 
         // Enviar notificación en tiempo real vía WebSocket
         webSocketService.notificarCambioEstado(orden, estadoAnterior);
     }
 
+    /**
+     * Notifica un cambio de estado aplicado en lote: un solo EMAIL (y a lo sumo un SMS) por cliente
+     * con todas sus órdenes, en lugar de uno por orden. Los recordatorios de recojo y los mensajes
+     * WebSocket siguen siendo por orden; el buffer de NotificacionWebSocketService los agrupa por usuario.
+     * @param ordenes Las órdenes que cambiaron, con vehículo y cliente cargados.
+     * @param estadosAnteriores El estado previo de cada orden, por ordenId.
+     * @param nuevoEstado El estado al que pasaron todas.
+     * @return El número de clientes notificados.
+     */
+    @Timed(value = "autofixpro.notificaciones.encolado", extraTags = {"tipo", "actualizacion_lote"})
+    public int notificarActualizacionesEnLote(List<OrdenServicio> ordenes, Map<Long, EstadoOrden> estadosAnteriores,
+                                              EstadoOrden nuevoEstado) {
+        Map<Long, List<OrdenServicio>> porCliente = new LinkedHashMap<>();
+        for (OrdenServicio orden : ordenes) {
+            Cliente cliente = orden.getVehiculo().getCliente();
+            porCliente.computeIfAbsent(cliente.getClienteId(), k -> new ArrayList<>()).add(orden);
+        }
+
+        for (List<OrdenServicio> delCliente : porCliente.values()) {
+            Cliente cliente = delCliente.get(0).getVehiculo().getCliente();
+            String detalle = delCliente.stream()
+                    .map(orden -> String.format("%s (Orden #%d)", orden.getVehiculo().getPlaca(), orden.getOrdenId()))
+                    .collect(Collectors.joining(", "));
+            String mensaje = String.format("Actualización de sus vehículos: %s. Nuevo estado: %s",
+                    detalle, nuevoEstado.getDescripcion());
+
+            encolar(TipoNotificacion.ACTUALIZACION, mensaje, cliente.getEmail(), "EMAIL", null);
+            if (nuevoEstado == EstadoOrden.COMPLETADO || nuevoEstado == EstadoOrden.EN_REPARACION) {
+                encolar(TipoNotificacion.ACTUALIZACION, mensaje, cliente.getTelefono(), "SMS", null);
+            }
+        }
+
+        if (nuevoEstado == EstadoOrden.COMPLETADO) {
+            LocalDateTime fechaEnvio = LocalDateTime.now().plusHours(horasRecordatorioRecojo);
+            for (OrdenServicio orden : ordenes) {
+                programarRecordatorioRecojo(orden, fechaEnvio);
+            }
+        } else if (nuevoEstado == EstadoOrden.ENTREGADO) {
+            notificationDAO.cancelarPendientesPorOrdenes(
+                    ordenes.stream().map(OrdenServicio::getOrdenId).toList(), TipoNotificacion.RECORDATORIO);
+        }
+
+        for (OrdenServicio orden : ordenes) {
+            webSocketService.notificarCambioEstado(orden, estadosAnteriores.get(orden.getOrdenId()));
+        }
+        return porCliente.size();
+    }
+
+    @Timed(value = "autofixpro.notificaciones.encolado", extraTags = {"tipo", "completado"})
     public void notificarCompletado(OrdenServicio orden) {
         Cliente cliente = orden.getVehiculo().getCliente();
         String mensaje = String.format("¡Su vehículo %s está listo! " +
@@ -81,14 +171,133 @@ public class NotificacionServicio {
                 orden.getVehiculo().getPlaca(),
                 orden.getOrdenId());
 
-        Notification notification = new Notification();
-        notification.setTipoNotificacion(TipoNotificacion.COMPLETADO);
-        notification.setMensajes(mensaje);
-
-        sistemaNotificaciones.enviarNotificacion(cliente.getEmail(), notification);
-        sistemaNotificaciones.enviarSMS(cliente.getTelefono(), mensaje);
+        encolar(TipoNotificacion.COMPLETADO, mensaje, cliente.getEmail(), "EMAIL", orden.getOrdenId());
+        encolar(TipoNotificacion.COMPLETADO, mensaje, cliente.getTelefono(), "SMS", orden.getOrdenId());
 
         // Enviar notificación en tiempo real vía WebSocket
         webSocketService.notificarOrdenCompletada(orden);
     }
+
+    /**
+     * Programa una notificación para una fecha futura.
+     * El destinatario debe ser el email o el teléfono de un cliente registrado.
+     * @param tipo         El tipo de notificación.
+     * @param destinatario El email o teléfono del destinatario.
+     * @param canal        EMAIL, SMS o PUSH.
+     * @param mensaje      El contenido del mensaje.
+     * @param fechaEnvio   La fecha a partir de la cual se envía.
+     * @return La notificación programada (su ID permite cancelarla).
+     */
+    @Transactional
+    public Notification programarNotificacion(TipoNotificacion tipo, String destinatario, String canal,
+                                              String mensaje, LocalDateTime fechaEnvio) {
+        if (destinatario == null || destinatario.isBlank()) {
+            throw new IllegalArgumentException("El destinatario es requerido");
+        }
+        if (fechaEnvio == null || !fechaEnvio.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("La fecha de envío debe ser futura");
+        }
+        if (!clienteDAO.existsByEmailOrTelefono(destinatario, destinatario)) {
+            throw new IllegalArgumentException("El destinatario no corresponde a ningún cliente registrado");
+        }
+        Notification notification = new Notification(tipo, mensaje, destinatario, canal);
+        notification.setProximoIntento(fechaEnvio);
+        return notificationDAO.save(notification);
+    }
+
+    /**
+     * Programa un SMS recordando al cliente que su vehículo está listo para recoger.
+     */
+    public void programarRecordatorioRecojo(OrdenServicio orden, LocalDateTime fechaEnvio) {
+        Cliente cliente = orden.getVehiculo().getCliente();
+        if (cliente.getTelefono() == null || cliente.getTelefono().isBlank()) {
+            return;
+        }
+        String mensaje = String.format("Recordatorio: su vehículo %s está listo para recoger. Orden #%d",
+                orden.getVehiculo().getPlaca(),
+                orden.getOrdenId());
+
+        Notification notification = new Notification(TipoNotificacion.RECORDATORIO, mensaje, cliente.getTelefono(), "SMS");
+        notification.setProximoIntento(fechaEnvio);
+        notification.setOrdenId(orden.getOrdenId());
+        notificationDAO.save(notification);
+    }
+
+    /**
+     * Cancela un recordatorio programado que aún no se ha enviado.
+     * Las notificaciones transaccionales (ingreso, actualización, completado) no se pueden cancelar.
+     * @param notificationId El ID de la notificación.
+     * @return true si se canceló, false si ya se envió, se está enviando o no existe.
+     */
+    @Transactional
+    public boolean cancelarNotificacionProgramada(Long notificationId) {
+        return notificationDAO.cancelarPendiente(notificationId, TipoNotificacion.RECORDATORIO) > 0;
+    }
+
+    /**
+     * Reclama un lote de notificaciones listas para enviarse y las marca EN_PROCESO.
+     * Al confirmarse la transacción, las filas quedan fuera del alcance de otros workers
+     * hasta que venza el plazo de proceso.
+     * @param limite El número máximo de notificaciones a reclamar.
+     * @return Las notificaciones reclamadas.
+     */
+    @Transactional
+    public List<Notification> reclamarPendientes(int limite) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Notification> lote = notificationDAO.reclamarPendientes(ahora, limite);
+        LocalDateTime vencimiento = ahora.plusNanos(plazoProcesoMs * 1_000_000);
+        for (Notification notification : lote) {
+            notification.marcarEnProceso(vencimiento);
+        }
+        return lote;
+    }
+
+    /**
+     * Marca una notificación como enviada.
+     */
+    @Transactional
+    public void registrarEnvio(Long notificationId) {
+        notificationDAO.findById(notificationId).ifPresent(Notification::marcarEnviado);
+    }
+
+    /**
+     * Registra un intento fallido. Si quedan intentos, reprograma la notificación con
+     * backoff exponencial; si no, la marca como FALLIDO.
+     */
+    @Transactional
+    public void registrarFallo(Long notificationId, String error) {
+        notificationDAO.findById(notificationId).ifPresent(notification -> {
+            int intentos = notification.getIntentos() + 1;
+            if (intentos >= maxIntentos) {
+                notification.marcarFallido(error);
+                logger.warn("Notificación {} descartada tras {} intentos: {}", notificationId, intentos, error);
+            } else {
+                LocalDateTime proximo = LocalDateTime.now().plusNanos(calcularBackoffMs(intentos) * 1_000_000);
+                notification.programarReintento(error, proximo);
+                logger.info("Notificación {} reprogramada (intento {}) para {}", notificationId, intentos, proximo);
+            }
+        });
+    }
+
+    /**
+     * Espera antes del siguiente intento: base * 2^(intentos-1), acotada al máximo configurado.
+     */
+    private long calcularBackoffMs(int intentos) {
+        int exponente = Math.min(intentos - 1, 30);
+        return Math.min(backoffBaseMs << exponente, backoffMaxMs);
+    }
+
+    /**
+     * Guarda la notificación en el outbox. Participa en la transacción del llamador, si existe.
+     * @param ordenId La orden a la que se refiere, o null si no es de una sola orden. Los SMS se
+     *                coalescen por teléfono y orden (ver DespachadorSms).
+     */
+    private void encolar(TipoNotificacion tipo, String mensaje, String destinatario, String canal, Long ordenId) {
+        if (destinatario == null || destinatario.isBlank()) {
+            return;
+        }
+        Notification notification = new Notification(tipo, mensaje, destinatario, canal);
+        notification.setOrdenId(ordenId);
+        notificationDAO.save(notification);
+    }
 }
\ No newline at end of file
@@ -3,33 +3,189 @@ package com.example.autofixpro.service;
 import com.example.autofixpro.dto.NotificacionDTO;
 import com.example.autofixpro.entity.OrdenServicio;
 import com.example.autofixpro.entity.Vehiculo;
+import com.example.autofixpro.enumeration.CanalStaff;
 import com.example.autofixpro.enumeration.EstadoOrden;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Servicio para enviar notificaciones en tiempo real a los clientes
  * usando WebSocket/STOMP.
+ *
+ * Las notificaciones a un usuario no se envían de inmediato: esperan una ventana corta en un
+ * buffer por usuario. Si en ese tiempo llegan varias ESTADO_ACTUALIZADO de la misma orden, solo
+ * se envía la última; si el buffer se llena, se descarta la más antigua. Así un técnico que
+ * actualiza el progreso varias veces seguidas no inunda la sesión del cliente.
  */
 @Service
 public class NotificacionWebSocketService {
 
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionWebSocketService.class);
+
+    private static final String TIPO_ESTADO_ACTUALIZADO = "ESTADO_ACTUALIZADO";
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${websocket.notificaciones.ventana-coalescencia-ms:500}")
+    private long ventanaCoalescenciaMs;
+
+    @Value("${websocket.notificaciones.max-pendientes-por-usuario:50}")
+    private int maxPendientesPorUsuario;
+
+    /**
+     * Notificaciones pendientes de un usuario, en orden de llegada, por clave de coalescencia.
+     */
+    private static class Pendientes {
+        final LinkedHashMap<String, NotificacionDTO> mensajes = new LinkedHashMap<>();
+        long secuencia;
+    }
+
+    private final ConcurrentHashMap<String, Pendientes> pendientesPorUsuario = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService programador;
+
+    // Métricas
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong coalescidos = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong pendientes = new AtomicLong();
+
+    private Timer timerEnvioUsuario;
+    private Timer timerEnvioTopic;
+
+    @PostConstruct
+    public void iniciar() {
+        programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "websocket-coalescencia");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        registrarMetricas();
+    }
+
+    @PreDestroy
+    public void detener() {
+        programador.shutdownNow();
+    }
+
     /**
      * Enviar notificación a un usuario específico.
+     * Pasa por el buffer del usuario; se entrega al cerrar la ventana de coalescencia.
      * @param username El nombre de usuario del cliente.
      * @param notificacion La notificación a enviar.
      */
     public void enviarNotificacionAUsuario(String username, NotificacionDTO notificacion) {
-        messagingTemplate.convertAndSendToUser(
+        if (ventanaCoalescenciaMs <= 0) {
+            enviar(username, notificacion);
+            return;
+        }
+        encolados.incrementAndGet();
+        pendientesPorUsuario.compute(username, (usuario, actual) -> {
+            Pendientes buffer = actual;
+            if (buffer == null) {
+                buffer = new Pendientes();
+                // Primer mensaje del lote: se programa su entrega
+                programador.schedule(() -> vaciar(usuario), ventanaCoalescenciaMs, TimeUnit.MILLISECONDS);
+            }
+            String clave = TIPO_ESTADO_ACTUALIZADO.equals(notificacion.getTipo()) && notificacion.getOrdenId() != null
+                    ? TIPO_ESTADO_ACTUALIZADO + ":" + notificacion.getOrdenId()
+                    : "#" + buffer.secuencia++;
+            if (buffer.mensajes.remove(clave) != null) {
+                // El estado anterior de la misma orden queda reemplazado por el nuevo
+                coalescidos.incrementAndGet();
+                pendientes.decrementAndGet();
+            } else if (buffer.mensajes.size() >= maxPendientesPorUsuario) {
+                Iterator<NotificacionDTO> masAntigua = buffer.mensajes.values().iterator();
+                masAntigua.next();
+                masAntigua.remove();
+                descartados.incrementAndGet();
+                pendientes.decrementAndGet();
+            }
+            buffer.mensajes.put(clave, notificacion);
+            pendientes.incrementAndGet();
+            return buffer;
+        });
+    }
+
+    /**
+     * Métricas del buffer de notificaciones por usuario.
+     */
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("ventanaCoalescenciaMs", ventanaCoalescenciaMs);
+        metricas.put("usuariosConPendientes", pendientesPorUsuario.size());
+        metricas.put("pendientes", pendientes.get());
+        metricas.put("encolados", encolados.get());
+        metricas.put("enviados", enviados.get());
+        metricas.put("coalescidos", coalescidos.get());
+        metricas.put("descartados", descartados.get());
+        return metricas;
+    }
+
+    private void registrarMetricas() {
+        timerEnvioUsuario = Timer.builder("autofixpro.websocket.envio")
+                .description("Tiempo de entrega de un mensaje al canal de salida STOMP")
+                .tag("destino", "usuario").register(meterRegistry);
+        timerEnvioTopic = Timer.builder("autofixpro.websocket.envio")
+                .description("Tiempo de entrega de un mensaje al canal de salida STOMP")
+                .tag("destino", "topic").register(meterRegistry);
+        for (Map.Entry<String, AtomicLong> contador : Map.of(
+                "encolado", encolados, "enviado", enviados, "coalescido", coalescidos, "descartado", descartados).entrySet()) {
+            FunctionCounter.builder("autofixpro.websocket.notificaciones", contador.getValue(), AtomicLong::get)
+                    .description("Notificaciones del buffer por usuario, por resultado")
+                    .tag("resultado", contador.getKey()).register(meterRegistry);
+        }
+        Gauge.builder("autofixpro.websocket.pendientes", pendientes, AtomicLong::get)
+                .description("Notificaciones esperando en los buffers por usuario").register(meterRegistry);
+    }
+
+    private void vaciar(String username) {
+        Pendientes buffer = pendientesPorUsuario.remove(username);
+        if (buffer == null) {
+            return;
+        }
+        pendientes.addAndGet(-buffer.mensajes.size());
+        for (NotificacionDTO notificacion : buffer.mensajes.values()) {
+            try {
+                enviar(username, notificacion);
+            } catch (Exception e) {
+                logger.warn("No se pudo enviar la notificación a {}: {}", username, e.getMessage());
+            }
+        }
+    }
+
+    private void enviar(String username, NotificacionDTO notificacion) {
+        timerEnvioUsuario.record(() -> messagingTemplate.convertAndSendToUser(
             username,
             "/queue/notificaciones",
             notificacion
-        );
-        System.out.println("📨 Notificación enviada a usuario: " + username + " - " + notificacion.getTitulo());
+        ));
+        enviados.incrementAndGet();
+        logger.debug("Notificación enviada a usuario: {} - {}", username, notificacion.getTitulo());
     }
 
     /**
@@ -37,11 +193,23 @@ public class NotificacionWebSocketService {
      * @param notificacion La notificación a enviar.
      */
     public void enviarNotificacionBroadcast(NotificacionDTO notificacion) {
-        messagingTemplate.convertAndSend(
+        timerEnvioTopic.record(() -> messagingTemplate.convertAndSend(
             "/topic/notificaciones",
             notificacion
-        );
-        System.out.println("📢 Notificación broadcast enviada: " + notificacion.getTitulo());
+        ));
+        logger.debug("Notificación broadcast enviada: {}", notificacion.getTitulo());
+    }
+
+    /**
+     * Publicar una alerta para un rol del personal.
+     * Es una sola publicación en el destino del canal, sin importar cuántos usuarios existan;
+     * el broker la entrega a las sesiones suscritas.
+     * @param canal El canal del rol destinatario.
+     * @param notificacion La alerta a enviar.
+     */
+    public void publicarAStaff(CanalStaff canal, Object notificacion) {
+        timerEnvioTopic.record(() -> messagingTemplate.convertAndSend(canal.getDestino(), notificacion));
+        logger.debug("Alerta publicada en {}", canal.getDestino());
     }
 
     /**
@@ -63,7 +231,7 @@ public class NotificacionWebSocketService {
         String mensajeEstado = formatearEstado(orden.getEstadoOrden());
 
         NotificacionDTO notificacion = NotificacionDTO.builder()
-            .tipo("ESTADO_ACTUALIZADO")
+            .tipo(TIPO_ESTADO_ACTUALIZADO)
             .titulo("🔧 Estado Actualizado")
             .mensaje(String.format("Tu vehículo %s %s ahora está en estado: %s",
                     orden.getVehiculo().getMarca(),
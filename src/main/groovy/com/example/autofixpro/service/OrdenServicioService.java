@@ -1,17 +1,38 @@
 package com.example.autofixpro.service;
 
+import com.example.autofixpro.dao.EstadoVehiculoDAO;
 import com.example.autofixpro.dao.OrdenServicioDAO;
+import com.example.autofixpro.dao.TecnicoDAO;
+import com.example.autofixpro.dto.EstadoVehiculoDTO;
+import com.example.autofixpro.dto.OrdenServicioDTO;
+import com.example.autofixpro.dto.PaginaCursorDTO;
+import com.example.autofixpro.dto.ResultadoLoteProgresoDTO;
 import com.example.autofixpro.entity.OrdenServicio;
+import com.example.autofixpro.entity.Tecnico;
 import com.example.autofixpro.entity.Vehiculo;
 import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
 import com.example.autofixpro.util.EstadoVehiculoManager;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Servicio para gestionar la lógica de negocio de las órdenes de servicio.
@@ -21,6 +42,8 @@ import java.util.Optional;
 @Transactional
 public class OrdenServicioService implements GenericService<OrdenServicio, Long> {
 
+    private static final int TAMANIO_PAGINA_MAXIMO = 200;
+
     @Autowired
     private OrdenServicioDAO ordenServicioDAO;
 
@@ -30,29 +53,66 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
     @Autowired
     private EstadoVehiculoManager estadoVehiculoManager;
 
+    @Autowired
+    private EstadoVehiculoDAO estadoVehiculoDAO;
+
+    @Autowired
+    private DashboardMetricsService dashboardMetricsService;
+
+    @Autowired
+    private TecnicoLoadIndex tecnicoLoadIndex;
+
+    @Autowired
+    private TecnicoDAO tecnicoDAO;
+
+    @Autowired
+    private ColaTrabajoService colaTrabajoService;
+
+    @Autowired
+    private ReporteDiarioService reporteDiarioService;
+
+    @Autowired
+    private PlacaIndex placaIndex;
+
     @Override
     public OrdenServicio save(OrdenServicio ordenServicio) {
-        return ordenServicioDAO.save(ordenServicio);
+        ReporteDiarioService.Huella antes = reporteDiarioService.obtenerHuellaGuardada(ordenServicio.getOrdenId());
+        OrdenServicio guardada = ordenServicioDAO.save(ordenServicio);
+        reporteDiarioService.registrarCambio(antes, ReporteDiarioService.huella(guardada));
+        placaIndex.invalidarConsulta(vehiculoIdDe(guardada));
+        colaTrabajoService.sincronizar(guardada);
+        return guardada;
     }
 
+    // Sin readOnly: se lee del primario porque su versión se usa en el bloqueo optimista y suele preceder a una escritura
     @Override
     public Optional<OrdenServicio> findById(Long id) {
         return ordenServicioDAO.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrdenServicio> findAll() {
         return ordenServicioDAO.findAll();
     }
 
     @Override
     public OrdenServicio update(OrdenServicio ordenServicio) {
-        return ordenServicioDAO.save(ordenServicio);
+        ReporteDiarioService.Huella antes = reporteDiarioService.obtenerHuellaGuardada(ordenServicio.getOrdenId());
+        OrdenServicio actualizada = ordenServicioDAO.save(ordenServicio);
+        reporteDiarioService.registrarCambio(antes, ReporteDiarioService.huella(actualizada));
+        placaIndex.invalidarConsulta(vehiculoIdDe(actualizada));
+        colaTrabajoService.sincronizar(actualizada);
+        return actualizada;
     }
 
     @Override
     public void deleteById(Long id) {
+        ReporteDiarioService.Huella antes = reporteDiarioService.obtenerHuellaGuardada(id);
+        ordenServicioDAO.findById(id).ifPresent(orden -> placaIndex.invalidarConsulta(vehiculoIdDe(orden)));
         ordenServicioDAO.deleteById(id);
+        reporteDiarioService.registrarCambio(antes, null);
+        colaTrabajoService.quitar(id);
     }
 
     @Override
@@ -61,6 +121,7 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
     }
 
     @Override
+    @Transactional(readOnly = true)
     public long count() {
         return ordenServicioDAO.count();
     }
@@ -74,6 +135,7 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
      * @param descripcionProblema La descripción del problema reportado por el cliente.
      * @return La orden de servicio creada y guardada.
      */
+    @Timed(value = "autofixpro.ordenes", extraTags = {"operacion", "crear"}, histogram = true)
     public OrdenServicio crearOrdenServicio(Vehiculo vehiculo, String descripcionProblema) {
         OrdenServicio orden = new OrdenServicio();
         orden.setVehiculo(vehiculo);
@@ -89,6 +151,13 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
         // Enviar notificación de ingreso
         notificationService.notificarIngresoVehiculo(savedOrden);
 
+        // Actualizar métricas del dashboard (se aplica tras el commit)
+        dashboardMetricsService.registrarOrdenCreada(savedOrden.getEstadoOrden(), savedOrden.getPrioridad(),
+                savedOrden.getTecnico() != null ? savedOrden.getTecnico().getTecnicoId() : null);
+        colaTrabajoService.sincronizar(savedOrden);
+        reporteDiarioService.registrarCambio(null, ReporteDiarioService.huella(savedOrden));
+        placaIndex.invalidarConsulta(vehiculoIdDe(savedOrden));
+
         return savedOrden;
     }
 
@@ -101,15 +170,30 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
      * @return La orden de servicio actualizada.
      * @throws RuntimeException si la orden de servicio no se encuentra.
      */
+    @Timed(value = "autofixpro.ordenes", extraTags = {"operacion", "actualizar_progreso"}, histogram = true)
     public OrdenServicio actualizarProgreso(Long ordenId, EstadoOrden nuevoEstado, String observaciones) {
+        return actualizarProgreso(ordenId, nuevoEstado, observaciones, null);
+    }
+
+    /**
+     * Actualiza el progreso de una orden exigiendo la versión que leyó el cliente.
+     * @param versionEsperada La versión leída por el cliente, o null para aplicar sobre la versión actual.
+     * @throws ConflictoVersionException si la orden cambió desde esa versión.
+     */
+    @Timed(value = "autofixpro.ordenes", extraTags = {"operacion", "actualizar_progreso"}, histogram = true)
+    public OrdenServicio actualizarProgreso(Long ordenId, EstadoOrden nuevoEstado, String observaciones,
+                                            Long versionEsperada) {
         Optional<OrdenServicio> ordenOpt = ordenServicioDAO.findById(ordenId);
 
         if (ordenOpt.isPresent()) {
             OrdenServicio orden = ordenOpt.get();
+            verificarVersion(orden, versionEsperada);
             EstadoOrden estadoAnterior = orden.getEstadoOrden();
+            ReporteDiarioService.Huella antes = ReporteDiarioService.huella(orden);
 
             orden.setEstadoOrden(nuevoEstado);
-            OrdenServicio updatedOrden = ordenServicioDAO.save(orden);
+            // El flush ejecuta el UPDATE con la versión leída; un conflicto aparece aquí y no al confirmar
+            OrdenServicio updatedOrden = ordenServicioDAO.saveAndFlush(orden);
 
             // Actualizar estado del vehículo
             estadoVehiculoManager.actualizarEstado(updatedOrden, nuevoEstado, observaciones);
@@ -117,17 +201,245 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
             // Enviar notificación de actualización
             notificationService.notificarActualizacionEstado(updatedOrden, estadoAnterior, nuevoEstado);
 
+            // Actualizar métricas del dashboard y carga del técnico (se aplica tras el commit)
+            Long tecnicoId = updatedOrden.getTecnico() != null ? updatedOrden.getTecnico().getTecnicoId() : null;
+            dashboardMetricsService.registrarCambioEstado(estadoAnterior, nuevoEstado, updatedOrden.getPrioridad(), tecnicoId);
+            tecnicoLoadIndex.registrarCambioEstado(tecnicoId, estadoAnterior, nuevoEstado);
+            colaTrabajoService.sincronizar(updatedOrden);
+            reporteDiarioService.registrarCambio(antes, ReporteDiarioService.huella(updatedOrden));
+            placaIndex.invalidarConsulta(vehiculoIdDe(updatedOrden));
+
             return updatedOrden;
         }
 
         throw new RuntimeException("Orden de servicio no encontrada: " + ordenId);
     }
 
+    /**
+     * Cambia el estado de varias órdenes en una sola transacción (por ejemplo, COMPLETADO → ENTREGADO al cierre).
+     * Las órdenes se leen con una consulta; las que no existen o no admiten la transición se rechazan
+     * y el resto cambia. Los UPDATE se envían en un batch JDBC con un único flush, los estados de vehículo
+     * en otro batch antes del commit, y cada cliente recibe una sola notificación con todas sus órdenes.
+     * @param ordenIds Los IDs de las órdenes.
+     * @param nuevoEstado El estado al que pasan.
+     * @param observaciones Observaciones para la línea de tiempo de cada orden.
+     * @return Las órdenes aplicadas y las rechazadas con su motivo.
+     */
+    @Timed(value = "autofixpro.ordenes", extraTags = {"operacion", "actualizar_lote"}, histogram = true)
+    public ResultadoLoteProgresoDTO actualizarProgresoEnLote(Collection<Long> ordenIds, EstadoOrden nuevoEstado,
+                                                             String observaciones) {
+        Collection<Long> ids = new LinkedHashSet<>(ordenIds);
+        Map<Long, OrdenServicio> encontradas = new HashMap<>();
+        for (OrdenServicio orden : ordenServicioDAO.findParaLote(ids)) {
+            encontradas.put(orden.getOrdenId(), orden);
+        }
+
+        List<OrdenServicio> aplicadas = new ArrayList<>();
+        List<ResultadoLoteProgresoDTO.Rechazo> rechazadas = new ArrayList<>();
+        Map<Long, EstadoOrden> estadosAnteriores = new HashMap<>();
+        Map<Long, ReporteDiarioService.Huella> huellasAnteriores = new HashMap<>();
+
+        for (Long ordenId : ids) {
+            OrdenServicio orden = encontradas.get(ordenId);
+            if (orden == null) {
+                rechazadas.add(new ResultadoLoteProgresoDTO.Rechazo(ordenId, null, "Orden de servicio no encontrada"));
+                continue;
+            }
+            EstadoOrden estadoAnterior = orden.getEstadoOrden();
+            if (!estadoAnterior.puedeCambiarA(nuevoEstado)) {
+                rechazadas.add(new ResultadoLoteProgresoDTO.Rechazo(ordenId, estadoAnterior,
+                        "Transición no permitida: " + estadoAnterior + " → " + nuevoEstado));
+                continue;
+            }
+            estadosAnteriores.put(ordenId, estadoAnterior);
+            huellasAnteriores.put(ordenId, ReporteDiarioService.huella(orden));
+            orden.setEstadoOrden(nuevoEstado);
+            if (nuevoEstado == EstadoOrden.COMPLETADO) {
+                orden.setFechaEntrega(LocalDateTime.now());
+            }
+            aplicadas.add(orden);
+        }
+
+        if (aplicadas.isEmpty()) {
+            return new ResultadoLoteProgresoDTO(nuevoEstado, List.of(), rechazadas, 0);
+        }
+
+        // Un único flush: Hibernate agrupa los UPDATE (iguales gracias a @DynamicUpdate) en batches JDBC
+        ordenServicioDAO.flush();
+
+        for (OrdenServicio orden : aplicadas) {
+            Long ordenId = orden.getOrdenId();
+            EstadoOrden estadoAnterior = estadosAnteriores.get(ordenId);
+            Long tecnicoId = orden.getTecnico() != null ? orden.getTecnico().getTecnicoId() : null;
+
+            // Se acumulan en el lote de la transacción y se insertan juntos antes del commit
+            estadoVehiculoManager.actualizarEstado(orden, nuevoEstado, observaciones);
+            dashboardMetricsService.registrarCambioEstado(estadoAnterior, nuevoEstado, orden.getPrioridad(), tecnicoId);
+            tecnicoLoadIndex.registrarCambioEstado(tecnicoId, estadoAnterior, nuevoEstado);
+            colaTrabajoService.sincronizar(orden);
+            reporteDiarioService.registrarCambio(huellasAnteriores.get(ordenId), ReporteDiarioService.huella(orden));
+            placaIndex.invalidarConsulta(vehiculoIdDe(orden));
+        }
+
+        int clientesNotificados = notificationService.notificarActualizacionesEnLote(aplicadas, estadosAnteriores, nuevoEstado);
+
+        return new ResultadoLoteProgresoDTO(nuevoEstado,
+                aplicadas.stream().map(OrdenServicio::getOrdenId).toList(), rechazadas, clientesNotificados);
+    }
+
+    /**
+     * Asigna (o reasigna) un técnico a una orden y actualiza el índice de carga de técnicos.
+     * @param orden La orden de servicio.
+     * @param tecnico El técnico a asignar.
+     * @return La orden de servicio guardada.
+     */
+    public OrdenServicio asignarTecnico(OrdenServicio orden, Tecnico tecnico) {
+        Long tecnicoAnteriorId = orden.getTecnico() != null ? orden.getTecnico().getTecnicoId() : null;
+        OrdenServicio updatedOrden = guardarTecnico(orden, tecnico);
+
+        if (TecnicoLoadIndex.esAbierta(updatedOrden.getEstadoOrden())) {
+            tecnicoLoadIndex.registrarReasignacion(tecnicoAnteriorId, tecnico != null ? tecnico.getTecnicoId() : null);
+        }
+        return updatedOrden;
+    }
+
+    /**
+     * Asigna a una orden abierta el técnico activo menos cargado. El cupo se reserva en el índice de carga
+     * al elegirlo, para que dos solicitudes simultáneas no elijan al mismo técnico, y se devuelve si la
+     * asignación no llega a confirmarse.
+     * @param orden La orden de servicio, sin técnico.
+     * @return La orden guardada con el técnico, o la misma orden si no hay técnicos disponibles.
+     */
+    public OrdenServicio asignarTecnicoAutomaticamente(OrdenServicio orden) {
+        Optional<TecnicoLoadIndex.Reserva> reserva = tecnicoLoadIndex.reservarMenosCargado(null);
+        if (reserva.isEmpty()) {
+            return orden;
+        }
+        tecnicoLoadIndex.confirmarAlTerminar(reserva.get());
+
+        Optional<Tecnico> tecnico = tecnicoDAO.findById(reserva.get().getTecnicoId());
+        if (tecnico.isEmpty()) {
+            // Eliminado después de la última carga del índice
+            tecnicoLoadIndex.liberar(reserva.get());
+            return orden;
+        }
+        return guardarTecnico(orden, tecnico.get());
+    }
+
+    /**
+     * Asigna un técnico a la orden leída en la transacción actual, exigiendo la versión que leyó el cliente.
+     * @param ordenId El ID de la orden.
+     * @param tecnico El técnico a asignar.
+     * @param versionEsperada La versión leída por el cliente, o null para aplicar sobre la versión actual.
+     * @return La orden de servicio guardada.
+     * @throws ConflictoVersionException si la orden cambió desde esa versión.
+     */
+    public OrdenServicio asignarTecnico(Long ordenId, Tecnico tecnico, Long versionEsperada) {
+        OrdenServicio orden = ordenServicioDAO.findById(ordenId)
+                .orElseThrow(() -> new RuntimeException("Orden de servicio no encontrada: " + ordenId));
+        verificarVersion(orden, versionEsperada);
+        return asignarTecnico(orden, tecnico);
+    }
+
+    // Guarda el técnico de la orden; la carga del técnico la actualiza quien llama
+    private OrdenServicio guardarTecnico(OrdenServicio orden, Tecnico tecnico) {
+        ReporteDiarioService.Huella antes = ReporteDiarioService.huella(orden);
+        orden.setTecnico(tecnico);
+        OrdenServicio updatedOrden = ordenServicioDAO.saveAndFlush(orden);
+        colaTrabajoService.sincronizar(updatedOrden);
+        reporteDiarioService.registrarCambio(antes, ReporteDiarioService.huella(updatedOrden));
+        return updatedOrden;
+    }
+
+    /**
+     * Cambia solo el costo estimado de una orden; el UPDATE no toca el estado ni el técnico.
+     * @param ordenId El ID de la orden.
+     * @param costoEstimado El nuevo costo estimado.
+     * @param versionEsperada La versión leída por el cliente, o null para aplicar sobre la versión actual.
+     * @return La orden de servicio guardada.
+     * @throws ConflictoVersionException si la orden cambió desde esa versión.
+     */
+    public OrdenServicio actualizarCosto(Long ordenId, Double costoEstimado, Long versionEsperada) {
+        OrdenServicio orden = ordenServicioDAO.findById(ordenId)
+                .orElseThrow(() -> new RuntimeException("Orden de servicio no encontrada: " + ordenId));
+        verificarVersion(orden, versionEsperada);
+        ReporteDiarioService.Huella antes = ReporteDiarioService.huella(orden);
+
+        orden.setCostoEstimado(costoEstimado);
+        OrdenServicio updatedOrden = ordenServicioDAO.saveAndFlush(orden);
+
+        reporteDiarioService.registrarCambio(antes, ReporteDiarioService.huella(updatedOrden));
+        placaIndex.invalidarConsulta(vehiculoIdDe(updatedOrden));
+        return updatedOrden;
+    }
+
+    /**
+     * Marca una orden como completada y actualiza las métricas y la carga del técnico.
+     * @param ordenId El ID de la orden.
+     * @return La orden de servicio completada.
+     * @throws RuntimeException si la orden de servicio no se encuentra.
+     */
+    public OrdenServicio completarOrden(Long ordenId) {
+        return completarOrden(ordenId, null);
+    }
+
+    /**
+     * Completa una orden exigiendo la versión que leyó el cliente.
+     * @param versionEsperada La versión leída por el cliente, o null para aplicar sobre la versión actual.
+     * @throws ConflictoVersionException si la orden cambió desde esa versión.
+     */
+    public OrdenServicio completarOrden(Long ordenId, Long versionEsperada) {
+        OrdenServicio orden = ordenServicioDAO.findById(ordenId)
+                .orElseThrow(() -> new RuntimeException("Orden de servicio no encontrada: " + ordenId));
+        verificarVersion(orden, versionEsperada);
+        EstadoOrden estadoAnterior = orden.getEstadoOrden();
+        ReporteDiarioService.Huella antes = ReporteDiarioService.huella(orden);
+
+        orden.completarOrden();
+        OrdenServicio updatedOrden = ordenServicioDAO.saveAndFlush(orden);
+
+        Long tecnicoId = updatedOrden.getTecnico() != null ? updatedOrden.getTecnico().getTecnicoId() : null;
+        dashboardMetricsService.registrarCambioEstado(estadoAnterior, EstadoOrden.COMPLETADO, updatedOrden.getPrioridad(), tecnicoId);
+        tecnicoLoadIndex.registrarCambioEstado(tecnicoId, estadoAnterior, EstadoOrden.COMPLETADO);
+        colaTrabajoService.quitar(ordenId);
+        reporteDiarioService.registrarCambio(antes, ReporteDiarioService.huella(updatedOrden));
+        placaIndex.invalidarConsulta(vehiculoIdDe(updatedOrden));
+        return updatedOrden;
+    }
+
+    /**
+     * Toma la siguiente orden de la cola de trabajo para un técnico: se le asigna
+     * y pasa a EN_DIAGNOSTICO. La fila se bloquea para que otro técnico no tome la misma orden.
+     * @param tecnico El técnico que pide trabajo.
+     * @return La orden tomada, o vacío si no hay órdenes pendientes para el técnico.
+     */
+    public Optional<OrdenServicio> tomarSiguienteOrden(Tecnico tecnico) {
+        Optional<Long> siguienteId;
+        while ((siguienteId = colaTrabajoService.extraerSiguiente(tecnico.getTecnicoId())).isPresent()) {
+            OrdenServicio orden = ordenServicioDAO.findByIdParaActualizar(siguienteId.get()).orElse(null);
+            if (orden == null || orden.getEstadoOrden() != EstadoOrden.RECIBIDO) {
+                // La cola estaba desactualizada (orden borrada o ya tomada); se prueba con la siguiente
+                continue;
+            }
+            if (orden.getTecnico() != null && !orden.getTecnico().getTecnicoId().equals(tecnico.getTecnicoId())) {
+                // Otro técnico la tiene asignada desde otra instancia; vuelve a su cola tras el commit
+                colaTrabajoService.sincronizar(orden);
+                continue;
+            }
+
+            asignarTecnico(orden, tecnico);
+            return Optional.of(actualizarProgreso(orden.getOrdenId(), EstadoOrden.EN_DIAGNOSTICO,
+                    "Orden tomada de la cola de trabajo"));
+        }
+        return Optional.empty();
+    }
+
     /**
      * Busca todas las órdenes de servicio que se encuentran en un estado específico.
      * @param estado El estado de la orden a buscar.
      * @return Una lista de órdenes de servicio que coinciden con el estado.
      */
+    @Transactional(readOnly = true)
     public List<OrdenServicio> findByEstado(EstadoOrden estado) {
         return ordenServicioDAO.findByEstadoOrden(estado);
     }
@@ -137,6 +449,7 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
      * @param tecnicoId El ID del técnico.
      * @return Una lista de órdenes de servicio asignadas al técnico.
      */
+    @Transactional(readOnly = true)
     public List<OrdenServicio> findByTecnico(Long tecnicoId) {
         return ordenServicioDAO.findByTecnicoTecnicoId(tecnicoId);
     }
@@ -146,6 +459,7 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
      * @param vehiculoId El ID del vehículo.
      * @return Una lista de órdenes de servicio para el vehículo.
      */
+    @Transactional(readOnly = true)
     public List<OrdenServicio> findByVehiculo(Long vehiculoId) {
         return ordenServicioDAO.findByVehiculoVehiculoId(vehiculoId);
     }
@@ -156,6 +470,7 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
      * @param vehiculoId El ID del vehículo.
      * @return Una lista de órdenes de servicio ordenadas por fecha descendente.
      */
+    @Transactional(readOnly = true)
     public List<OrdenServicio> findHistorialByVehiculoId(Long vehiculoId) {
         return ordenServicioDAO.findHistorialByVehiculoId(vehiculoId);
     }
@@ -167,7 +482,135 @@ public class OrdenServicioService implements GenericService<OrdenServicio, Long>
      * @param fechaFin La fecha de fin del período.
      * @return Una lista de órdenes de servicio creadas dentro del período.
      */
+    @Transactional(readOnly = true)
     public List<OrdenServicio> findByPeriodo(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
         return ordenServicioDAO.findByFechaIngresoBetween(fechaInicio, fechaFin);
     }
+
+    /**
+     * Recorre las órdenes de un período con un cursor de base de datos y entrega cada una al consumidor,
+     * sin cargar el resultado completo en memoria. Útil para exportar reportes (CU06).
+     * La transacción de solo lectura mantiene abierto el cursor mientras dura el recorrido.
+     * @param fechaInicio La fecha de inicio del período.
+     * @param fechaFin La fecha de fin del período.
+     * @param consumidor Recibe cada orden, de la más antigua a la más reciente.
+     * @return El número de órdenes recorridas.
+     */
+    @Transactional(readOnly = true)
+    public long recorrerPorPeriodo(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                                   Consumer<OrdenServicioDTO> consumidor) {
+        long total = 0;
+        try (Stream<OrdenServicioDTO> ordenes = ordenServicioDAO.streamProyectadoPorPeriodo(fechaInicio, fechaFin)) {
+            Iterator<OrdenServicioDTO> it = ordenes.iterator();
+            while (it.hasNext()) {
+                consumidor.accept(it.next());
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene los últimos estados registrados de una orden, del más reciente al más antiguo.
+     * @param ordenId El ID de la orden de servicio.
+     * @param cantidad El número máximo de estados a devolver.
+     * @return La línea de tiempo de la orden como DTOs.
+     */
+    @Transactional(readOnly = true)
+    public List<EstadoVehiculoDTO> obtenerUltimosEstados(Long ordenId, int cantidad) {
+        return estadoVehiculoDAO.findUltimosPorOrden(ordenId, PageRequest.of(0, cantidad));
+    }
+
+    /**
+     * Obtiene el último estado registrado de cada orden indicada, en una sola consulta.
+     * @param ordenIds Los IDs de las órdenes de servicio.
+     * @return Un mapa ordenId → último estado (las órdenes sin estados no aparecen).
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, EstadoVehiculoDTO> obtenerUltimoEstadoPorOrden(Collection<Long> ordenIds) {
+        Map<Long, EstadoVehiculoDTO> resultado = new HashMap<>();
+        if (ordenIds.isEmpty()) {
+            return resultado;
+        }
+        for (EstadoVehiculoDTO estado : estadoVehiculoDAO.findUltimoEstadoPorOrdenes(ordenIds)) {
+            resultado.putIfAbsent(estado.getOrdenId(), estado);
+        }
+        return resultado;
+    }
+
+    /**
+     * Lista órdenes de servicio paginadas por cursor (keyset sobre fechaIngreso, ordenId),
+     * de la más reciente a la más antigua. Usa una proyección a DTO en una sola consulta SQL,
+     * por lo que el costo de cada página no depende del tamaño total de la tabla.
+     * @param estado Filtro opcional por estado.
+     * @param prioridad Filtro opcional por prioridad.
+     * @param tecnicoId Filtro opcional por técnico asignado.
+     * @param fechaDesde Límite inferior opcional de fechaIngreso (inclusive).
+     * @param fechaHasta Límite superior opcional de fechaIngreso (inclusive).
+     * @param cursor Cursor opaco devuelto por la página anterior, o null para la primera página.
+     * @param tamanio Número de órdenes por página (entre 1 y 200).
+     * @return La página de órdenes con el cursor para la página siguiente.
+     * @throws IllegalArgumentException si el cursor no es válido.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<OrdenServicioDTO> listarOrdenesPaginadas(EstadoOrden estado, Prioridad prioridad, Long tecnicoId,
+                                                                    LocalDateTime fechaDesde, LocalDateTime fechaHasta,
+                                                                    String cursor, int tamanio) {
+        int limite = Math.max(1, Math.min(tamanio, TAMANIO_PAGINA_MAXIMO));
+
+        LocalDateTime cursorFecha = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = decodificarCursor(cursor);
+            cursorFecha = LocalDateTime.parse(partes[0]);
+            cursorId = Long.valueOf(partes[1]);
+        }
+
+        // Se pide un elemento extra para saber si existe una página siguiente
+        List<OrdenServicioDTO> resultado = ordenServicioDAO.findPaginaProyectada(
+                estado, prioridad, tecnicoId, fechaDesde, fechaHasta, cursorFecha, cursorId,
+                PageRequest.of(0, limite + 1));
+
+        boolean hayMas = resultado.size() > limite;
+        List<OrdenServicioDTO> contenido = hayMas ? resultado.subList(0, limite) : resultado;
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            OrdenServicioDTO ultima = contenido.get(contenido.size() - 1);
+            siguienteCursor = codificarCursor(ultima.getFechaIngreso(), ultima.getOrdenId());
+        }
+
+        return new PaginaCursorDTO<>(contenido, siguienteCursor, hayMas);
+    }
+
+    private void verificarVersion(OrdenServicio orden, Long versionEsperada) {
+        if (versionEsperada != null && !versionEsperada.equals(orden.getVersion())) {
+            throw new ConflictoVersionException(orden.getOrdenId(), orden.getVersion());
+        }
+    }
+
+    private Long vehiculoIdDe(OrdenServicio orden) {
+        return orden.getVehiculo() != null ? orden.getVehiculo().getVehiculoId() : null;
+    }
+
+    private String codificarCursor(LocalDateTime fechaIngreso, Long ordenId) {
+        String valor = fechaIngreso + "|" + ordenId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            // Validar el formato antes de usarlo en la consulta
+            LocalDateTime.parse(partes[0]);
+            Long.valueOf(partes[1]);
+            return partes;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+        }
+    }
 }
\ No newline at end of file
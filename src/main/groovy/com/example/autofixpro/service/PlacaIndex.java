@@ -0,0 +1,320 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dao.EstadoVehiculoDAO;
+import com.example.autofixpro.dao.OrdenServicioDAO;
+import com.example.autofixpro.dao.VehiculoDAO;
+import com.example.autofixpro.dto.ConsultaVehiculoDTO;
+import com.example.autofixpro.dto.EstadoVehiculoDTO;
+import com.example.autofixpro.dto.OrdenServicioDTO;
+import com.example.autofixpro.entity.Vehiculo;
+import com.example.autofixpro.util.EstadoReconstruible;
+import com.example.autofixpro.util.TransaccionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria de placas para la consulta pública (sin autenticación) y el autocompletado.
+ *
+ * Las placas se normalizan a mayúsculas sin guiones ni espacios ("abc-123" → "ABC123") y se guardan
+ * en un mapa ordenado placa → vehiculoId, así que buscar una placa o listar las que empiezan por
+ * un prefijo es O(log n) sin bloquear. Además guarda en caché, con TTL y tamaño máximo:
+ * - el resumen de estado de cada vehículo consultado (se invalida al cambiar sus órdenes), y
+ * - las placas que no existen (caché negativa), para que los errores de tipeo y los scrapers
+ *   no lleguen a la base de datos.
+ * VehiculoService y OrdenServicioService notifican los cambios tras el commit; una reconstrucción
+ * periódica con una única consulta proyectada corrige desviaciones, como en ClienteSearchIndex
+ * (ver EstadoReconstruible). Las estructuras son concurrentes, así que las lecturas no bloquean.
+ */
+@Service
+public class PlacaIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlacaIndex.class);
+
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^A-Z0-9]");
+
+    @Autowired
+    private VehiculoDAO vehiculoDAO;
+
+    @Autowired
+    private OrdenServicioDAO ordenServicioDAO;
+
+    @Autowired
+    private EstadoVehiculoDAO estadoVehiculoDAO;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${consulta.placas.max-resumenes:2000}")
+    private int maxResumenes;
+
+    @Value("${consulta.placas.ttl-resumen-segundos:60}")
+    private long ttlResumenSegundos;
+
+    @Value("${consulta.placas.max-ausentes:10000}")
+    private int maxAusentes;
+
+    @Value("${consulta.placas.ttl-ausente-segundos:300}")
+    private long ttlAusenteSegundos;
+
+    /**
+     * Estado del índice de placas; la reconstrucción lo reemplaza de una vez.
+     */
+    private static class Estado {
+        final ConcurrentSkipListMap<String, Long> porPlaca = new ConcurrentSkipListMap<>();
+        final Map<Long, String> placaPorVehiculo = new ConcurrentHashMap<>();
+
+        void poner(Long vehiculoId, String placa) {
+            String anterior = placaPorVehiculo.put(vehiculoId, placa);
+            if (anterior != null && !anterior.equals(placa)) {
+                porPlaca.remove(anterior, vehiculoId);
+            }
+            porPlaca.put(placa, vehiculoId);
+        }
+
+        void quitar(Long vehiculoId) {
+            String anterior = placaPorVehiculo.remove(vehiculoId);
+            if (anterior != null) {
+                porPlaca.remove(anterior, vehiculoId);
+            }
+        }
+    }
+
+    private record Resumen(ConsultaVehiculoDTO consulta, long venceNanos) {}
+
+    private final EstadoReconstruible<Estado> estado = new EstadoReconstruible<>(this::cargar);
+
+    // Cachés acotadas en orden de acceso, protegidas por su propio monitor
+    private final LinkedHashMap<Long, Resumen> resumenes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Resumen> eldest) {
+            return size() > maxResumenes;
+        }
+    };
+
+    private final LinkedHashMap<String, Long> ausentes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > maxAusentes;
+        }
+    };
+
+    /**
+     * Normaliza una placa: mayúsculas, sin guiones, espacios ni otros signos.
+     */
+    public static String normalizar(String placa) {
+        return placa == null ? "" : NO_ALFANUMERICO.matcher(placa.trim().toUpperCase(Locale.ROOT)).replaceAll("");
+    }
+
+    /**
+     * Resuelve una placa al ID de su vehículo. Las placas desconocidas se verifican una sola vez
+     * en la base de datos y luego se responden desde la caché negativa hasta que vence.
+     * @param placa La placa tal como la escribió el usuario.
+     * @return El ID del vehículo, o vacío si la placa no está registrada.
+     */
+    public Optional<Long> buscarVehiculoId(String placa) {
+        String normalizada = normalizar(placa);
+        if (normalizada.isEmpty()) {
+            return Optional.empty();
+        }
+        Long vehiculoId = estado.obtener().porPlaca.get(normalizada);
+        if (vehiculoId != null) {
+            return Optional.of(vehiculoId);
+        }
+
+        long ahora = System.nanoTime();
+        synchronized (ausentes) {
+            Long vence = ausentes.get(normalizada);
+            if (vence != null) {
+                if (vence - ahora > 0) {
+                    return Optional.empty();
+                }
+                ausentes.remove(normalizada);
+            }
+        }
+
+        // Puede haberse registrado en otra instancia después de la última reconstrucción
+        Optional<Vehiculo> vehiculo = vehiculoDAO.findByPlaca(placa.trim().toUpperCase(Locale.ROOT));
+        if (vehiculo.isPresent()) {
+            estado.modificar(actual -> actual.poner(vehiculo.get().getVehiculoId(), normalizada));
+            return Optional.of(vehiculo.get().getVehiculoId());
+        }
+        synchronized (ausentes) {
+            ausentes.put(normalizada, System.nanoTime() + ttlAusenteSegundos * 1_000_000_000L);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Obtiene el resumen de estado de un vehículo por su placa para la consulta pública.
+     * Usa la caché de resúmenes; si no está o venció, lo arma con tres consultas proyectadas.
+     * @param placa La placa tal como la escribió el usuario.
+     * @return El resumen, o vacío si la placa no está registrada.
+     */
+    public Optional<ConsultaVehiculoDTO> consultar(String placa) {
+        Optional<Long> vehiculoId = buscarVehiculoId(placa);
+        if (vehiculoId.isEmpty()) {
+            return Optional.empty();
+        }
+        Long id = vehiculoId.get();
+
+        long ahora = System.nanoTime();
+        synchronized (resumenes) {
+            Resumen resumen = resumenes.get(id);
+            if (resumen != null) {
+                if (resumen.venceNanos() - ahora > 0) {
+                    return Optional.of(resumen.consulta());
+                }
+                resumenes.remove(id);
+            }
+        }
+
+        Optional<ConsultaVehiculoDTO> cargado = cargarResumen(id);
+        if (cargado.isPresent()) {
+            synchronized (resumenes) {
+                resumenes.put(id, new Resumen(cargado.get(), System.nanoTime() + ttlResumenSegundos * 1_000_000_000L));
+            }
+        } else {
+            // El vehículo se eliminó después de la última reconstrucción
+            estado.modificar(actual -> actual.quitar(id));
+        }
+        return cargado;
+    }
+
+    /**
+     * Devuelve las placas registradas que empiezan por el prefijo, en orden alfabético.
+     * @param prefijo El inicio de la placa (se ignoran guiones y mayúsculas).
+     * @param limite Número máximo de placas a devolver.
+     * @return Las placas normalizadas que coinciden.
+     */
+    public List<String> autocompletar(String prefijo, int limite) {
+        String normalizado = normalizar(prefijo);
+        List<String> resultado = new ArrayList<>();
+        if (normalizado.isEmpty()) {
+            return resultado;
+        }
+        for (String placa : estado.obtener().porPlaca.tailMap(normalizado, true).keySet()) {
+            if (!placa.startsWith(normalizado) || resultado.size() >= limite) {
+                break;
+            }
+            resultado.add(placa);
+        }
+        return resultado;
+    }
+
+    /**
+     * Registra el alta o modificación de un vehículo. Se aplica tras el commit de la transacción actual.
+     */
+    public void registrarVehiculo(Vehiculo vehiculo) {
+        Long vehiculoId = vehiculo.getVehiculoId();
+        String placa = normalizar(vehiculo.getPlaca());
+        if (vehiculoId == null || placa.isEmpty()) {
+            return;
+        }
+        TransaccionUtils.despuesDeConfirmar(() -> {
+            estado.modificar(actual -> actual.poner(vehiculoId, placa));
+            synchronized (ausentes) {
+                ausentes.remove(placa);
+            }
+            invalidarResumen(vehiculoId);
+        });
+    }
+
+    /**
+     * Registra la baja de un vehículo. Se aplica tras el commit de la transacción actual.
+     */
+    public void quitarVehiculo(Long vehiculoId) {
+        TransaccionUtils.despuesDeConfirmar(() -> {
+            estado.modificar(actual -> actual.quitar(vehiculoId));
+            invalidarResumen(vehiculoId);
+        });
+    }
+
+    /**
+     * Descarta el resumen en caché de un vehículo tras el commit (por ejemplo, al cambiar el estado de una orden).
+     */
+    public void invalidarConsulta(Long vehiculoId) {
+        if (vehiculoId != null) {
+            TransaccionUtils.despuesDeConfirmar(() -> invalidarResumen(vehiculoId));
+        }
+    }
+
+    /**
+     * Reconstruye el índice de placas con una única consulta proyectada.
+     * Se ejecuta al iniciar la aplicación y periódicamente para reconciliar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${consulta.placas.reconciliacion-ms:600000}",
+               initialDelayString = "${consulta.placas.reconciliacion-ms:600000}")
+    public void reconstruir() {
+        estado.reconstruir();
+    }
+
+    /**
+     * Lee las placas de todos los vehículos y arma un índice nuevo, en una transacción propia sin readOnly
+     * (del primario), también cuando la carga la dispara la primera consulta.
+     */
+    private Estado cargar() {
+        List<Object[]> filas = new TransactionTemplate(transactionManager)
+                .execute(transaccion -> vehiculoDAO.findIdsYPlacas());
+
+        Estado nuevo = new Estado();
+        for (Object[] fila : filas) {
+            String placa = normalizar((String) fila[1]);
+            if (!placa.isEmpty()) {
+                nuevo.poner((Long) fila[0], placa);
+            }
+        }
+
+        // Las placas registradas después de la lectura las quita registrarVehiculo
+        synchronized (ausentes) {
+            ausentes.clear();
+        }
+        logger.debug("Índice de placas reconstruido: {} vehículos", filas.size());
+        return nuevo;
+    }
+
+    private Optional<ConsultaVehiculoDTO> cargarResumen(Long vehiculoId) {
+        Optional<Vehiculo> vehiculoOpt = vehiculoDAO.findById(vehiculoId);
+        if (vehiculoOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        Vehiculo vehiculo = vehiculoOpt.get();
+
+        List<OrdenServicioDTO> ordenes = ordenServicioDAO.findProyectadasPorVehiculo(vehiculoId);
+        Map<Long, EstadoVehiculoDTO> progreso = new HashMap<>();
+        if (!ordenes.isEmpty()) {
+            List<Long> ordenIds = ordenes.stream().map(OrdenServicioDTO::getOrdenId).toList();
+            for (EstadoVehiculoDTO ultimo : estadoVehiculoDAO.findUltimoEstadoPorOrdenes(ordenIds)) {
+                progreso.putIfAbsent(ultimo.getOrdenId(), ultimo);
+            }
+        }
+
+        return Optional.of(new ConsultaVehiculoDTO(vehiculo.getVehiculoId(), vehiculo.getPlaca(), vehiculo.getMarca(),
+                vehiculo.getModelo(), vehiculo.getYear(), ordenes, progreso));
+    }
+
+    private void invalidarResumen(Long vehiculoId) {
+        synchronized (resumenes) {
+            resumenes.remove(vehiculoId);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dao.OrdenServicioDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta un cambio puntual sobre una orden de servicio con reintento ante conflictos de versión.
+ *
+ * Cada intento va en su propia transacción: vuelve a leer la orden, aplica solo el campo que pidió
+ * el usuario sobre el estado más reciente y guarda. Si otro nodo o usuario confirmó antes, el UPDATE
+ * con la versión anterior no afecta filas, se revierte el intento y se repite tras una espera corta.
+ * Así, un técnico que cambia el estado y un recepcionista que cambia el costo no se pisan: el segundo
+ * en llegar se reaplica sobre lo que guardó el primero. Agotados los reintentos se lanza
+ * ConflictoVersionException con la versión confirmada.
+ *
+ * No debe llamarse dentro de otra transacción (por ejemplo desde OrdenServicioService), porque
+ * el reintento necesita empezar cada intento con una lectura nueva.
+ */
+@Component
+public class ReintentoOptimista {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReintentoOptimista.class);
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OrdenServicioDAO ordenServicioDAO;
+
+    @Value("${ordenes.concurrencia.max-reintentos:3}")
+    private int maxReintentos;
+
+    @Value("${ordenes.concurrencia.espera-base-ms:20}")
+    private long esperaBaseMs;
+
+    private final AtomicLong conflictos = new AtomicLong();
+    private final AtomicLong reintentosExitosos = new AtomicLong();
+    private final AtomicLong conflictosAgotados = new AtomicLong();
+
+    /**
+     * Ejecuta la operación en una transacción nueva, reintentando si falla por un conflicto de versión.
+     * @param ordenId La orden afectada (para informar la versión actual si se agotan los reintentos).
+     * @param operacion El cambio a aplicar; debe leer la orden dentro de la transacción.
+     * @return El resultado de la operación.
+     * @throws ConflictoVersionException si el conflicto persiste tras los reintentos.
+     */
+    public <T> T ejecutar(Long ordenId, Supplier<T> operacion) {
+        try {
+            return ejecutar(operacion);
+        } catch (OptimisticLockingFailureException e) {
+            Long versionActual = ordenServicioDAO.findVersion(ordenId).orElse(null);
+            throw new ConflictoVersionException(ordenId, versionActual, e);
+        }
+    }
+
+    /**
+     * Ejecuta la operación en una transacción nueva, reintentando si falla por un conflicto de versión.
+     * Para operaciones sobre varias órdenes, donde no hay una única versión que informar.
+     * @param operacion El cambio a aplicar; debe leer las órdenes dentro de la transacción.
+     * @return El resultado de la operación.
+     * @throws OptimisticLockingFailureException si el conflicto persiste tras los reintentos.
+     */
+    public <T> T ejecutar(Supplier<T> operacion) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        for (int intento = 0; ; intento++) {
+            try {
+                T resultado = transaccion.execute(estado -> operacion.get());
+                if (intento > 0) {
+                    reintentosExitosos.incrementAndGet();
+                }
+                return resultado;
+            } catch (OptimisticLockingFailureException e) {
+                conflictos.incrementAndGet();
+                if (intento >= maxReintentos) {
+                    conflictosAgotados.incrementAndGet();
+                    logger.warn("Conflicto de versión persistente tras {} intentos: {}", intento + 1, e.getMessage());
+                    throw e;
+                }
+                esperar(intento);
+            }
+        }
+    }
+
+    /**
+     * Métricas de conflictos de concurrencia sobre órdenes.
+     */
+    public Map<String, Object> obtenerMetricas() {
+        return Map.of(
+                "conflictos", conflictos.get(),
+                "reintentosExitosos", reintentosExitosos.get(),
+                "conflictosAgotados", conflictosAgotados.get(),
+                "maxReintentos", maxReintentos);
+    }
+
+    /**
+     * Espera exponencial con variación aleatoria, para que dos escritores en conflicto no choquen otra vez.
+     */
+    private void esperar(int intento) {
+        long maximo = esperaBaseMs << Math.min(intento, 6);
+        if (maximo <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maximo / 2, maximo + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido", e);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dao.OrdenServicioDAO;
+import com.example.autofixpro.dao.ReporteDiarioDAO;
+import com.example.autofixpro.dto.ReportePeriodoDTO;
+import com.example.autofixpro.entity.OrdenServicio;
+import com.example.autofixpro.entity.ReporteDiario;
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.enumeration.Prioridad;
+import com.example.autofixpro.util.TransaccionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio que mantiene los acumulados diarios de reporte_diario y responde los reportes (CU06) con ellos.
+ *
+ * Cada orden cuenta en un grupo (día de ingreso, estado, prioridad, técnico). OrdenServicioService
+ * informa el grupo anterior y el nuevo de cada cambio, y aquí se resta de uno y se suma al otro
+ * en la misma transacción que modifica la orden. Si la tabla está vacía se reconstruye al iniciar,
+ * por lotes de días; una reconstrucción nocturna de los últimos días, y de los días anteriores que
+ * recibieron cambios desde la última, corrige desviaciones.
+ */
+@Service
+public class ReporteDiarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReporteDiarioService.class);
+
+    @Autowired
+    private ReporteDiarioDAO reporteDiarioDAO;
+
+    @Autowired
+    private OrdenServicioDAO ordenServicioDAO;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${reportes.rollup.dias-por-lote:31}")
+    private int diasPorLote;
+
+    @Value("${reportes.rollup.dias-reconciliacion:7}")
+    private int diasReconciliacion;
+
+    // Días de ingreso con cambios confirmados desde la última reconciliación (solo los de esta instancia)
+    private final Set<LocalDate> diasTocados = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Datos de una orden que determinan su grupo y su aporte al acumulado.
+     */
+    public record Huella(LocalDate fecha, EstadoOrden estado, Prioridad prioridad, Long tecnicoId, double costo) {
+
+        boolean mismoGrupo(Huella otra) {
+            return fecha.equals(otra.fecha) && estado == otra.estado && prioridad == otra.prioridad
+                    && Objects.equals(tecnicoId, otra.tecnicoId);
+        }
+    }
+
+    /**
+     * Toma la huella de una orden a partir de la entidad en memoria.
+     * @return La huella, o null si la orden aún no tiene fecha de ingreso o estado.
+     */
+    public static Huella huella(OrdenServicio orden) {
+        if (orden.getFechaIngreso() == null || orden.getEstadoOrden() == null) {
+            return null;
+        }
+        return new Huella(orden.getFechaIngreso().toLocalDate(), orden.getEstadoOrden(),
+                orden.getPrioridad() != null ? orden.getPrioridad() : Prioridad.NORMAL,
+                orden.getTecnico() != null ? orden.getTecnico().getTecnicoId() : null,
+                orden.getCostoEstimado() != null ? orden.getCostoEstimado() : 0);
+    }
+
+    /**
+     * Lee la huella de una orden tal como está guardada en la base de datos.
+     * Se usa cuando la entidad recibida pudo ser modificada fuera del servicio (por ejemplo, en el controlador).
+     * @return La huella guardada, o null si la orden no existe.
+     */
+    public Huella obtenerHuellaGuardada(Long ordenId) {
+        if (ordenId == null) {
+            return null;
+        }
+        List<Object[]> filas = ordenServicioDAO.findDatosReporte(ordenId);
+        if (filas.isEmpty()) {
+            return null;
+        }
+        Object[] fila = filas.get(0);
+        return new Huella(((LocalDateTime) fila[0]).toLocalDate(), (EstadoOrden) fila[1], (Prioridad) fila[2],
+                (Long) fila[3], fila[4] != null ? ((Number) fila[4]).doubleValue() : 0);
+    }
+
+    /**
+     * Mueve el aporte de una orden de su grupo anterior al nuevo, en la transacción actual.
+     * @param antes La huella anterior, o null si la orden es nueva.
+     * @param despues La huella nueva, o null si la orden se eliminó.
+     */
+    public void registrarCambio(Huella antes, Huella despues) {
+        if (Objects.equals(antes, despues)) {
+            return;
+        }
+        TransaccionUtils.despuesDeConfirmar(() -> {
+            if (antes != null) {
+                diasTocados.add(antes.fecha());
+            }
+            if (despues != null) {
+                diasTocados.add(despues.fecha());
+            }
+        });
+        if (antes != null && despues != null && antes.mismoGrupo(despues)) {
+            // Solo cambió el costo: un único ajuste sobre la misma fila
+            acumular(despues, 0, despues.costo() - antes.costo());
+            return;
+        }
+        if (antes != null) {
+            acumular(antes, -1, -antes.costo());
+        }
+        if (despues != null) {
+            acumular(despues, 1, despues.costo());
+        }
+    }
+
+    /**
+     * Genera el reporte de órdenes de un rango de días a partir de los acumulados.
+     * @param desde Primer día del rango (inclusive).
+     * @param hasta Último día del rango (inclusive).
+     * @return El reporte con totales por estado, prioridad, técnico y día.
+     */
+    @Transactional(readOnly = true)
+    public ReportePeriodoDTO obtenerReporte(LocalDate desde, LocalDate hasta) {
+        Map<EstadoOrden, Long> porEstado = new EnumMap<>(EstadoOrden.class);
+        Map<Prioridad, Long> porPrioridad = new EnumMap<>(Prioridad.class);
+        Map<Long, Long> porTecnico = new HashMap<>();
+        Map<LocalDate, Long> porDia = new TreeMap<>();
+        Map<LocalDate, Double> costoPorDia = new TreeMap<>();
+        long total = 0;
+        double costoTotal = 0;
+
+        for (ReporteDiario fila : reporteDiarioDAO.findByRango(desde, hasta)) {
+            long cantidad = fila.getCantidad();
+            double costo = fila.getCostoEstimadoTotal();
+
+            total += cantidad;
+            costoTotal += costo;
+            porEstado.merge(fila.getEstadoOrden(), cantidad, Long::sum);
+            porPrioridad.merge(fila.getPrioridad(), cantidad, Long::sum);
+            porTecnico.merge(fila.getTecnicoId(), cantidad, Long::sum);
+            porDia.merge(fila.getFecha(), cantidad, Long::sum);
+            costoPorDia.merge(fila.getFecha(), costo, Double::sum);
+        }
+
+        return new ReportePeriodoDTO(desde, hasta, total, costoTotal, porEstado, porPrioridad, porTecnico,
+                porDia, costoPorDia);
+    }
+
+    /**
+     * Cuenta las órdenes en un estado ingresadas en un rango de días, sin recorrer ordenes_servicio.
+     */
+    @Transactional(readOnly = true)
+    public long contarPorEstado(EstadoOrden estado, LocalDate desde, LocalDate hasta) {
+        return reporteDiarioDAO.sumarCantidadPorEstado(estado, desde, hasta);
+    }
+
+    /**
+     * Recalcula los acumulados de un rango de días desde las órdenes, en lotes de días.
+     * Cada lote va en su propia transacción para no mantener bloqueos largos.
+     * @param desde Primer día (inclusive).
+     * @param hasta Último día (inclusive).
+     * @return El número de grupos recalculados.
+     */
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        int lote = Math.max(1, diasPorLote);
+        int grupos = 0;
+
+        for (LocalDate inicio = desde; !inicio.isAfter(hasta); inicio = inicio.plusDays(lote)) {
+            LocalDate finExclusivo = inicio.plusDays(lote);
+            if (finExclusivo.isAfter(hasta.plusDays(1))) {
+                finExclusivo = hasta.plusDays(1);
+            }
+            LocalDate inicioLote = inicio;
+            LocalDate finLote = finExclusivo;
+            Integer insertados = transaccion.execute(estado -> reporteDiarioDAO.recalcularRango(inicioLote, finLote));
+            grupos += insertados != null ? insertados : 0;
+        }
+
+        logger.info("Acumulados diarios reconstruidos del {} al {}: {} grupos", desde, hasta, grupos);
+        return grupos;
+    }
+
+    /**
+     * Al iniciar, si reporte_diario está vacía, la llena con todo el historial de órdenes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            if (reporteDiarioDAO.count() > 0) {
+                return;
+            }
+            LocalDateTime primera = ordenServicioDAO.findPrimeraFechaIngreso();
+            if (primera != null) {
+                reconstruir(primera.toLocalDate(), LocalDate.now());
+            }
+        } catch (Exception e) {
+            logger.error("No se pudieron inicializar los acumulados diarios: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruye cada noche los últimos días y, además, los días anteriores a esa ventana que recibieron
+     * cambios desde la última ejecución (por ejemplo, una orden antigua que se entrega hoy).
+     * Si falla, esos días quedan pendientes para la siguiente.
+     */
+    @Scheduled(cron = "${reportes.rollup.reconciliacion-cron:0 30 3 * * *}")
+    public void reconciliar() {
+        LocalDate hoy = LocalDate.now();
+        LocalDate inicioVentana = hoy.minusDays(Math.max(0, diasReconciliacion - 1));
+        Set<LocalDate> tocados = new TreeSet<>(diasTocados);
+        diasTocados.removeAll(tocados);
+
+        try {
+            reconstruir(inicioVentana, hoy);
+            for (LocalDate dia : tocados) {
+                if (dia.isBefore(inicioVentana)) {
+                    reconstruir(dia, dia);
+                }
+            }
+        } catch (Exception e) {
+            diasTocados.addAll(tocados);
+            logger.error("No se pudieron reconciliar los acumulados diarios: {}", e.getMessage());
+        }
+    }
+
+    private void acumular(Huella huella, long cantidad, double costo) {
+        reporteDiarioDAO.acumular(huella.fecha(), huella.estado(), huella.prioridad(), huella.tecnicoId(),
+                cantidad, costo);
+    }
+}
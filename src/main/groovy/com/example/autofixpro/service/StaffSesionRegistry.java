@@ -0,0 +1,87 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.enumeration.CanalStaff;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Registro en memoria de las sesiones WebSocket del personal (administradores, recepcionistas
+ * y técnicos) conectadas a esta instancia. Se alimenta de los eventos de conexión y desconexión
+ * STOMP; los clientes (rol USER) no se registran.
+ */
+@Service
+public class StaffSesionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaffSesionRegistry.class);
+
+    /**
+     * Sesión de un miembro del personal.
+     */
+    public record SesionStaff(String sessionId, String username, List<CanalStaff> canales, LocalDateTime conectado) {}
+
+    private final Map<String, SesionStaff> sesiones = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void alConectar(SessionConnectedEvent evento) {
+        Principal usuario = evento.getUser();
+        if (!(usuario instanceof Authentication autenticacion)) {
+            return;
+        }
+        Set<String> autoridades = autenticacion.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet());
+        List<CanalStaff> canales = CanalStaff.permitidosPara(autoridades);
+        if (canales.isEmpty()) {
+            return;
+        }
+        String sessionId = (String) evento.getMessage().getHeaders().get("simpSessionId");
+        if (sessionId != null) {
+            sesiones.put(sessionId, new SesionStaff(sessionId, autenticacion.getName(), canales, LocalDateTime.now()));
+            logger.debug("Sesión de personal conectada: {} ({})", autenticacion.getName(), canales);
+        }
+    }
+
+    @EventListener
+    public void alDesconectar(SessionDisconnectEvent evento) {
+        sesiones.remove(evento.getSessionId());
+    }
+
+    /**
+     * Número de sesiones conectadas que reciben cada canal.
+     */
+    public Map<CanalStaff, Integer> contarPorCanal() {
+        Map<CanalStaff, Integer> conteo = new EnumMap<>(CanalStaff.class);
+        for (CanalStaff canal : CanalStaff.values()) {
+            conteo.put(canal, 0);
+        }
+        for (SesionStaff sesion : sesiones.values()) {
+            for (CanalStaff canal : sesion.canales()) {
+                conteo.merge(canal, 1, Integer::sum);
+            }
+        }
+        return conteo;
+    }
+
+    /**
+     * Sesiones de personal conectadas a esta instancia.
+     */
+    public List<SesionStaff> obtenerSesiones() {
+        return new ArrayList<>(sesiones.values());
+    }
+}
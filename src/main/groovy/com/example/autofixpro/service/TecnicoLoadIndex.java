@@ -0,0 +1,323 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dao.TecnicoDAO;
+import com.example.autofixpro.enumeration.EstadoOrden;
+import com.example.autofixpro.util.TransaccionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Índice en memoria de la carga (órdenes abiertas) de cada técnico activo, para la asignación automática.
+ *
+ * Por cada especialidad mantiene un ConcurrentSkipListSet ordenado por (órdenes abiertas, tecnicoId),
+ * de modo que elegir al técnico menos cargado es O(log n) y las lecturas no bloquean.
+ * Las escrituras de un técnico se serializan con un lock de su franja (lock striping).
+ * OrdenServicioService notifica creaciones, asignaciones y cierres tras el commit; una
+ * reconciliación periódica con una única consulta agregada corrige cualquier desviación.
+ *
+ * La asignación automática no puede esperar al commit: dos solicitudes simultáneas verían al mismo
+ * técnico como el menos cargado. Por eso reservarMenosCargado suma la orden al elegirlo, bajo el lock
+ * de su franja, y la reserva se devuelve si la transacción de la asignación se revierte.
+ */
+@Service
+public class TecnicoLoadIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TecnicoLoadIndex.class);
+
+    private static final int FRANJAS = 16;
+
+    @Autowired
+    private TecnicoDAO tecnicoDAO;
+
+    @Value("${tecnicos.carga.max-ordenes-abiertas:5}")
+    private int maxOrdenesAbiertas;
+
+    /**
+     * Carga de un técnico. Es inmutable: cada cambio reemplaza la entrada en el conjunto ordenado.
+     */
+    private record Carga(Long tecnicoId, String especialidad, long abiertas) {}
+
+    private static final Comparator<Carga> POR_CARGA =
+            Comparator.comparingLong(Carga::abiertas).thenComparing(Carga::tecnicoId);
+
+    /**
+     * Estado completo del índice; la reconciliación lo reemplaza de una vez.
+     */
+    private static class Estado {
+        final Map<Long, Carga> porTecnico = new ConcurrentHashMap<>();
+        final Map<String, ConcurrentSkipListSet<Carga>> porEspecialidad = new ConcurrentHashMap<>();
+
+        void poner(Carga carga) {
+            porTecnico.put(carga.tecnicoId(), carga);
+            porEspecialidad.computeIfAbsent(clave(carga.especialidad()), k -> new ConcurrentSkipListSet<>(POR_CARGA))
+                    .add(carga);
+        }
+    }
+
+    /**
+     * Cupo tomado por reservarMenosCargado. Se resuelve una sola vez: al confirmarse o al liberarse.
+     */
+    public static final class Reserva {
+        private final Long tecnicoId;
+        // Estado en el que se sumó la orden; si la reconciliación lo reemplaza, la suma se perdió con él
+        private final Estado estado;
+        private final AtomicBoolean resuelta = new AtomicBoolean();
+
+        private Reserva(Long tecnicoId, Estado estado) {
+            this.tecnicoId = tecnicoId;
+            this.estado = estado;
+        }
+
+        public Long getTecnicoId() {
+            return tecnicoId;
+        }
+    }
+
+    private final ReentrantLock[] franjas = new ReentrantLock[FRANJAS];
+
+    private volatile Estado estado;
+
+    public TecnicoLoadIndex() {
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Elige el técnico activo con menos órdenes abiertas, por debajo del máximo configurado.
+     * Solo consulta: no evita que otra solicitud elija al mismo técnico (ver reservarMenosCargado).
+     * @param especialidad La especialidad requerida, o null para cualquiera.
+     * @return El ID del técnico elegido, o vacío si no hay ninguno disponible.
+     */
+    public Optional<Long> seleccionarMenosCargado(String especialidad) {
+        Carga elegida = elegir(obtenerEstado(), especialidad);
+        if (elegida == null || elegida.abiertas() >= maxOrdenesAbiertas) {
+            return Optional.empty();
+        }
+        return Optional.of(elegida.tecnicoId());
+    }
+
+    /**
+     * Elige el técnico activo con menos órdenes abiertas, por debajo del máximo, y le suma la orden
+     * en el acto. Si otra reserva o ajuste cambia al elegido entre la lectura y el lock, se vuelve a elegir.
+     * La reserva debe confirmarse con confirmarAlTerminar o devolverse con liberar.
+     * @param especialidad La especialidad requerida, o null para cualquiera.
+     * @return La reserva del técnico elegido, o vacío si no hay ninguno disponible.
+     */
+    public Optional<Reserva> reservarMenosCargado(String especialidad) {
+        while (true) {
+            Estado actual = obtenerEstado();
+            Carga elegida = elegir(actual, especialidad);
+            if (elegida == null || elegida.abiertas() >= maxOrdenesAbiertas) {
+                return Optional.empty();
+            }
+            ReentrantLock franja = franjaDe(elegida.tecnicoId());
+            franja.lock();
+            try {
+                if (estado == actual && elegida.equals(actual.porTecnico.get(elegida.tecnicoId()))) {
+                    reemplazar(actual, elegida, 1);
+                    return Optional.of(new Reserva(elegida.tecnicoId(), actual));
+                }
+            } finally {
+                franja.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ata la reserva a la transacción actual: si se revierte, se libera; si se confirma, la orden ya
+     * está contada y no hace falta registrar la asignación.
+     */
+    public void confirmarAlTerminar(Reserva reserva) {
+        TransaccionUtils.siSeRevierte(() -> liberar(reserva));
+        TransaccionUtils.despuesDeConfirmar(() -> {
+            if (reserva.resuelta.compareAndSet(false, true) && estado != reserva.estado) {
+                // La reconciliación reemplazó el estado antes del commit y pudo no ver la orden
+                ajustar(reserva.tecnicoId, 1, null);
+            }
+        });
+    }
+
+    /**
+     * Devuelve el cupo de una reserva que no llegó a usarse. No hace nada si ya se resolvió.
+     */
+    public void liberar(Reserva reserva) {
+        if (reserva.resuelta.compareAndSet(false, true)) {
+            // Si el estado se reemplazó, el nuevo no incluye la reserva
+            ajustar(reserva.tecnicoId, -1, reserva.estado);
+        }
+    }
+
+    private Carga elegir(Estado actual, String especialidad) {
+        Carga elegida = null;
+
+        if (especialidad != null) {
+            ConcurrentSkipListSet<Carga> candidatos = actual.porEspecialidad.get(clave(especialidad));
+            elegida = candidatos != null ? primero(candidatos) : null;
+        } else {
+            for (ConcurrentSkipListSet<Carga> candidatos : actual.porEspecialidad.values()) {
+                Carga primera = primero(candidatos);
+                if (primera != null && (elegida == null || POR_CARGA.compare(primera, elegida) < 0)) {
+                    elegida = primera;
+                }
+            }
+        }
+        return elegida;
+    }
+
+    /**
+     * Devuelve el número de órdenes abiertas de un técnico según el índice.
+     */
+    public long obtenerOrdenesAbiertas(Long tecnicoId) {
+        Carga carga = obtenerEstado().porTecnico.get(tecnicoId);
+        return carga != null ? carga.abiertas() : 0;
+    }
+
+    /**
+     * Registra que una orden abierta pasó de un técnico a otro (cualquiera puede ser null).
+     * Se aplica tras el commit de la transacción actual.
+     */
+    public void registrarReasignacion(Long tecnicoAnteriorId, Long tecnicoNuevoId) {
+        if (tecnicoAnteriorId != null && tecnicoAnteriorId.equals(tecnicoNuevoId)) {
+            return;
+        }
+        TransaccionUtils.despuesDeConfirmar(() -> {
+            ajustar(tecnicoAnteriorId, -1, null);
+            ajustar(tecnicoNuevoId, 1, null);
+        });
+    }
+
+    /**
+     * Registra un cambio de estado de una orden del técnico. Solo cambia la carga si la orden
+     * pasa de abierta a cerrada (COMPLETADO/ENTREGADO) o viceversa.
+     * Se aplica tras el commit de la transacción actual.
+     */
+    public void registrarCambioEstado(Long tecnicoId, EstadoOrden estadoAnterior, EstadoOrden estadoNuevo) {
+        boolean antes = esAbierta(estadoAnterior);
+        boolean despues = esAbierta(estadoNuevo);
+        if (tecnicoId == null || antes == despues) {
+            return;
+        }
+        TransaccionUtils.despuesDeConfirmar(() -> ajustar(tecnicoId, despues ? 1 : -1, null));
+    }
+
+    /**
+     * Indica si una orden en ese estado cuenta como carga del técnico.
+     */
+    public static boolean esAbierta(EstadoOrden estado) {
+        return estado != EstadoOrden.COMPLETADO && estado != EstadoOrden.ENTREGADO;
+    }
+
+    /**
+     * Reconstruye el índice con una única consulta agregada (técnicos activos y sus órdenes abiertas).
+     * Se ejecuta periódicamente y en la primera lectura tras una invalidación.
+     */
+    @Scheduled(fixedDelayString = "${tecnicos.carga.reconciliacion-ms:300000}",
+               initialDelayString = "${tecnicos.carga.reconciliacion-ms:300000}")
+    // Sin readOnly: una réplica atrasada borraría del índice las asignaciones recién confirmadas
+    @Transactional
+    public void refrescar() {
+        List<Object[]> filas = tecnicoDAO.contarOrdenesAbiertasPorTecnico(
+                List.of(EstadoOrden.COMPLETADO, EstadoOrden.ENTREGADO));
+
+        Estado nuevo = new Estado();
+        for (Object[] fila : filas) {
+            nuevo.poner(new Carga((Long) fila[0], (String) fila[1], ((Number) fila[2]).longValue()));
+        }
+
+        // Se bloquean todas las franjas para no perder ajustes concurrentes sobre el estado anterior
+        for (ReentrantLock franja : franjas) {
+            franja.lock();
+        }
+        try {
+            estado = nuevo;
+        } finally {
+            for (ReentrantLock franja : franjas) {
+                franja.unlock();
+            }
+        }
+        logger.debug("Índice de carga de técnicos recalculado: {} técnicos activos", filas.size());
+    }
+
+    /**
+     * Descarta el índice tras el commit para que la próxima selección lo recargue.
+     * Se usa cuando cambian los propios técnicos (alta, baja, activación o especialidad).
+     */
+    public void invalidar() {
+        TransaccionUtils.despuesDeConfirmar(() -> estado = null);
+    }
+
+    /**
+     * @param soloEn Si no es null, el ajuste solo se aplica mientras ese sea el estado vigente.
+     */
+    private void ajustar(Long tecnicoId, long delta, Estado soloEn) {
+        Estado actual = estado;
+        if (tecnicoId == null || actual == null) {
+            // Sin datos cargados; la primera lectura hará la carga completa
+            return;
+        }
+        ReentrantLock franja = franjaDe(tecnicoId);
+        franja.lock();
+        try {
+            actual = estado;
+            if (soloEn != null && actual != soloEn) {
+                return;
+            }
+            Carga anterior = actual != null ? actual.porTecnico.get(tecnicoId) : null;
+            if (anterior == null) {
+                // Técnico inactivo o desconocido: lo corregirá la reconciliación
+                return;
+            }
+            reemplazar(actual, anterior, delta);
+        } finally {
+            franja.unlock();
+        }
+    }
+
+    // Se llama con el lock de la franja del técnico tomado
+    private static void reemplazar(Estado actual, Carga anterior, long delta) {
+        Carga nueva = new Carga(anterior.tecnicoId(), anterior.especialidad(), Math.max(0, anterior.abiertas() + delta));
+        // Se agrega la nueva entrada antes de quitar la anterior para que el técnico no desaparezca de las lecturas
+        actual.poner(nueva);
+        actual.porEspecialidad.get(clave(anterior.especialidad())).remove(anterior);
+    }
+
+    private ReentrantLock franjaDe(Long tecnicoId) {
+        return franjas[Math.floorMod(tecnicoId.hashCode(), FRANJAS)];
+    }
+
+    private Estado obtenerEstado() {
+        Estado actual = estado;
+        if (actual == null) {
+            refrescar();
+            actual = estado;
+        }
+        return actual;
+    }
+
+    private static Carga primero(ConcurrentSkipListSet<Carga> candidatos) {
+        // first() lanza excepción si el conjunto se vacía entre la comprobación y la lectura
+        Iterator<Carga> it = candidatos.iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    private static String clave(String especialidad) {
+        return especialidad == null ? "" : especialidad.trim().toLowerCase(Locale.ROOT);
+    }
+}
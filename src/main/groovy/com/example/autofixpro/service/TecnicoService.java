@@ -20,9 +20,18 @@ public class TecnicoService implements GenericService<Tecnico, Long> {
     @Autowired
     private TecnicoDAO tecnicoDAO;
 
+    @Autowired
+    private TecnicoLoadIndex tecnicoLoadIndex;
+
+    @Autowired
+    private CacheReferenciaService cacheReferenciaService;
+
     @Override
     public Tecnico save(Tecnico tecnico) {
-        return tecnicoDAO.save(tecnico);
+        tecnicoLoadIndex.invalidar();
+        Tecnico savedTecnico = tecnicoDAO.save(tecnico);
+        cacheReferenciaService.evictarTecnico(savedTecnico.getTecnicoId());
+        return savedTecnico;
     }
 
     @Override
@@ -37,12 +46,17 @@ public class TecnicoService implements GenericService<Tecnico, Long> {
 
     @Override
     public Tecnico update(Tecnico tecnico) {
-        return tecnicoDAO.save(tecnico);
+        tecnicoLoadIndex.invalidar();
+        Tecnico updatedTecnico = tecnicoDAO.save(tecnico);
+        cacheReferenciaService.evictarTecnico(updatedTecnico.getTecnicoId());
+        return updatedTecnico;
     }
 
     @Override
     public void deleteById(Long id) {
+        tecnicoLoadIndex.invalidar();
         tecnicoDAO.deleteById(id);
+        cacheReferenciaService.evictarTecnico(id);
     }
 
     @Override
@@ -110,7 +124,10 @@ public class TecnicoService implements GenericService<Tecnico, Long> {
         if (tecnico.getEstadoActivo() == null) {
             tecnico.setEstadoActivo(true);
         }
-        return tecnicoDAO.save(tecnico);
+        tecnicoLoadIndex.invalidar();
+        Tecnico savedTecnico = tecnicoDAO.save(tecnico);
+        cacheReferenciaService.evictarTecnico(savedTecnico.getTecnicoId());
+        return savedTecnico;
     }
 
     /**
@@ -123,6 +140,8 @@ public class TecnicoService implements GenericService<Tecnico, Long> {
             Tecnico tecnico = tecnicoOpt.get();
             tecnico.setEstadoActivo(false);
             tecnicoDAO.save(tecnico);
+            tecnicoLoadIndex.invalidar();
+            cacheReferenciaService.evictarTecnico(tecnicoId);
         }
     }
 
@@ -136,6 +155,8 @@ public class TecnicoService implements GenericService<Tecnico, Long> {
             Tecnico tecnico = tecnicoOpt.get();
             tecnico.setEstadoActivo(true);
             tecnicoDAO.save(tecnico);
+            tecnicoLoadIndex.invalidar();
+            cacheReferenciaService.evictarTecnico(tecnicoId);
         }
     }
 }
\ No newline at end of file
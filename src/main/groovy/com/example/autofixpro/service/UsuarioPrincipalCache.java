@@ -0,0 +1,88 @@
+package com.example.autofixpro.service;
+
+import com.example.autofixpro.dto.UsuarioPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Caché acotada con expiración (TTL) de UsuarioPrincipal por nombre de usuario.
+ *
+ * Usa un LinkedHashMap en orden de acceso: al superar el máximo se descarta el menos usado.
+ * Las entradas vencidas se descartan al leerlas. Solo se guardan usuarios encontrados;
+ * UsuarioService la invalida cuando cambia un usuario.
+ */
+@Component
+public class UsuarioPrincipalCache {
+
+    private final int maxEntradas;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Entrada> entradas;
+
+    private record Entrada(UsuarioPrincipal principal, long venceNanos) {}
+
+    public UsuarioPrincipalCache(@Value("${seguridad.cache-usuarios.max-entradas:1000}") int maxEntradas,
+                                 @Value("${seguridad.cache-usuarios.ttl-segundos:300}") long ttlSegundos) {
+        this.maxEntradas = maxEntradas;
+        this.ttlNanos = ttlSegundos * 1_000_000_000L;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                return size() > UsuarioPrincipalCache.this.maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * Obtiene el principal de la caché o lo carga con el cargador indicado.
+     * La carga se hace fuera del bloqueo; si dos hilos cargan a la vez, gana el último.
+     */
+    public Optional<UsuarioPrincipal> obtener(String username, Function<String, Optional<UsuarioPrincipal>> cargador) {
+        long ahora = System.nanoTime();
+        synchronized (this) {
+            Entrada entrada = entradas.get(username);
+            if (entrada != null) {
+                if (entrada.venceNanos() - ahora > 0) {
+                    return Optional.of(entrada.principal());
+                }
+                entradas.remove(username);
+            }
+        }
+
+        Optional<UsuarioPrincipal> cargado = cargador.apply(username);
+        cargado.ifPresent(principal -> {
+            synchronized (this) {
+                entradas.put(username, new Entrada(principal, System.nanoTime() + ttlNanos));
+            }
+        });
+        return cargado;
+    }
+
+    public synchronized void invalidar(String username) {
+        if (username != null) {
+            entradas.remove(username);
+        }
+    }
+
+    /**
+     * Invalida la entrada del usuario con ese ID, aunque haya cambiado su nombre de usuario.
+     */
+    public synchronized void invalidarPorUsuarioId(Long usuarioId) {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().principal().getUsuarioId().equals(usuarioId)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidarTodo() {
+        entradas.clear();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.autofixpro.service;
 
 import com.example.autofixpro.dao.UsuarioDAO;
+import com.example.autofixpro.dto.UsuarioPrincipal;
 import com.example.autofixpro.entity.Usuario;
 import com.example.autofixpro.entity.Cliente;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,8 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Collections;
 import java.util.List;
@@ -20,6 +23,8 @@ import java.util.Optional;
 /**
  * Servicio para la gestión de usuarios y la integración con Spring Security.
  * Implementa UserDetailsService para la autenticación basada en nombre de usuario y contraseña.
+ * La identidad de los usuarios se resuelve desde UsuarioPrincipalCache; los métodos que modifican
+ * un usuario invalidan su entrada.
  */
 @Service
 @Transactional
@@ -31,6 +36,9 @@ public class UsuarioService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UsuarioPrincipalCache principalCache;
+
     /**
      * Carga los detalles de un usuario por su nombre de usuario para Spring Security.
      * @param username El nombre de usuario.
@@ -38,11 +46,12 @@ public class UsuarioService implements UserDetailsService {
      * @throws UsernameNotFoundException si el usuario no se encuentra o está inactivo.
      */
     @Override
+    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Usuario usuario = usuarioDAO.findByUsername(username)
+        UsuarioPrincipal usuario = obtenerPrincipal(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
 
-        if (!usuario.getActivo()) {
+        if (!usuario.isActivo()) {
             throw new UsernameNotFoundException("Usuario inactivo: " + username);
         }
 
@@ -55,10 +64,22 @@ public class UsuarioService implements UserDetailsService {
                 .accountExpired(false)
                 .accountLocked(false)
                 .credentialsExpired(false)
-                .disabled(!usuario.getActivo())
+                .disabled(!usuario.isActivo())
                 .build();
     }
 
+    /**
+     * Obtiene la identidad compacta de un usuario (con el ID de su cliente), usando la caché.
+     * @param username El nombre de usuario.
+     * @return Un Optional con el principal si el usuario existe.
+     */
+    // Sin readOnly: lo que se lee se cachea hasta el TTL, así que debe venir del primario
+    // (una clave o una desactivación recién cambiada no puede llegar tarde desde una réplica)
+    @Transactional
+    public Optional<UsuarioPrincipal> obtenerPrincipal(String username) {
+        return principalCache.obtener(username, usuarioDAO::findPrincipalByUsername);
+    }
+
     /**
      * Registra un nuevo usuario en el sistema.
      * @param usuario El usuario a registrar.
@@ -157,7 +178,9 @@ public class UsuarioService implements UserDetailsService {
      * @return El usuario actualizado.
      */
     public Usuario actualizar(Usuario usuario) {
-        return usuarioDAO.save(usuario);
+        Usuario actualizado = usuarioDAO.save(usuario);
+        invalidarCache(actualizado.getId(), actualizado.getUsername());
+        return actualizado;
     }
 
     /**
@@ -166,6 +189,7 @@ public class UsuarioService implements UserDetailsService {
      */
     public void eliminar(Long id) {
         usuarioDAO.deleteById(id);
+        invalidarCache(id, null);
     }
 
     /**
@@ -178,6 +202,7 @@ public class UsuarioService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         usuario.setPassword(passwordEncoder.encode(nuevaPassword));
         usuarioDAO.save(usuario);
+        invalidarCache(usuario.getId(), usuario.getUsername());
     }
 
     /**
@@ -190,6 +215,7 @@ public class UsuarioService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado: " + username));
         usuario.setPassword(passwordEncoder.encode(nuevaPassword));
         usuarioDAO.save(usuario);
+        invalidarCache(usuario.getId(), usuario.getUsername());
     }
 
     /**
@@ -201,5 +227,26 @@ public class UsuarioService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         usuario.setActivo(!usuario.getActivo());
         usuarioDAO.save(usuario);
+        invalidarCache(usuario.getId(), usuario.getUsername());
+    }
+
+    /**
+     * Invalida la entrada de la caché ahora y de nuevo tras el commit, para que una lectura
+     * concurrente no vuelva a guardar los datos anteriores al cambio.
+     */
+    private void invalidarCache(Long usuarioId, String username) {
+        Runnable invalidacion = () -> {
+            principalCache.invalidarPorUsuarioId(usuarioId);
+            principalCache.invalidar(username);
+        };
+        invalidacion.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidacion.run();
+                }
+            });
+        }
     }
-}
\ No newline at end of file
+}
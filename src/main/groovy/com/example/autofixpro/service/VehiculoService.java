@@ -1,6 +1,8 @@
 package com.example.autofixpro.service;
 
 import com.example.autofixpro.dao.VehiculoDAO;
+import com.example.autofixpro.dto.ConsultaVehiculoDTO;
+import com.example.autofixpro.dto.HistorialVehiculoDTO;
 import com.example.autofixpro.entity.Vehiculo;
 import com.example.autofixpro.entity.Cliente;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,29 +23,42 @@ public class VehiculoService implements GenericService<Vehiculo, Long> {
     @Autowired
     private VehiculoDAO vehiculoDAO;
 
+    @Autowired
+    private PlacaIndex placaIndex;
+
+    @Autowired
+    private HistorialVehiculoLoader historialVehiculoLoader;
+
     @Override
     public Vehiculo save(Vehiculo vehiculo) {
-        return vehiculoDAO.save(vehiculo);
+        Vehiculo savedVehiculo = vehiculoDAO.save(vehiculo);
+        placaIndex.registrarVehiculo(savedVehiculo);
+        return savedVehiculo;
     }
 
+    // Sin readOnly: se lee del primario porque suele preceder a una escritura (crear una orden)
     @Override
     public Optional<Vehiculo> findById(Long id) {
         return vehiculoDAO.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Vehiculo> findAll() {
         return vehiculoDAO.findAll();
     }
 
     @Override
     public Vehiculo update(Vehiculo vehiculo) {
-        return vehiculoDAO.save(vehiculo);
+        Vehiculo updatedVehiculo = vehiculoDAO.save(vehiculo);
+        placaIndex.registrarVehiculo(updatedVehiculo);
+        return updatedVehiculo;
     }
 
     @Override
     public void deleteById(Long id) {
         vehiculoDAO.deleteById(id);
+        placaIndex.quitarVehiculo(id);
     }
 
     @Override
@@ -52,6 +67,7 @@ public class VehiculoService implements GenericService<Vehiculo, Long> {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public long count() {
         return vehiculoDAO.count();
     }
@@ -67,28 +83,56 @@ public class VehiculoService implements GenericService<Vehiculo, Long> {
      */
     public Vehiculo registrarVehiculo(Vehiculo vehiculo, Cliente cliente) {
         vehiculo.setCliente(cliente);
-        return vehiculoDAO.save(vehiculo);
+        Vehiculo savedVehiculo = vehiculoDAO.save(vehiculo);
+        placaIndex.registrarVehiculo(savedVehiculo);
+        return savedVehiculo;
     }
 
     /**
      * Consulta el estado de un vehículo por su número de placa.
-     * Carga la información de las órdenes y sus estados asociados.
+     * Devuelve una página de sus órdenes, cada una con su línea de tiempo de estados y sus servicios.
      * Corresponde al CU08: Consultar estado del vehículo.
      * @param placa La placa del vehículo a consultar.
-     * @return Un Optional que contiene el vehículo con su información de estado.
+     * @param pagina Número de página, desde 0.
+     * @param tamanio Órdenes por página.
+     * @return Un Optional con el historial del vehículo, vacío si la placa no está registrada.
      */
-    public Optional<Vehiculo> consultarEstadoPorPlaca(String placa) {
-        return vehiculoDAO.findByPlacaWithOrdenesAndEstados(placa);
+    @Transactional(readOnly = true)
+    public Optional<HistorialVehiculoDTO> consultarEstadoPorPlaca(String placa, int pagina, int tamanio) {
+        return historialVehiculoLoader.cargarPorPlaca(placa, pagina, tamanio);
     }
 
     /**
-     * Obtiene el historial completo de servicios para un vehículo específico.
+     * Obtiene el historial de servicios para un vehículo específico, por páginas.
      * Corresponde al CU09: Ver historial de servicio.
      * @param vehiculoId El ID del vehículo.
-     * @return Un Optional que contiene el vehículo con su historial de servicios.
+     * @param pagina Número de página, desde 0.
+     * @param tamanio Órdenes por página.
+     * @return Un Optional con el historial del vehículo, vacío si el vehículo no existe.
+     */
+    @Transactional(readOnly = true)
+    public Optional<HistorialVehiculoDTO> obtenerHistorialServicios(Long vehiculoId, int pagina, int tamanio) {
+        return historialVehiculoLoader.cargarPorVehiculo(vehiculoId, pagina, tamanio);
+    }
+
+    /**
+     * Obtiene el resumen de estado de un vehículo para la consulta pública por placa.
+     * Se resuelve con el índice de placas y su caché, sin consultar la base de datos en la mayoría de los casos.
+     * @param placa La placa del vehículo (se ignoran guiones y mayúsculas).
+     * @return Un Optional con el resumen, vacío si la placa no está registrada.
+     */
+    public Optional<ConsultaVehiculoDTO> consultarResumenPorPlaca(String placa) {
+        return placaIndex.consultar(placa);
+    }
+
+    /**
+     * Devuelve las placas registradas que empiezan por un prefijo (autocompletado de recepción).
+     * @param prefijo El inicio de la placa.
+     * @param limite Número máximo de placas.
+     * @return Las placas normalizadas (mayúsculas, sin guiones) en orden alfabético.
      */
-    public Optional<Vehiculo> obtenerHistorialServicios(Long vehiculoId) {
-        return vehiculoDAO.findByIdWithHistorialServicios(vehiculoId);
+    public List<String> autocompletarPlacas(String prefijo, int limite) {
+        return placaIndex.autocompletar(prefijo, limite);
     }
 
     /**
@@ -105,6 +149,7 @@ public class VehiculoService implements GenericService<Vehiculo, Long> {
      * @param clienteId El ID del cliente.
      * @return Una lista de vehículos del cliente.
      */
+    @Transactional(readOnly = true)
     public List<Vehiculo> findByCliente(Long clienteId) {
         return vehiculoDAO.findByClienteClienteId(clienteId);
     }
@@ -115,6 +160,7 @@ public class VehiculoService implements GenericService<Vehiculo, Long> {
      * @param modelo El modelo del vehículo.
      * @return Una lista de vehículos que coinciden con la marca y el modelo.
      */
+    @Transactional(readOnly = true)
     public List<Vehiculo> findByMarcaAndModelo(String marca, String modelo) {
         return vehiculoDAO.findByMarcaAndModelo(marca, modelo);
     }
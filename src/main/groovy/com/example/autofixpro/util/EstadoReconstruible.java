@@ -0,0 +1,141 @@
+package com.example.autofixpro.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Estado en memoria (un índice, por ejemplo) que se reconstruye por completo desde la base de datos
+ * y, entre reconstrucciones, recibe los cambios de cada escritura tras su commit.
+ *
+ * La reconstrucción lee sin bloquear a nadie y reemplaza el estado de una vez. Los cambios que llegan
+ * mientras lee se aplican al estado vigente y además se anotan; al reemplazarlo se repiten sobre el
+ * nuevo, así que una escritura confirmada después de la lectura no se pierde hasta la siguiente
+ * reconstrucción. Como el estado nuevo puede incluir ya alguno de esos cambios, deben ser idempotentes
+ * (poner o quitar un elemento).
+ *
+ * Solo corre una reconstrucción a la vez: si varias lecturas encuentran el estado sin cargar, la carga
+ * se hace una sola vez y las demás esperan su resultado.
+ *
+ * @param <E> El tipo del estado.
+ */
+public class EstadoReconstruible<E> {
+
+    private final Supplier<E> cargador;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock reconstruccion = new ReentrantLock();
+
+    private volatile E estado;
+    // Cambios recibidos durante la reconstrucción en curso; null si no hay ninguna. Protegido por "lock"
+    private List<Consumer<E>> cambiosDuranteCarga;
+
+    /**
+     * @param cargador Lee la base de datos y arma un estado nuevo y completo.
+     */
+    public EstadoReconstruible(Supplier<E> cargador) {
+        this.cargador = cargador;
+    }
+
+    /**
+     * El estado vigente; si aún no se cargó, lo carga.
+     * Para estados con estructuras concurrentes, que se leen sin bloqueo.
+     */
+    public E obtener() {
+        E actual = estado;
+        if (actual != null) {
+            return actual;
+        }
+        reconstruccion.lock();
+        try {
+            if (estado == null) {
+                reemplazar();
+            }
+            return estado;
+        } finally {
+            reconstruccion.unlock();
+        }
+    }
+
+    /**
+     * Lee el estado vigente bajo el bloqueo de lectura, excluyendo los cambios mientras dura la lectura.
+     * Para estados con estructuras no concurrentes.
+     */
+    public <R> R leer(Function<E, R> lectura) {
+        obtener();
+        lock.readLock().lock();
+        try {
+            return lectura.apply(estado);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica un cambio idempotente al estado. Sin estado cargado no hace nada: la carga lo incluirá.
+     */
+    public void modificar(Consumer<E> cambio) {
+        lock.writeLock().lock();
+        try {
+            if (estado != null) {
+                cambio.accept(estado);
+            }
+            if (cambiosDuranteCarga != null) {
+                cambiosDuranteCarga.add(cambio);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a cargar el estado completo y lo reemplaza. Si ya hay una reconstrucción en curso, espera
+     * a que termine y hace otra, porque la anterior pudo leer antes de los cambios que motivan esta.
+     */
+    public void reconstruir() {
+        reconstruccion.lock();
+        try {
+            reemplazar();
+        } finally {
+            reconstruccion.unlock();
+        }
+    }
+
+    /**
+     * @return true si el estado ya se cargó.
+     */
+    public boolean estaCargado() {
+        return estado != null;
+    }
+
+    // Se llama con "reconstruccion" tomado
+    private void reemplazar() {
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteCarga = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        E nuevo = null;
+        try {
+            nuevo = cargador.get();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (nuevo != null) {
+                    for (Consumer<E> cambio : cambiosDuranteCarga) {
+                        cambio.accept(nuevo);
+                    }
+                    estado = nuevo;
+                }
+                cambiosDuranteCarga = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
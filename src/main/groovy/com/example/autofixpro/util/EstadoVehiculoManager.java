@@ -1,15 +1,32 @@
 package com.example.autofixpro.util;
 
+import com.example.autofixpro.dao.EstadoVehiculoDAO;
 import com.example.autofixpro.entity.EstadoVehiculo;
 import com.example.autofixpro.entity.OrdenServicio;
 import com.example.autofixpro.enumeration.EstadoOrden;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Gestiona la línea de tiempo de estados de vehículo de cada orden de servicio.
+ * Los estados se acumulan durante la transacción de la orden y se insertan
+ * en un único batch JDBC justo antes del commit.
+ */
 @Component
 public class EstadoVehiculoManager {
 
+    // Clave del recurso transaccional con los estados pendientes de insertar
+    private final Object pendientesKey = new Object();
+
+    @Autowired
+    private EstadoVehiculoDAO estadoVehiculoDAO;
+
     public void crearEstadoInicial(OrdenServicio orden) {
         EstadoVehiculo estadoInicial = new EstadoVehiculo();
         estadoInicial.setOrdenServicio(orden);
@@ -19,8 +36,7 @@ public class EstadoVehiculoManager {
         estadoInicial.setPorcentajeAvance(0);
         estadoInicial.setObservaciones("Vehículo ingresado para diagnóstico");
 
-        // Aquí se guardaría en la base de datos
-        // estadoVehiculoDAO.save(estadoInicial);
+        registrarEstado(estadoInicial);
     }
 
     public void actualizarEstado(OrdenServicio orden, EstadoOrden nuevoEstado, String observaciones) {
@@ -32,8 +48,39 @@ public class EstadoVehiculoManager {
         nuevoEstadoVehiculo.setPorcentajeAvance(calcularPorcentajeAvance(nuevoEstado));
         nuevoEstadoVehiculo.setObservaciones(observaciones);
 
-        // Aquí se guardaría en la base de datos
-        // estadoVehiculoDAO.save(nuevoEstadoVehiculo);
+        registrarEstado(nuevoEstadoVehiculo);
+    }
+
+    /**
+     * Agrega un estado al lote de la transacción actual. El lote se inserta antes del commit,
+     * de modo que se revierte junto con la orden si la transacción falla.
+     * Sin transacción activa, el estado se inserta de inmediato.
+     */
+    @SuppressWarnings("unchecked")
+    private void registrarEstado(EstadoVehiculo estado) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            estadoVehiculoDAO.insertarEnLote(List.of(estado));
+            return;
+        }
+
+        List<EstadoVehiculo> pendientes = (List<EstadoVehiculo>) TransactionSynchronizationManager.getResource(pendientesKey);
+        if (pendientes == null) {
+            List<EstadoVehiculo> lote = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(pendientesKey, lote);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    estadoVehiculoDAO.insertarEnLote(lote);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendientesKey);
+                }
+            });
+            pendientes = lote;
+        }
+        pendientes.add(estado);
     }
 
     private Integer calcularPorcentajeAvance(EstadoOrden estado) {
@@ -0,0 +1,123 @@
+package com.example.autofixpro.util;
+
+import com.example.autofixpro.dto.OrdenServicioDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Escribe órdenes de servicio fila por fila en CSV o NDJSON (un objeto JSON por línea).
+ * No acumula nada en memoria: cada orden se escribe en cuanto llega del cursor de la consulta.
+ */
+@Component
+public class ExportadorOrdenes {
+
+    /**
+     * Formatos de exportación soportados.
+     */
+    public enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        /**
+         * @throws IllegalArgumentException si el formato no es csv ni ndjson.
+         */
+        public static Formato desde(String valor) {
+            return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final String ENCABEZADO_CSV =
+            "ordenId,fechaIngreso,fechaEntrega,estadoOrden,prioridad,costoEstimado," +
+            "placa,marca,modelo,año,color,tecnicoId,tecnico,especialidad,descripcionProblema";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Escribe el encabezado del formato (solo CSV tiene encabezado).
+     */
+    public void escribirEncabezado(Writer writer, Formato formato) throws IOException {
+        if (formato == Formato.CSV) {
+            writer.write(ENCABEZADO_CSV);
+            writer.write("\r\n");
+        }
+    }
+
+    /**
+     * Escribe una orden como una línea del formato indicado.
+     * @throws UncheckedIOException si falla la escritura (por ejemplo, el cliente cerró la conexión).
+     */
+    public void escribirFila(Writer writer, Formato formato, OrdenServicioDTO orden) {
+        try {
+            if (formato == Formato.CSV) {
+                escribirCsv(writer, orden);
+            } else {
+                writer.write(objectMapper.writeValueAsString(orden));
+                writer.write('\n');
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la orden " + orden.getOrdenId(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void escribirCsv(Writer writer, OrdenServicioDTO orden) throws IOException {
+        OrdenServicioDTO.VehiculoInfo vehiculo = orden.getVehiculo();
+        OrdenServicioDTO.TecnicoInfo tecnico = orden.getTecnico();
+
+        StringBuilder linea = new StringBuilder(256);
+        campo(linea, orden.getOrdenId());
+        campo(linea, orden.getFechaIngreso());
+        campo(linea, orden.getFechaEntrega());
+        campo(linea, orden.getEstadoOrden());
+        campo(linea, orden.getPrioridad());
+        campo(linea, orden.getCostoEstimado());
+        campo(linea, vehiculo != null ? vehiculo.getPlaca() : null);
+        campo(linea, vehiculo != null ? vehiculo.getMarca() : null);
+        campo(linea, vehiculo != null ? vehiculo.getModelo() : null);
+        campo(linea, vehiculo != null ? vehiculo.getAño() : null);
+        campo(linea, vehiculo != null ? vehiculo.getColor() : null);
+        campo(linea, tecnico != null ? tecnico.getTecnicoId() : null);
+        campo(linea, tecnico != null ? tecnico.getNombres() + " " + tecnico.getApellidos() : null);
+        campo(linea, tecnico != null ? tecnico.getEspecialidad() : null);
+        campo(linea, orden.getDescripcionProblema());
+        // Se reemplaza la coma final por el fin de línea
+        linea.setLength(linea.length() - 1);
+        linea.append("\r\n");
+        writer.write(linea.toString());
+    }
+
+    /**
+     * Agrega un valor CSV seguido de coma, entre comillas solo si contiene separadores, comillas o saltos de línea.
+     */
+    private static void campo(StringBuilder linea, Object valor) {
+        if (valor != null) {
+            String texto = valor.toString();
+            if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+                linea.append('"').append(texto.replace("\"", "\"\"")).append('"');
+            } else {
+                linea.append(texto);
+            }
+        }
+        linea.append(',');
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.autofixpro.util;
 
 import com.example.autofixpro.entity.Notification;
+import com.example.autofixpro.enumeration.TipoNotificacion;
 import com.example.autofixpro.service.AwsSnsService;
+import com.example.autofixpro.service.NotificacionServicio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -13,6 +17,8 @@ import java.util.concurrent.CompletableFuture;
 @Component
 public class SistemaNotificaciones {
 
+    private static final Logger logger = LoggerFactory.getLogger(SistemaNotificaciones.class);
+
     private List<String> configuracionEmail;
     private List<String> configuracionSMS;
     private List<String> plantillas;
@@ -20,6 +26,9 @@ public class SistemaNotificaciones {
     @Autowired(required = false)
     private AwsSnsService awsSnsService;
 
+    @Autowired
+    private NotificacionServicio notificacionServicio;
+
     public SistemaNotificaciones() {
         // Configuración inicial
         this.configuracionEmail = new ArrayList<>();
@@ -88,6 +97,36 @@ public class SistemaNotificaciones {
         });
     }
 
+    /**
+     * Envía una notificación del outbox por su canal.
+     * El futuro falla si el envío falla, para que el worker lo reintente.
+     */
+    public CompletableFuture<String> despachar(Notification notification) {
+        String canal = notification.getCanal() != null ? notification.getCanal() : "EMAIL";
+        switch (canal) {
+            case "EMAIL" -> {
+                logger.debug("Email simulado de la notificación {}", notification.getNotificationId());
+                return CompletableFuture.completedFuture("EMAIL_SIMULADO");
+            }
+            case "SMS" -> {
+                if (awsSnsService != null && awsSnsService.esSnsHabilitado()) {
+                    return awsSnsService.enviarNotificacionSMS(notification.getDestinatario(), notification.getOrdenId(),
+                            notification.getMensajes());
+                }
+                logger.debug("SMS simulado de la notificación {}", notification.getNotificationId());
+                return CompletableFuture.completedFuture("SMS_SIMULADO");
+            }
+            case "PUSH" -> {
+                logger.debug("Push simulado de la notificación {}", notification.getNotificationId());
+                return CompletableFuture.completedFuture("PUSH_SIMULADO");
+            }
+            default -> {
+                return CompletableFuture.failedFuture(
+                        new IllegalArgumentException("Canal de notificación no soportado: " + canal));
+            }
+        }
+    }
+
     private void enviarSMSSimulado(String telefono, String mensaje) {
         try {
             Thread.sleep(500);
@@ -97,19 +136,15 @@ public class SistemaNotificaciones {
         }
     }
 
-    public void programarNotificacion(String destinatario, String mensaje, LocalDateTime fechaEnvio) {
-        // Programar notificación para fecha específica
-        CompletableFuture.runAsync(() -> {
-            try {
-                long delay = java.time.Duration.between(LocalDateTime.now(), fechaEnvio).toMillis();
-                if (delay > 0) {
-                    Thread.sleep(delay);
-                }
-                enviarNotificacion(destinatario, crearNotificacion(mensaje));
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        });
+    /**
+     * Programa una notificación para una fecha específica.
+     * Se guarda en el outbox y se envía cuando vence, aunque la aplicación se reinicie.
+     * @return El ID de la notificación programada.
+     */
+    public Long programarNotificacion(String destinatario, String mensaje, LocalDateTime fechaEnvio) {
+        String canal = destinatario != null && destinatario.contains("@") ? "EMAIL" : "SMS";
+        return notificacionServicio.programarNotificacion(TipoNotificacion.RECORDATORIO, destinatario, canal,
+                mensaje, fechaEnvio).getNotificationId();
     }
 
     public List<String> obtenerHistorial() {
@@ -120,11 +155,4 @@ public class SistemaNotificaciones {
     public void configurarPlantilla(String tipoNotificacion, String plantilla) {
         plantillas.add(tipoNotificacion + ": " + plantilla);
     }
-
-    private Notification crearNotificacion(String mensaje) {
-        Notification notification = new Notification();
-        notification.setMensajes(mensaje);
-        notification.setFechaEnvio(LocalDateTime.now());
-        return notification;
-    }
 }
\ No newline at end of file
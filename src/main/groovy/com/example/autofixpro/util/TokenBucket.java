@@ -0,0 +1,65 @@
+package com.example.autofixpro.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitador de tasa tipo token bucket.
+ * Se recargan tokensPorSegundo tokens por segundo hasta un máximo de capacidad (ráfaga permitida).
+ */
+public class TokenBucket {
+
+    private final double capacidad;
+    private final double tokensPorNano;
+    private final LongSupplier relojNanos;
+
+    private double tokens;
+    private long ultimaRecarga;
+
+    public TokenBucket(double tokensPorSegundo, int capacidad) {
+        this(tokensPorSegundo, capacidad, System::nanoTime);
+    }
+
+    /**
+     * Constructor con reloj configurable, útil para pruebas.
+     */
+    public TokenBucket(double tokensPorSegundo, int capacidad, LongSupplier relojNanos) {
+        if (tokensPorSegundo <= 0 || capacidad <= 0) {
+            throw new IllegalArgumentException("La tasa y la capacidad deben ser positivas");
+        }
+        this.capacidad = capacidad;
+        this.tokensPorNano = tokensPorSegundo / TimeUnit.SECONDS.toNanos(1);
+        this.relojNanos = relojNanos;
+        this.tokens = capacidad;
+        this.ultimaRecarga = relojNanos.getAsLong();
+    }
+
+    /**
+     * Intenta tomar un token sin bloquear.
+     * @return 0 si se obtuvo el token, o los nanosegundos a esperar hasta que haya uno disponible.
+     */
+    public synchronized long intentarAdquirir() {
+        recargar();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPorNano));
+    }
+
+    /**
+     * Toma un token, esperando lo necesario si el bucket está vacío.
+     */
+    public void adquirir() throws InterruptedException {
+        long espera;
+        while ((espera = intentarAdquirir()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(espera);
+        }
+    }
+
+    private void recargar() {
+        long ahora = relojNanos.getAsLong();
+        tokens = Math.min(capacidad, tokens + (ahora - ultimaRecarga) * tokensPorNano);
+        ultimaRecarga = ahora;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.autofixpro.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Acciones atadas al resultado de la transacción actual, para mantener las estructuras en memoria
+ * (índices, contadores, cachés) de acuerdo con lo que realmente se confirmó.
+ */
+public final class TransaccionUtils {
+
+    private TransaccionUtils() {
+    }
+
+    /**
+     * Ejecuta la acción tras el commit de la transacción actual; si no hay transacción, en el acto.
+     * Si la transacción se revierte, la acción no se ejecuta.
+     */
+    public static void despuesDeConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Ejecuta la acción si la transacción actual se revierte. Sin transacción no hace nada.
+     */
+    public static void siSeRevierte(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        accion.run();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.autofixpro.config
+
+import io.micrometer.core.instrument.Timer
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+
+import javax.sql.DataSource
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.LongAdder
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Prueba de carga de los pools de conexiones. No corre con `test`; se ejecuta con:
+ *
+ *   ./gradlew pruebaCargaPool [-Dcarga.url=jdbc:mysql://localhost:3306/autofixpro -Dcarga.usuario=... -Dcarga.clave=...]
+ *
+ * Para cada configuración, varios hilos piden una conexión, ejecutan una consulta trivial y la devuelven
+ * durante un tiempo fijo. Se informa el throughput y la latencia de préstamo (getConnection) p50/p95/p99/máx.
+ * Sin carga.url se usa H2 en memoria, que mide el costo propio del pool sin red.
+ */
+@Tag("carga")
+class PoolConexionesCargaTest {
+
+    private final String url = System.getProperty("carga.url", "jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1")
+    private final String usuario = System.getProperty("carga.usuario", "sa")
+    private final String clave = System.getProperty("carga.clave", "")
+    private final String driver = System.getProperty("carga.driver",
+            url.startsWith("jdbc:mysql:") ? "com.mysql.cj.jdbc.Driver" : "org.h2.Driver")
+    private final String consulta = System.getProperty("carga.consulta", "SELECT 1")
+    private final int hilos = Integer.getInteger("carga.hilos", 32)
+    private final int segundos = Integer.getInteger("carga.segundos", 10)
+    private final int segundosCalentamiento = Integer.getInteger("carga.calentamiento-segundos", 2)
+    private final int maximo = Integer.getInteger("carga.maximo", 20)
+
+    /**
+     * Configuraciones comparadas: nombre, motor y si DBCP2 valida cada préstamo.
+     */
+    private final List<Map> configuraciones = [
+            [nombre: "dbcp2 (isValid al prestar)", motor: DataSourceConfig.MOTOR_DBCP2, validarAlPrestar: true],
+            [nombre: "dbcp2 (sin validar al prestar)", motor: DataSourceConfig.MOTOR_DBCP2, validarAlPrestar: false],
+            [nombre: "hikari", motor: DataSourceConfig.MOTOR_HIKARI, validarAlPrestar: true],
+    ]
+
+    @Test
+    void medirPools() {
+        println String.format("%nPrueba de carga de pools: %s, %d hilos, %d s, máximo %d conexiones",
+                url, hilos, segundos, maximo)
+        println String.format("%-32s %12s %10s %10s %10s %10s",
+                "configuración", "ops/s", "p50 ms", "p95 ms", "p99 ms", "máx ms")
+
+        for (Map configuracion : configuraciones) {
+            def opciones = new DataSourceConfig.OpcionesPool(maximo, maximo, Math.min(5, maximo), 30000, 5,
+                    configuracion.validarAlPrestar as boolean)
+            DataSource pool = DataSourceConfig.crearPool(configuracion.motor as String, url, usuario, clave, driver, opciones)
+            try {
+                // El calentamiento llena el pool y la caché de sentencias; no se mide
+                ejecutar(pool, segundosCalentamiento, null, new LongAdder())
+
+                def registro = new SimpleMeterRegistry()
+                Timer prestamo = Timer.builder("carga.prestamo")
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .distributionStatisticExpiry(Duration.ofMinutes(10))
+                        .register(registro)
+                def operaciones = new LongAdder()
+                ejecutar(pool, segundos, prestamo, operaciones)
+
+                def percentiles = prestamo.takeSnapshot().percentileValues()
+                println String.format("%-32s %12.0f %10.3f %10.3f %10.3f %10.3f",
+                        configuracion.nombre, operaciones.sum() / (double) segundos,
+                        percentiles[0].value(TimeUnit.MILLISECONDS), percentiles[1].value(TimeUnit.MILLISECONDS),
+                        percentiles[2].value(TimeUnit.MILLISECONDS), prestamo.max(TimeUnit.MILLISECONDS))
+
+                assertTrue(operaciones.sum() > 0, "Sin operaciones completadas con ${configuracion.nombre}")
+            } finally {
+                (pool as AutoCloseable).close()
+            }
+        }
+    }
+
+    private void ejecutar(DataSource pool, int duracionSegundos, Timer prestamo, LongAdder operaciones) {
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(duracionSegundos)
+        def terminados = new CountDownLatch(hilos)
+        def errores = Collections.synchronizedList(new ArrayList<Throwable>())
+
+        hilos.times { i ->
+            Thread.start("carga-pool-${i}") {
+                try {
+                    while (System.nanoTime() < fin) {
+                        long inicio = System.nanoTime()
+                        pool.connection.withCloseable { conexion ->
+                            prestamo?.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS)
+                            conexion.createStatement().withCloseable { it.execute(consulta) }
+                        }
+                        operaciones.increment()
+                    }
+                } catch (Throwable e) {
+                    errores.add(e)
+                } finally {
+                    terminados.countDown()
+                }
+            }
+        }
+
+        assertTrue(terminados.await(duracionSegundos + 60, TimeUnit.SECONDS), "Los hilos de carga no terminaron")
+        assertTrue(errores.isEmpty(), "Errores durante la carga: ${errores.take(3)*.message}")
+    }
+}
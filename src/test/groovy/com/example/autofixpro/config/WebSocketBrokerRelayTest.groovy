@@ -0,0 +1,126 @@
+package com.example.autofixpro.config
+
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.context.ApplicationListener
+import org.springframework.context.annotation.Bean
+import org.springframework.context.annotation.Configuration
+import org.springframework.messaging.converter.StringMessageConverter
+import org.springframework.messaging.simp.SimpMessagingTemplate
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient
+import org.springframework.messaging.simp.stomp.StompFrameHandler
+import org.springframework.messaging.simp.stomp.StompHeaders
+import org.springframework.messaging.simp.stomp.StompSession
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig
+
+import java.lang.reflect.Type
+import java.nio.file.Files
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Prueba de integración del modo relay contra un broker STOMP embebido (Artemis),
+ * que hace las veces del RabbitMQ/ActiveMQ compartido entre nodos.
+ * Un cliente conectado directamente al broker (otro nodo) debe recibir lo que publica esta instancia.
+ */
+@SpringJUnitWebConfig([WebSocketConfig, EscuchaBroker])
+class WebSocketBrokerRelayTest {
+
+    private static final int PUERTO = puertoLibre()
+
+    private static EmbeddedActiveMQ broker
+
+    @Configuration
+    static class EscuchaBroker {
+        final CountDownLatch disponible = new CountDownLatch(1)
+
+        @Bean
+        ApplicationListener<BrokerAvailabilityEvent> escuchaDisponibilidad() {
+            return { BrokerAvailabilityEvent evento ->
+                if (evento.brokerAvailable) {
+                    disponible.countDown()
+                }
+            } as ApplicationListener<BrokerAvailabilityEvent>
+        }
+    }
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate
+
+    @Autowired
+    private EscuchaBroker escuchaBroker
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registry) {
+        registry.add("websocket.broker.modo") { WebSocketConfig.MODO_RELAY }
+        registry.add("websocket.broker.relay.host") { "127.0.0.1" }
+        registry.add("websocket.broker.relay.puerto") { PUERTO }
+        registry.add("websocket.heartbeat.servidor-ms") { 2000 }
+        registry.add("websocket.heartbeat.cliente-ms") { 2000 }
+    }
+
+    @BeforeAll
+    static void iniciarBroker() {
+        def configuracion = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setBrokerInstance(Files.createTempDirectory("artemis").toFile())
+                .addAcceptorConfiguration("stomp",
+                        "tcp://127.0.0.1:${PUERTO}?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/")
+        broker = new EmbeddedActiveMQ().setConfiguration(configuracion)
+        broker.start()
+    }
+
+    @AfterAll
+    static void detenerBroker() {
+        broker?.stop()
+    }
+
+    @Test
+    void mensajePublicadoEnEsteNodoLlegaAClienteDeOtroNodo() {
+        assertTrue(escuchaBroker.disponible.await(30, TimeUnit.SECONDS), "El relay no se conectó al broker")
+
+        def recibidos = new LinkedBlockingQueue<String>()
+        def cliente = new ReactorNettyTcpStompClient("127.0.0.1", PUERTO)
+        cliente.messageConverter = new StringMessageConverter()
+
+        def cabeceras = new StompHeaders(login: "guest", passcode: "guest")
+        StompSession sesion = cliente.connectAsync(cabeceras, new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS)
+        try {
+            sesion.autoReceipt = true
+            def suscrito = new CountDownLatch(1)
+            def suscripcion = sesion.subscribe("/topic/ordenes.prueba", new StompFrameHandler() {
+                @Override
+                Type getPayloadType(StompHeaders headers) { String }
+
+                @Override
+                void handleFrame(StompHeaders headers, Object payload) { recibidos.add((String) payload) }
+            })
+            suscripcion.addReceiptTask { suscrito.countDown() }
+            assertTrue(suscrito.await(10, TimeUnit.SECONDS), "El broker no confirmó la suscripción")
+
+            messagingTemplate.convertAndSend("/topic/ordenes.prueba", "Orden #1: En Reparación")
+
+            assertEquals("Orden #1: En Reparación", recibidos.poll(10, TimeUnit.SECONDS))
+        } finally {
+            sesion.disconnect()
+            cliente.shutdown()
+        }
+    }
+
+    private static int puertoLibre() {
+        new ServerSocket(0).withCloseable { it.localPort }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.autofixpro.service
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import software.amazon.awssdk.services.sns.SnsClient
+import software.amazon.awssdk.services.sns.model.PublishRequest
+import software.amazon.awssdk.services.sns.model.PublishResponse
+
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Pruebas del despachador de SMS contra un SnsClient simulado (sin acceso a AWS).
+ */
+class DespachadorSmsTest {
+
+    private final List<PublishRequest> publicados = Collections.synchronizedList(new ArrayList<PublishRequest>())
+    private final AtomicInteger secuencia = new AtomicInteger()
+
+    private final SnsClient snsSimulado = new SnsClient() {
+        @Override
+        PublishResponse publish(PublishRequest request) {
+            publicados.add(request)
+            // Con varios envíos en vuelo, publicados.size() puede repetirse entre hilos
+            return PublishResponse.builder().messageId("msg-" + secuencia.incrementAndGet()).build()
+        }
+
+        @Override
+        String serviceName() { return "sns" }
+
+        @Override
+        void close() {}
+    }
+
+    private DespachadorSms despachador
+
+    private DespachadorSms crear(int capacidadCola, double tps, int rafaga, long ventanaCoalescenciaMs) {
+        despachador = DespachadorSms.conClienteSincrono(snsSimulado, capacidadCola, tps, rafaga,
+                ventanaCoalescenciaMs, 60000, 4)
+        despachador.iniciar()
+        return despachador
+    }
+
+    @AfterEach
+    void detener() {
+        despachador?.detener()
+    }
+
+    @Test
+    void coalesceMensajesDeLaMismaOrdenDentroDeLaVentana() {
+        crear(100, 100, 10, 200)
+
+        def primero = despachador.encolar("+51999000111", 1L, "Orden #1: Recibido → En Diagnóstico")
+        def segundo = despachador.encolar("+51999000111", 1L, "Orden #1: En Diagnóstico → En Reparación")
+        def tercero = despachador.encolar("+51999000111", 1L, "Orden #1: En Reparación → Completado")
+
+        String messageId = tercero.get(5, TimeUnit.SECONDS)
+        assertEquals(messageId, primero.get(5, TimeUnit.SECONDS))
+        assertEquals(messageId, segundo.get(5, TimeUnit.SECONDS))
+        assertEquals(1, publicados.size())
+        assertEquals("Orden #1: En Reparación → Completado", publicados[0].message())
+        assertEquals(2L, despachador.obtenerMetricas().coalescidos)
+    }
+
+    @Test
+    void noCoalesceMensajesDeOrdenesDistintasAlMismoTelefono() {
+        crear(100, 100, 10, 200)
+
+        def primeraOrden = despachador.encolar("+51999000111", 1L, "Orden #1: En Reparación → Completado")
+        def segundaOrden = despachador.encolar("+51999000111", 2L, "Orden #2: Recibido → En Diagnóstico")
+
+        assertNotEquals(primeraOrden.get(5, TimeUnit.SECONDS), segundaOrden.get(5, TimeUnit.SECONDS))
+        assertEquals(["Orden #1: En Reparación → Completado", "Orden #2: Recibido → En Diagnóstico"] as Set,
+                publicados.collect { it.message() } as Set)
+        assertEquals(0L, despachador.obtenerMetricas().coalescidos)
+    }
+
+    @Test
+    void losMensajesSinOrdenNoEsperanLaVentanaDeCoalescencia() {
+        crear(100, 100, 10, 10000)
+
+        def deOrden = despachador.encolar("+51999000111", 1L, "Orden #1: Recibido → En Diagnóstico")
+        String puntual = despachador.encolar("+51999000333", "Prueba de SMS").get(2, TimeUnit.SECONDS)
+
+        assertNotNull(puntual)
+        assertEquals(["Prueba de SMS"], publicados.collect { it.message() })
+        assertFalse(deOrden.isDone())
+    }
+
+    @Test
+    void noReenviaMensajeIdenticoDentroDeLaVentanaDeDeduplicacion() {
+        crear(100, 100, 10, 0)
+
+        String primero = despachador.encolar("+51999000222", "Su vehículo está listo").get(5, TimeUnit.SECONDS)
+        String segundo = despachador.encolar("+51999000222", "Su vehículo está listo").get(5, TimeUnit.SECONDS)
+
+        assertEquals(primero, segundo)
+        assertEquals(1, publicados.size())
+        assertEquals(1L, despachador.obtenerMetricas().deduplicados)
+    }
+
+    @Test
+    void descartaCuandoLaColaEstaLlena() {
+        crear(2, 100, 10, 10000)
+
+        // Mensajes de órdenes: quedan en cola durante la ventana de coalescencia
+        despachador.encolar("+51999000001", 1L, "uno")
+        despachador.encolar("+51999000002", 2L, "dos")
+        def rechazado = despachador.encolar("+51999000003", 3L, "tres")
+
+        def error = assertThrows(ExecutionException) { rechazado.get(1, TimeUnit.SECONDS) }
+        assertTrue(error.cause instanceof RejectedExecutionException)
+        assertEquals(2, despachador.obtenerProfundidadCola())
+        assertEquals(1L, despachador.obtenerMetricas().descartados)
+    }
+
+    @Test
+    void respetaElLimiteDeTps() {
+        crear(100, 5, 1, 0)
+
+        long inicio = System.nanoTime()
+        def futuros = (1..4).collect { despachador.encolar("+5199900010" + it, "mensaje " + it) }
+        futuros.each { it.get(5, TimeUnit.SECONDS) }
+        long transcurridoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)
+
+        // 1 token inicial y 5 por segundo: los 3 restantes esperan ~200 ms cada uno
+        assertTrue(transcurridoMs >= 500, "Transcurrido: " + transcurridoMs + " ms")
+        assertEquals(4, publicados.size())
+    }
+}
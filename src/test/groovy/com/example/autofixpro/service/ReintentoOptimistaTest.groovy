@@ -0,0 +1,130 @@
+package com.example.autofixpro.service
+
+import com.example.autofixpro.dao.OrdenServicioDAO
+import com.example.autofixpro.entity.OrdenServicio
+import org.junit.jupiter.api.Test
+import org.springframework.orm.ObjectOptimisticLockingFailureException
+import org.springframework.test.util.ReflectionTestUtils
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.TransactionStatus
+import org.springframework.transaction.support.SimpleTransactionStatus
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Pruebas del reintento ante conflictos de versión con dos actualizaciones concurrentes sobre la misma orden.
+ * La orden guardada es un contador de versión: el UPDATE solo se aplica si la versión leída sigue vigente,
+ * como el UPDATE ... WHERE version = ? de JPA (sin base de datos).
+ */
+class ReintentoOptimistaTest {
+
+    private static final Long ORDEN_ID = 10L
+
+    private final AtomicLong versionGuardada = new AtomicLong(5)
+    private final AtomicInteger transacciones = new AtomicInteger()
+    private final AtomicInteger reversiones = new AtomicInteger()
+    private final List<Integer> propagaciones = Collections.synchronizedList(new ArrayList<Integer>())
+
+    private final PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+        @Override
+        TransactionStatus getTransaction(TransactionDefinition definicion) {
+            transacciones.incrementAndGet()
+            propagaciones.add(definicion.propagationBehavior)
+            return new SimpleTransactionStatus()
+        }
+
+        @Override
+        void commit(TransactionStatus estado) {}
+
+        @Override
+        void rollback(TransactionStatus estado) {
+            reversiones.incrementAndGet()
+        }
+    }
+
+    private ReintentoOptimista crear(int maxReintentos) {
+        def reintento = new ReintentoOptimista()
+        ReflectionTestUtils.setField(reintento, "transactionManager", transactionManager)
+        ReflectionTestUtils.setField(reintento, "ordenServicioDAO",
+                [findVersion: { Long id -> Optional.of(versionGuardada.get()) }] as OrdenServicioDAO)
+        ReflectionTestUtils.setField(reintento, "maxReintentos", maxReintentos)
+        ReflectionTestUtils.setField(reintento, "esperaBaseMs", 5L)
+        return reintento
+    }
+
+    /**
+     * Lanza dos actualizaciones que leen la misma versión antes de que cualquiera de las dos guarde.
+     */
+    private List<Object> actualizarEnParalelo(ReintentoOptimista reintento) {
+        def ambasLeyeron = new CountDownLatch(2)
+        def actualizacion = {
+            long leida = versionGuardada.get()
+            ambasLeyeron.countDown()
+            ambasLeyeron.await(5, TimeUnit.SECONDS)
+            if (!versionGuardada.compareAndSet(leida, leida + 1)) {
+                throw new ObjectOptimisticLockingFailureException(OrdenServicio, ORDEN_ID)
+            }
+            return leida + 1
+        }
+
+        def executor = Executors.newFixedThreadPool(2)
+        try {
+            def futuros = (1..2).collect {
+                executor.submit({ reintento.ejecutar(ORDEN_ID, actualizacion) } as Callable<Long>)
+            }
+            return futuros.collect { futuro ->
+                try {
+                    return futuro.get(5, TimeUnit.SECONDS)
+                } catch (java.util.concurrent.ExecutionException e) {
+                    return e.cause
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    void elSegundoEscritorSeReintentaUnaVezSobreLaVersionConfirmada() {
+        def reintento = crear(3)
+
+        def resultados = actualizarEnParalelo(reintento)
+
+        // Ambas se aplican: una en el primer intento y la otra al reintentar sobre la versión 6
+        assertEquals([6L, 7L] as Set, resultados as Set)
+        assertEquals(7L, versionGuardada.get())
+        assertEquals(3, transacciones.get())
+        assertEquals(1, reversiones.get())
+        assertTrue(propagaciones.every { it == TransactionDefinition.PROPAGATION_REQUIRES_NEW })
+
+        def metricas = reintento.obtenerMetricas()
+        assertEquals(1L, metricas.conflictos)
+        assertEquals(1L, metricas.reintentosExitosos)
+        assertEquals(0L, metricas.conflictosAgotados)
+    }
+
+    @Test
+    void sinReintentosElConflictoLlevaLaVersionConfirmada() {
+        def reintento = crear(0)
+
+        def resultados = actualizarEnParalelo(reintento)
+
+        // El controlador responde 409 con esta excepción y la versión que debe recargar el cliente
+        def conflicto = resultados.find { it instanceof ConflictoVersionException } as ConflictoVersionException
+        assertNotNull(conflicto, "Se esperaba un conflicto: " + resultados)
+        assertTrue(resultados.contains(6L))
+        assertEquals(ORDEN_ID, conflicto.ordenId)
+        assertEquals(6L, conflicto.versionActual)
+        assertTrue(conflicto.cause instanceof ObjectOptimisticLockingFailureException)
+        assertEquals(6L, versionGuardada.get())
+        assertEquals(1L, reintento.obtenerMetricas().conflictosAgotados)
+    }
+}
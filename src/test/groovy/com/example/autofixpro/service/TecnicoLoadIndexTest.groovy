@@ -0,0 +1,96 @@
+package com.example.autofixpro.service
+
+import com.example.autofixpro.dao.TecnicoDAO
+import org.junit.jupiter.api.Test
+import org.springframework.test.util.ReflectionTestUtils
+import org.springframework.transaction.support.TransactionSynchronization
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import org.springframework.transaction.support.TransactionSynchronizationUtils
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Pruebas de las reservas del índice de carga de técnicos con solicitudes concurrentes (sin base de datos).
+ */
+class TecnicoLoadIndexTest {
+
+    private static final int MAX_ABIERTAS = 3
+
+    private TecnicoLoadIndex crear(List<Object[]> cargas) {
+        def indice = new TecnicoLoadIndex()
+        ReflectionTestUtils.setField(indice, "tecnicoDAO",
+                [contarOrdenesAbiertasPorTecnico: { Collection estados -> cargas }] as TecnicoDAO)
+        ReflectionTestUtils.setField(indice, "maxOrdenesAbiertas", MAX_ABIERTAS)
+        return indice
+    }
+
+    @Test
+    void lasReservasSimultaneasNoSuperanElMaximoNiRepitenCupo() {
+        def indice = crear([
+                [1L, "Motor", 0L] as Object[],
+                [2L, "Frenos", 1L] as Object[],
+                [17L, "Motor", 2L] as Object[]   // misma franja que el técnico 1
+        ])
+        int hilos = 16
+        def listos = new CountDownLatch(hilos)
+        def executor = Executors.newFixedThreadPool(hilos)
+        List<Optional<TecnicoLoadIndex.Reserva>> reservas
+        try {
+            def futuros = (1..hilos).collect {
+                executor.submit({
+                    listos.countDown()
+                    listos.await()
+                    return indice.reservarMenosCargado(null)
+                } as Callable<Optional<TecnicoLoadIndex.Reserva>>)
+            }
+            reservas = futuros.collect { it.get(5, TimeUnit.SECONDS) }
+        } finally {
+            executor.shutdownNow()
+        }
+
+        // Quedaban 3 + 2 + 1 cupos: se reservan todos y el resto de solicitudes queda sin técnico
+        def porTecnico = reservas.findAll { it.present }.countBy { it.get().tecnicoId }
+        assertEquals([1L: 3, 2L: 2, 17L: 1], porTecnico)
+        assertEquals(hilos - 6, reservas.count { !it.present })
+        [1L, 2L, 17L].each { assertEquals(MAX_ABIERTAS, indice.obtenerOrdenesAbiertas(it)) }
+    }
+
+    @Test
+    void laReservaSeDevuelveSiLaAsignacionSeRevierte() {
+        def indice = crear([[1L, "Motor", 0L] as Object[]])
+        def reserva = indice.reservarMenosCargado("motor").get()
+        assertEquals(1, indice.obtenerOrdenesAbiertas(1L))
+
+        TransactionSynchronizationManager.initSynchronization()
+        List<TransactionSynchronization> sincronizaciones
+        try {
+            indice.confirmarAlTerminar(reserva)
+            sincronizaciones = TransactionSynchronizationManager.getSynchronizations()
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization()
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(sincronizaciones, TransactionSynchronization.STATUS_ROLLED_BACK)
+
+        assertEquals(0, indice.obtenerOrdenesAbiertas(1L))
+        // Liberarla otra vez no descuenta una orden ajena
+        indice.liberar(reserva)
+        assertEquals(0, indice.obtenerOrdenesAbiertas(1L))
+    }
+
+    @Test
+    void laReservaConfirmadaNoSeCuentaDosVeces() {
+        def indice = crear([[1L, "Motor", 0L] as Object[]])
+        def reserva = indice.reservarMenosCargado(null).get()
+
+        // Sin transacción, la confirmación se aplica en el acto
+        indice.confirmarAlTerminar(reserva)
+        indice.liberar(reserva)
+
+        assertEquals(1, indice.obtenerOrdenesAbiertas(1L))
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.autofixpro.util
+
+import org.junit.jupiter.api.Test
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.junit.jupiter.api.Assertions.*
+
+/**
+ * Pruebas de la reconstrucción de estados en memoria con cambios concurrentes (sin base de datos).
+ */
+class EstadoReconstruibleTest {
+
+    @Test
+    void repiteSobreElEstadoNuevoLosCambiosRecibidosDuranteLaCarga() {
+        def leyo = new CountDownLatch(1)
+        def continuar = new CountDownLatch(1)
+        def cargas = new AtomicInteger()
+        def estado = new EstadoReconstruible<Set<Long>>({
+            Set<Long> nuevo = ConcurrentHashMap.newKeySet()
+            nuevo.add(1L)
+            if (cargas.incrementAndGet() > 1) {
+                // La segunda carga lee la base antes de que se confirme el alta del 2
+                leyo.countDown()
+                continuar.await(5, TimeUnit.SECONDS)
+            }
+            return nuevo
+        })
+        estado.obtener()
+
+        def executor = Executors.newSingleThreadExecutor()
+        try {
+            def reconstruccion = executor.submit { estado.reconstruir() }
+            assertTrue(leyo.await(5, TimeUnit.SECONDS))
+            // Alta confirmada después de la lectura: llega como cambio tras el commit
+            estado.modificar { it.add(2L) }
+            continuar.countDown()
+            reconstruccion.get(5, TimeUnit.SECONDS)
+        } finally {
+            executor.shutdownNow()
+        }
+
+        assertEquals([1L, 2L] as Set, estado.obtener())
+    }
+
+    @Test
+    void laCargaPerezosaSeHaceUnaSolaVezAunqueLaPidanVariosHilos() {
+        def cargas = new AtomicInteger()
+        def estado = new EstadoReconstruible<List<String>>({
+            cargas.incrementAndGet()
+            Thread.sleep(100)
+            return ["cargado"]
+        })
+
+        int hilos = 8
+        def listos = new CountDownLatch(hilos)
+        def executor = Executors.newFixedThreadPool(hilos)
+        try {
+            def lecturas = (1..hilos).collect {
+                executor.submit({
+                    listos.countDown()
+                    listos.await()
+                    return estado.leer { it.size() }
+                } as java.util.concurrent.Callable<Integer>)
+            }
+            lecturas.each { assertEquals(1, it.get(5, TimeUnit.SECONDS)) }
+        } finally {
+            executor.shutdownNow()
+        }
+
+        assertEquals(1, cargas.get())
+    }
+
+    @Test
+    void sinEstadoCargadoLosCambiosSeDescartan() {
+        def estado = new EstadoReconstruible<Set<Long>>({ new HashSet<Long>([7L]) })
+
+        // La carga posterior lee la base, que ya incluye el cambio
+        estado.modificar { it.add(8L) }
+
+        assertEquals([7L] as Set, estado.obtener())
+    }
+}